@@ -0,0 +1,148 @@
+package me.pagekite.glen3b.library.bukkit;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.logging.Level;
+
+import me.pagekite.glen3b.library.bukkit.command.CommandMetrics;
+import me.pagekite.glen3b.library.bukkit.command.annotation.Access;
+import me.pagekite.glen3b.library.bukkit.command.annotation.Argument;
+import me.pagekite.glen3b.library.bukkit.command.annotation.CommandMethod;
+import me.pagekite.glen3b.library.bukkit.command.annotation.Optional;
+import me.pagekite.glen3b.library.bukkit.command.annotation.ParentCommand;
+import me.pagekite.glen3b.library.bukkit.command.annotation.SubcommandAnnotatedObject;
+import me.pagekite.glen3b.library.bukkit.reflection.ReflectionMetrics;
+import me.pagekite.glen3b.library.bukkit.reflection.ReflectionWarmup;
+
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+
+/**
+ * The {@code /gbukkitcore} command, which provides debugging tools for server administrators.
+ * @author Glen Husman
+ */
+final class GBukkitCoreCommand extends ParentCommand {
+
+	/**
+	 * Subcommands mounted under {@code /gbukkitcore debug}, all of which require the {@code gbukkitcore.debug} permission.
+	 */
+	static final class DebugCommands implements SubcommandAnnotatedObject{
+		private final GBukkitCorePlugin _plugin;
+
+		public DebugCommands(GBukkitCorePlugin plugin){
+			_plugin = plugin;
+		}
+
+		@CommandMethod(aliases = { "commands", "cmds" }, description = "Displays the metrics of commands.")
+		@Access(permission = "gbukkitcore.debug")
+		public void commands(CommandSender sender, @Optional @Argument(name = "filter") String filter){
+			if(!CommandMetrics.isEnabled()){
+				sender.sendMessage(ChatColor.RED + "Command metrics are not being recorded.");
+			}
+
+			int shown = 0;
+			for(CommandMetrics.Stats stats : CommandMetrics.getAllStats()){
+				if(filter != null && !stats.getName().toLowerCase().contains(filter.toLowerCase()) || stats.getInvocations() == 0){
+					continue;
+				}
+
+				sender.sendMessage(ChatColor.GOLD + stats.getName() + ChatColor.GRAY + " - " + ChatColor.YELLOW + stats.getInvocations() + " calls (" + stats.getDenied() + " denied)"
+						+ "\n" + ChatColor.GRAY + "  parse: " + CommandMetrics.describe(stats.getParseTime())
+						+ "\n" + ChatColor.GRAY + "  access: " + CommandMetrics.describe(stats.getAccessTime())
+						+ "\n" + ChatColor.GRAY + "  handler: " + CommandMetrics.describe(stats.getHandlerTime()));
+				shown++;
+			}
+
+			if(shown == 0){
+				sender.sendMessage(ChatColor.YELLOW + "No command metrics have been recorded.");
+			}
+		}
+
+		@CommandMethod(aliases = { "dump" }, description = "Writes the metrics of commands to the data folder.", async = true)
+		@Access(permission = "gbukkitcore.debug")
+		public String dump(CommandSender sender){
+			File file = new File(_plugin.getDataFolder(), GBukkitCorePlugin.COMMAND_METRICS_FILE);
+			try{
+				CommandMetrics.dump(file);
+				return ChatColor.GREEN + "Command metrics were written to " + file.getPath() + ".";
+			}catch(IOException except){
+				Bukkit.getLogger().log(Level.WARNING, "The command metrics could not be written to " + file.getPath() + ".", except);
+				return ChatColor.RED + "The command metrics could not be written.";
+			}
+		}
+
+		@CommandMethod(aliases = { "reset" }, description = "Discards the metrics of commands.")
+		@Access(permission = "gbukkitcore.debug")
+		public String reset(CommandSender sender){
+			CommandMetrics.reset();
+			return ChatColor.GREEN + "Command metrics were reset.";
+		}
+
+		@CommandMethod(aliases = { "record" }, description = "Sets whether the metrics of commands are recorded.")
+		@Access(permission = "gbukkitcore.debug")
+		public String record(CommandSender sender, @Argument(name = "enabled") boolean enabled){
+			CommandMetrics.setEnabled(enabled);
+			return ChatColor.GREEN + "Command metrics are " + (enabled ? "now" : "no longer") + " recorded.";
+		}
+
+		@CommandMethod(aliases = { "reflection", "refl" }, description = "Displays the readiness of reflective features.")
+		@Access(permission = "gbukkitcore.debug")
+		public void reflection(CommandSender sender){
+			for(ReflectionWarmup.Resolution resolution : ReflectionWarmup.getReport()){
+				ChatColor color = resolution.getStatus() == ReflectionWarmup.Status.AVAILABLE ? ChatColor.GREEN : resolution.getStatus() == ReflectionWarmup.Status.PENDING ? ChatColor.YELLOW : ChatColor.RED;
+				sender.sendMessage(color + resolution.toString());
+			}
+		}
+
+		@CommandMethod(aliases = { "reflectmetrics", "rmetrics" }, description = "Displays the metrics of reflective lookups.")
+		@Access(permission = "gbukkitcore.debug")
+		public void reflectMetrics(CommandSender sender){
+			if(!ReflectionMetrics.isEnabled()){
+				sender.sendMessage(ChatColor.RED + "Reflection metrics are not being recorded.");
+			}
+
+			for(ReflectionMetrics.Stats stats : ReflectionMetrics.getAllStats()){
+				sender.sendMessage(ChatColor.GOLD + stats.getName() + ChatColor.GRAY + " - " + ChatColor.YELLOW + stats.getCalls() + " calls (" + String.format("%.1f%%", stats.getHitRate() * 100) + " cache hits)"
+						+ "\n" + ChatColor.GRAY + "  time: total " + CommandMetrics.formatNanos(stats.getTime().getTotalNanos()) + ", " + CommandMetrics.describe(stats.getTime()));
+			}
+		}
+
+		@CommandMethod(aliases = { "reflectdump" }, description = "Writes the metrics of reflective lookups to the data folder.", async = true)
+		@Access(permission = "gbukkitcore.debug")
+		public String reflectDump(CommandSender sender){
+			File file = new File(_plugin.getDataFolder(), GBukkitCorePlugin.REFLECTION_METRICS_FILE);
+			try{
+				ReflectionMetrics.dump(file);
+				return ChatColor.GREEN + "Reflection metrics were written to " + file.getPath() + ".";
+			}catch(IOException except){
+				Bukkit.getLogger().log(Level.WARNING, "The reflection metrics could not be written to " + file.getPath() + ".", except);
+				return ChatColor.RED + "The reflection metrics could not be written.";
+			}
+		}
+
+		@CommandMethod(aliases = { "reflectreset" }, description = "Discards the metrics of reflective lookups.")
+		@Access(permission = "gbukkitcore.debug")
+		public String reflectReset(CommandSender sender){
+			ReflectionMetrics.reset();
+			return ChatColor.GREEN + "Reflection metrics were reset.";
+		}
+
+		@CommandMethod(aliases = { "reflectrecord" }, description = "Sets whether the metrics of reflective lookups are recorded.")
+		@Access(permission = "gbukkitcore.debug")
+		public String reflectRecord(CommandSender sender, @Argument(name = "enabled") boolean enabled){
+			ReflectionMetrics.setEnabled(enabled);
+			return ChatColor.GREEN + "Reflection metrics are " + (enabled ? "now" : "no longer") + " recorded.";
+		}
+	}
+
+	public GBukkitCoreCommand(GBukkitCorePlugin plugin){
+		mount("debug", "Debugging tools.", new DebugCommands(plugin));
+	}
+
+	@Override
+	protected String getHelpHeader(){
+		return ChatColor.AQUA + "GBukkitCore help (page %d):";
+	}
+
+}
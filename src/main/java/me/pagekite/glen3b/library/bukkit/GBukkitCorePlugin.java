@@ -17,20 +17,39 @@
 
 package me.pagekite.glen3b.library.bukkit;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
-
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+import me.pagekite.glen3b.library.bukkit.command.CommandMetrics;
+import me.pagekite.glen3b.library.bukkit.command.HelpPageCache;
+import me.pagekite.glen3b.library.bukkit.command.PermissionCache;
+import me.pagekite.glen3b.library.bukkit.command.RateLimiter;
 import me.pagekite.glen3b.library.bukkit.datastore.AutoSaverScheduler;
 import me.pagekite.glen3b.library.bukkit.datastore.Message;
 import me.pagekite.glen3b.library.bukkit.datastore.MessageProvider;
 import me.pagekite.glen3b.library.bukkit.datastore.SerializableLocation;
 import me.pagekite.glen3b.library.bukkit.protocol.DefaultProtocolUtilityImplementation;
 import me.pagekite.glen3b.library.bukkit.protocol.PacketAPIUtilityImplementation;
+import me.pagekite.glen3b.library.bukkit.protocol.PacketInterceptor;
 import me.pagekite.glen3b.library.bukkit.protocol.ProtocolLibUtilImplementation;
 import me.pagekite.glen3b.library.bukkit.protocol.ProtocolUtilities;
+import me.pagekite.glen3b.library.bukkit.reflection.ClassIndex;
+import me.pagekite.glen3b.library.bukkit.reflection.ReflectionMetrics;
+import me.pagekite.glen3b.library.bukkit.reflection.ReflectionUtilities;
+import me.pagekite.glen3b.library.bukkit.reflection.ReflectionWarmup;
 import me.pagekite.glen3b.library.bukkit.teleport.QueuedTeleport;
 import me.pagekite.glen3b.library.bukkit.teleport.ServerTeleportationManager;
 import me.pagekite.glen3b.library.bukkit.teleport.TeleportationManager;
@@ -40,6 +59,7 @@ import me.pagekite.glen3b.library.bungeecord.ServerTransportManager;
 import org.apache.commons.lang.Validate;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
+import org.bukkit.command.PluginCommand;
 import org.bukkit.configuration.serialization.ConfigurationSerialization;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
@@ -53,6 +73,8 @@ import org.bukkit.plugin.ServicePriority;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.scheduler.BukkitTask;
 
+import com.google.common.collect.ImmutableMap;
+
 /**
  * The plugin class for GBukkitCore. Contains many implementation classes of registered services.
  * @author Glen Husman
@@ -294,6 +316,91 @@ public final class GBukkitCorePlugin extends JavaPlugin {
 		this.getServer().getServicesManager().getRegistration(AutoSaverScheduler.class).getProvider().onDisable();
 		this.getServer().getServicesManager().unregisterAll(this);
 		Utilities.cleanup(this);
+		OfflinePlayerResolver.getInstance().cleanup();
+		ReflectionWarmup.reset();
+		ClassIndex.clear();
+
+		if(_asyncCommandExecutor != null){
+			// Commands already running are allowed to finish, but their results will not be delivered
+			_asyncCommandExecutor.shutdown();
+			_asyncCommandExecutor = null;
+		}
+	}
+
+	/**
+	 * Reloads the configuration, invalidating the cached help pages of all commands, as they are rendered from configured messages.
+	 */
+	@Override
+	public void reloadConfig(){
+		super.reloadConfig();
+		HelpPageCache.invalidateAll();
+		RateLimiter.configure(getConfig().getConfigurationSection("rateLimits"));
+	}
+
+	private ExecutorService _asyncCommandExecutor;
+	private long _asyncCommandTimeoutMillis;
+
+	/**
+	 * Gets the bounded pool of worker threads on which {@linkplain me.pagekite.glen3b.library.bukkit.command.annotation.CommandMethod#async() asynchronous subcommands} are executed.
+	 * The number of threads and the number of queued subcommands are set in the configuration. Tasks submitted while the queue is full are rejected with a {@link java.util.concurrent.RejectedExecutionException RejectedExecutionException}.
+	 * @return The worker pool, or {@code null} if this plugin is not enabled.
+	 */
+	public ExecutorService getAsyncCommandExecutor(){
+		return _asyncCommandExecutor;
+	}
+
+	/**
+	 * Gets the time for which a worker thread waits for the {@link java.util.concurrent.Future Future} returned by an asynchronous subcommand, as set in the configuration.
+	 * @return The timeout, in milliseconds.
+	 */
+	public long getAsyncCommandTimeoutMillis(){
+		return _asyncCommandTimeoutMillis;
+	}
+
+	private static final class CommandWorkerThreadFactory implements ThreadFactory{
+		private final AtomicInteger _threadCount = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable task) {
+			Thread thread = new Thread(task, "GBukkitCore Command Worker #" + _threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+	/**
+	 * The name of the file in the data folder to which command metrics are written.
+	 */
+	static final String COMMAND_METRICS_FILE = "command-metrics.txt";
+
+	/**
+	 * The name of the file in the data folder to which the unique IDs of resolved player names are written.
+	 */
+	static final String OFFLINE_PLAYER_CACHE_FILE = "player-cache.txt";
+
+	/**
+	 * The name of the file in the data folder to which reflection metrics are written.
+	 */
+	static final String REFLECTION_METRICS_FILE = "reflection-metrics.txt";
+
+	/**
+	 * Periodically writes the command metrics to the data folder.
+	 */
+	private static final class CommandMetricsDumper implements Runnable{
+		private final File _file;
+
+		public CommandMetricsDumper(File file){
+			_file = file;
+		}
+
+		@Override
+		public void run() {
+			try{
+				CommandMetrics.dump(_file);
+			}catch(IOException except){
+				Bukkit.getLogger().log(Level.WARNING, "The command metrics could not be written to " + _file.getPath() + ".", except);
+			}
+		}
 	}
 
 	int updaterTaskId;
@@ -316,12 +423,67 @@ public final class GBukkitCorePlugin extends JavaPlugin {
 		if(packet != null && packet.isEnabled()){
 			getServer().getServicesManager().register(ProtocolUtilities.class, new PacketAPIUtilityImplementation(), this, ServicePriority.Normal);
 		}
-		DefaultProtocolUtilityImplementation reflectUtils = new DefaultProtocolUtilityImplementation();
+		final DefaultProtocolUtilityImplementation reflectUtils = new DefaultProtocolUtilityImplementation();
 		getServer().getServicesManager().register(ProtocolUtilities.class, reflectUtils, this, ServicePriority.Lowest); // Purely reflective implementation
 		getServer().getServicesManager().register(DefaultProtocolUtilityImplementation.class, reflectUtils, this, ServicePriority.Highest); // Purely reflective implementation for calling unwrapped methods
 		Utilities.initialize(this);
 		saveDefaultConfig();
 
+		ClassIndex.build(this);
+
+		// Resolve reflective handles in parallel now, rather than on the first use of each feature
+		ReflectionWarmup.start(this, ImmutableMap.of(
+				ReflectionWarmup.Feature.PACKETS, new Callable<Object>(){
+					@Override
+					public Object call() throws Exception {
+						ReflectionUtilities.CraftBukkit.warmUp();
+						return null;
+					}
+				},
+				ReflectionWarmup.Feature.PARTICLES, new Callable<Object>(){
+					@Override
+					public Object call() throws Exception {
+						Utilities.Effects.warmUp();
+						return null;
+					}
+				},
+				ReflectionWarmup.Feature.ITEM_GLOW, new Callable<Object>(){
+					@Override
+					public Object call() throws Exception {
+						reflectUtils.warmUp();
+						return null;
+					}
+				},
+				ReflectionWarmup.Feature.PACKET_INTERCEPTION, new Callable<Object>(){
+					@Override
+					public Object call() throws Exception {
+						PacketInterceptor.getInstance().warmUp();
+						return null;
+					}
+				}));
+
+		int commandThreads = Math.max(getConfig().getInt("asyncCommandThreads", 2), 1);
+		ThreadPoolExecutor commandExecutor = new ThreadPoolExecutor(commandThreads, commandThreads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(Math.max(getConfig().getInt("asyncCommandQueueSize", 100), 1)), new CommandWorkerThreadFactory());
+		commandExecutor.allowCoreThreadTimeOut(true);
+		_asyncCommandExecutor = commandExecutor;
+		_asyncCommandTimeoutMillis = TimeUnit.SECONDS.toMillis(Math.max(getConfig().getLong("asyncCommandTimeoutSeconds", 30), 1));
+
+		RateLimiter.configure(getConfig().getConfigurationSection("rateLimits"));
+		PermissionCache.getInstance().setLifetime(getConfig().getLong("permissionCacheMillis", 1000), TimeUnit.MILLISECONDS);
+		OfflinePlayerResolver.getInstance().initialize(this, new File(getDataFolder(), OFFLINE_PLAYER_CACHE_FILE), getConfig().getInt("offlinePlayerCacheSize", 1000), Constants.TICKS_PER_MINUTE * 5);
+
+		CommandMetrics.setEnabled(getConfig().getBoolean("commandMetrics", true));
+		ReflectionMetrics.setEnabled(getConfig().getBoolean("reflectionMetrics", false));
+		long metricsDumpInterval = getConfig().getLong("commandMetricsDumpInterval", 10) * Constants.TICKS_PER_MINUTE;
+		if(metricsDumpInterval > 0){
+			getServer().getScheduler().runTaskTimerAsynchronously(this, new CommandMetricsDumper(new File(getDataFolder(), COMMAND_METRICS_FILE)), metricsDumpInterval, metricsDumpInterval);
+		}
+
+		PluginCommand coreCommand = getCommand("gbukkitcore");
+		if(coreCommand != null){
+			new GBukkitCoreCommand(this).register(coreCommand);
+		}
+
 //		if(getConfig().getBoolean("autoupdate")){
 //			Bukkit.getScheduler().runTaskTimerAsynchronously(this, new Runnable(){
 //
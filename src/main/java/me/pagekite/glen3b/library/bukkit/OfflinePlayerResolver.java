@@ -0,0 +1,345 @@
+package me.pagekite.glen3b.library.bukkit;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Level;
+
+import org.apache.commons.lang.Validate;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Resolves player names to {@link OfflinePlayer} instances without blocking the main thread.
+ * <p>
+ * {@link Bukkit#getOfflinePlayer(String)} may look up the profile of an unknown name from the Mojang servers, freezing the server for seconds if called on the main thread.
+ * This resolver keeps the unique IDs of recently resolved names in a least recently used cache, which is persisted to a file in the GBukkitCore data folder and fed by every player who joins.
+ * Cached names are resolved immediately through {@link Bukkit#getOfflinePlayer(UUID)}, which never performs a lookup, and other names are resolved on an asynchronous task.
+ * @author Glen Husman
+ */
+public final class OfflinePlayerResolver implements Listener {
+
+	private static final OfflinePlayerResolver INSTANCE = new OfflinePlayerResolver();
+
+	/**
+	 * Gets the offline player resolver instance.
+	 * @return The offline player resolver.
+	 */
+	public static OfflinePlayerResolver getInstance(){
+		return INSTANCE;
+	}
+
+	private OfflinePlayerResolver(){
+		// Singleton
+	}
+
+	/**
+	 * Receives the players resolved by {@link OfflinePlayerResolver#resolveAsync(String[], Callback)}.
+	 */
+	public static interface Callback{
+		/**
+		 * Called on the main thread once all names have been resolved.
+		 * @param players The resolved players, in the order of the names they were resolved from.
+		 */
+		public void onResolved(OfflinePlayer[] players);
+	}
+
+	/**
+	 * Resolves names off the main thread, then delivers the players to the callback on the main thread.
+	 */
+	private final class AsyncResolution implements Runnable{
+		private final Plugin _host;
+		private final String[] _names;
+		private final OfflinePlayer[] _players;
+		private final Callback _callback;
+
+		public AsyncResolution(Plugin host, String[] names, OfflinePlayer[] players, Callback callback){
+			_host = host;
+			_names = names;
+			_players = players;
+			_callback = callback;
+		}
+
+		@Override
+		public void run() {
+			for(int i = 0; i < _names.length; i++){
+				if(_players[i] == null){
+					_players[i] = resolve(_names[i]);
+				}
+			}
+
+			if(_host.isEnabled()){
+				Bukkit.getScheduler().runTask(_host, new Runnable(){
+					@Override
+					public void run() {
+						_callback.onResolved(_players);
+					}
+				});
+			}
+		}
+	}
+
+	/**
+	 * Writes the cache to its file if it has changed.
+	 */
+	private final class CacheSaver implements Runnable{
+		@Override
+		public void run() {
+			try{
+				save(false);
+			}catch(IOException except){
+				Bukkit.getLogger().log(Level.WARNING, "The offline player cache could not be saved.", except);
+			}
+		}
+	}
+
+	/**
+	 * A cached name, in its original case, and the unique ID it resolves to.
+	 */
+	private static final class CachedName{
+		private final String _name;
+		private final UUID _id;
+
+		public CachedName(String name, UUID id){
+			_name = name;
+			_id = id;
+		}
+	}
+
+	// Guarded by this, keyed by lowercase name in access order
+	private final Map<String, CachedName> _cache = new LinkedHashMap<String, CachedName>(16, 0.75f, true){
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, CachedName> eldest){
+			return size() > _capacity;
+		}
+	};
+	private int _capacity = 1000;
+	private boolean _dirty = false;
+	private File _file;
+	private Plugin _host;
+	private BukkitTask _saveTask;
+	private final Object _saveLock = new Object(); // Serializes writes of the file by the periodic and final saves
+
+	/**
+	 * Loads the persisted cache and starts recording joining players. Internal method, not meant to be called by user code.
+	 * @param host The GBukkitCore plugin instance.
+	 * @param file The file the cache is persisted to.
+	 * @param capacity The maximum number of names to cache.
+	 * @param saveInterval The interval, in ticks, at which the cache is saved if it has changed.
+	 */
+	synchronized void initialize(Plugin host, File file, int capacity, long saveInterval){
+		_host = host;
+		_file = file;
+		_capacity = Math.max(capacity, 1);
+		_cache.clear();
+
+		try{
+			load();
+		}catch(IOException except){
+			Bukkit.getLogger().log(Level.WARNING, "The offline player cache could not be loaded from " + file.getPath() + ".", except);
+		}
+
+		Bukkit.getPluginManager().registerEvents(this, host);
+		_saveTask = Bukkit.getScheduler().runTaskTimerAsynchronously(host, new CacheSaver(), saveInterval, saveInterval);
+	}
+
+	/**
+	 * Saves the cache and stops recording joining players. Internal method, not meant to be called by user code.
+	 */
+	void cleanup(){
+		synchronized(this){
+			if(_host == null){
+				return;
+			}
+
+			HandlerList.unregisterAll(this);
+			_saveTask.cancel();
+			_saveTask = null;
+			_host = null;
+		}
+
+		try{
+			save(true);
+		}catch(IOException except){
+			Bukkit.getLogger().log(Level.WARNING, "The offline player cache could not be saved.", except);
+		}
+	}
+
+	private void load() throws IOException{
+		Reader reader;
+		try{
+			reader = new InputStreamReader(new FileInputStream(_file), "UTF-8");
+		}catch(FileNotFoundException except){
+			// Nothing has been cached yet
+			return;
+		}
+
+		BufferedReader lines = new BufferedReader(reader);
+		try{
+			String line;
+			while((line = lines.readLine()) != null){
+				int separator = line.indexOf(' ');
+				if(line.startsWith("#") || separator < 0){
+					continue;
+				}
+
+				try{
+					String name = line.substring(separator + 1).trim();
+					_cache.put(name.toLowerCase(), new CachedName(name, UUID.fromString(line.substring(0, separator))));
+				}catch(IllegalArgumentException except){
+					Bukkit.getLogger().log(Level.FINE, "Skipped a malformed line of the offline player cache: " + line, except);
+				}
+			}
+		}finally{
+			lines.close();
+		}
+	}
+
+	/**
+	 * Writes the cache to its file, least recently used names first, so that the order of use is restored on loading.
+	 * The file is written outside of the lock, so resolution is not blocked by the disk.
+	 */
+	private void save(boolean force) throws IOException{
+		File file;
+		List<CachedName> entries;
+		synchronized(this){
+			if(_file == null || !(_dirty || force)){
+				return;
+			}
+
+			file = _file;
+			entries = Lists.newArrayList(_cache.values());
+			_dirty = false;
+		}
+
+		synchronized(_saveLock){
+			File folder = file.getParentFile();
+			if(folder != null && !folder.isDirectory() && !folder.mkdirs()){
+				throw new IOException("The folder " + folder.getPath() + " could not be created.");
+			}
+
+			Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+			try{
+				String newline = System.getProperty("line.separator");
+				writer.write("# The unique IDs of recently resolved player names, used by GBukkitCore to avoid profile lookups" + newline);
+				for(CachedName entry : entries){
+					writer.write(entry._id + " " + entry._name + newline);
+				}
+			}finally{
+				writer.close();
+			}
+		}
+	}
+
+	private synchronized void remember(String name, UUID id){
+		CachedName previous = _cache.put(name.toLowerCase(), new CachedName(name, id));
+		if(previous == null || !previous._name.equals(name) || !previous._id.equals(id)){
+			_dirty = true;
+		}
+	}
+
+	private synchronized UUID getCachedId(String name){
+		CachedName entry = _cache.get(name.toLowerCase());
+		return entry == null ? null : entry._id;
+	}
+
+	/**
+	 * Gets the player with the specified name if it can be resolved without a profile lookup, that is, if the player is online or the name is cached.
+	 * This method may be called from any thread.
+	 * @param name The exact name of the player.
+	 * @return The player, or {@code null} if resolving the name may require a profile lookup.
+	 */
+	public OfflinePlayer getCached(String name){
+		Validate.notNull(name, "The name must not be null.");
+
+		Player online = OnlinePlayerIndex.getInstance().getPlayerExact(name);
+		if(online != null){
+			return online;
+		}
+
+		UUID id = getCachedId(name);
+		return id == null ? null : Bukkit.getOfflinePlayer(id);
+	}
+
+	/**
+	 * Gets the player with the specified name, caching its unique ID. This method blocks if a profile lookup is required, and should therefore not be called from the main thread.
+	 * @param name The exact name of the player.
+	 * @return The player.
+	 */
+	@SuppressWarnings("deprecation") // Needed to get players by name
+	public OfflinePlayer resolve(String name){
+		OfflinePlayer player = getCached(name);
+		if(player == null){
+			player = Bukkit.getOfflinePlayer(name);
+			if(player != null && player.getUniqueId() != null){
+				remember(name, player.getUniqueId());
+			}
+		}
+		return player;
+	}
+
+	/**
+	 * Resolves players by name without blocking the calling thread, which must be the main thread.
+	 * If every name is cached, the callback is invoked immediately. Otherwise, the names are resolved on an asynchronous task, and the callback is invoked on the main thread once all of them have been resolved.
+	 * @param names The exact names of the players.
+	 * @param callback The callback to receive the players.
+	 */
+	public void resolveAsync(String[] names, Callback callback){
+		Validate.noNullElements(names, "There must not be a null name.");
+		Validate.notNull(callback, "The callback must not be null.");
+
+		OfflinePlayer[] players = new OfflinePlayer[names.length];
+		boolean resolved = true;
+		for(int i = 0; i < names.length; i++){
+			players[i] = getCached(names[i]);
+			resolved &= players[i] != null;
+		}
+
+		Plugin host;
+		synchronized(this){
+			host = _host;
+		}
+
+		if(resolved || host == null || !host.isEnabled()){
+			// No asynchronous task may be scheduled while GBukkitCore is disabled
+			for(int i = 0; i < names.length; i++){
+				if(players[i] == null){
+					players[i] = resolve(names[i]);
+				}
+			}
+			callback.onResolved(players);
+			return;
+		}
+
+		Bukkit.getScheduler().runTaskAsynchronously(host, new AsyncResolution(host, names, players, callback));
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onPlayerJoin(PlayerJoinEvent event){
+		remember(event.getPlayer().getName(), event.getPlayer().getUniqueId());
+	}
+
+}
@@ -0,0 +1,197 @@
+package me.pagekite.glen3b.library.bukkit;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import me.pagekite.glen3b.library.bukkit.command.AliasTrie;
+import me.pagekite.glen3b.library.bukkit.command.CompletionIndex;
+
+import org.apache.commons.lang.Validate;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+/**
+ * An index of the players who are currently online, kept up to date as players join and quit.
+ * <p>
+ * The index is copy-on-write: every join or quit publishes a new immutable snapshot, so reading the index never blocks, never iterates the server player list, and is safe from any thread.
+ * Players are indexed by unique ID in a hash map, and by case folded name in an {@link AliasTrie}, which resolves partial names by visiting only the names starting with them.
+ * Their names are also held in a {@link CompletionIndex} for tab completion.
+ * @author Glen Husman
+ */
+public final class OnlinePlayerIndex implements Listener {
+
+	private static final OnlinePlayerIndex INSTANCE = new OnlinePlayerIndex();
+
+	/**
+	 * Gets the online player index instance.
+	 * @return The online player index.
+	 */
+	public static OnlinePlayerIndex getInstance(){
+		return INSTANCE;
+	}
+
+	private OnlinePlayerIndex(){
+		// Singleton
+	}
+
+	/**
+	 * An immutable view of the online players. The name trie is not modified after construction, so it may be read from any thread once published.
+	 */
+	private static final class Snapshot{
+		private final Map<UUID, Player> _byId;
+		private final AliasTrie<Player> _byName = new AliasTrie<Player>();
+		private final List<Player> _players;
+		private final List<UUID> _ids;
+		private final List<String> _names;
+		private final CompletionIndex _nameIndex;
+
+		public Snapshot(Collection<Player> players){
+			_players = ImmutableList.copyOf(players);
+
+			ImmutableMap.Builder<UUID, Player> byId = ImmutableMap.builder();
+			ImmutableList.Builder<UUID> ids = ImmutableList.builder();
+			ImmutableList.Builder<String> names = ImmutableList.builder();
+			for(Player player : _players){
+				byId.put(player.getUniqueId(), player);
+				ids.add(player.getUniqueId());
+				names.add(player.getName());
+				_byName.put(player.getName(), player);
+			}
+			_byId = byId.build();
+			_ids = ids.build();
+			_names = names.build();
+			_nameIndex = CompletionIndex.of(_names);
+		}
+	}
+
+	private static final Snapshot EMPTY = new Snapshot(ImmutableList.<Player>of());
+
+	private volatile Snapshot _snapshot = EMPTY;
+
+	// Guarded by this, in order of joining
+	private final Map<UUID, Player> _players = Maps.newLinkedHashMap();
+
+	/**
+	 * Gets the online player with the specified unique ID.
+	 * @param id The unique ID of the player.
+	 * @return The player, or {@code null} if no player with that ID is online.
+	 */
+	public Player getPlayer(UUID id){
+		return id == null ? null : _snapshot._byId.get(id);
+	}
+
+	/**
+	 * Gets the online player with the specified name, ignoring case.
+	 * @param name The exact name of the player.
+	 * @return The player, or {@code null} if no player with that name is online.
+	 */
+	public Player getPlayerExact(String name){
+		return _snapshot._byName.get(name);
+	}
+
+	/**
+	 * Gets the online player best matching the specified name, ignoring case, in the manner of {@link org.bukkit.Server#getPlayer(String)}.
+	 * A player with the exact name is preferred, followed by the player with the shortest name starting with {@code name}.
+	 * @param name The full or partial name of the player.
+	 * @return The player, or {@code null} if no online player's name starts with {@code name}.
+	 */
+	public Player getPlayer(String name){
+		Validate.notNull(name, "The name must not be null.");
+
+		// The exact match, if any, is the shortest name with the prefix
+		return _snapshot._byName.getShortestWithPrefix(name);
+	}
+
+	/**
+	 * Gets all online players.
+	 * @return An immutable snapshot of the online players, in the order in which they joined.
+	 */
+	public List<Player> getPlayers(){
+		return _snapshot._players;
+	}
+
+	/**
+	 * Gets the unique IDs of all online players.
+	 * @return An immutable snapshot of the IDs of the online players, in the order in which they joined.
+	 */
+	public List<UUID> getPlayerIDs(){
+		return _snapshot._ids;
+	}
+
+	/**
+	 * Gets the names of all online players.
+	 * @return An immutable snapshot of the names of the online players, in the order in which they joined.
+	 */
+	public List<String> getPlayerNames(){
+		return _snapshot._names;
+	}
+
+	/**
+	 * Gets the names of all online players, for use in tab completion.
+	 * @return An index of the names of all online players.
+	 */
+	public CompletionIndex getNames(){
+		return _snapshot._nameIndex;
+	}
+
+	/**
+	 * Gets the number of online players.
+	 * @return The number of online players.
+	 */
+	public int size(){
+		return _snapshot._players.size();
+	}
+
+	/**
+	 * Rebuilds the index from the players who are currently online. Must be called from the main thread.
+	 */
+	synchronized void rebuild(){
+		_players.clear();
+		for(Player player : Bukkit.getOnlinePlayers()){
+			_players.put(player.getUniqueId(), player);
+		}
+		_snapshot = new Snapshot(_players.values());
+	}
+
+	/**
+	 * Removes all players from the index.
+	 */
+	synchronized void clear(){
+		_players.clear();
+		_snapshot = EMPTY;
+	}
+
+	private synchronized void add(Player player){
+		_players.put(player.getUniqueId(), player);
+		_snapshot = new Snapshot(_players.values());
+	}
+
+	private synchronized void remove(Player player){
+		if(_players.get(player.getUniqueId()) == player){
+			_players.remove(player.getUniqueId());
+			_snapshot = new Snapshot(_players.values());
+		}
+	}
+
+	@EventHandler(priority = EventPriority.LOWEST)
+	public void onPlayerJoin(PlayerJoinEvent event){
+		add(event.getPlayer());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onPlayerQuit(PlayerQuitEvent event){
+		remove(event.getPlayer());
+	}
+
+}
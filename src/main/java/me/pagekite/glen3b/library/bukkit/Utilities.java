@@ -17,10 +17,10 @@
 
 package me.pagekite.glen3b.library.bukkit;
 
-import java.lang.reflect.Constructor;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.Iterator;
@@ -35,10 +35,17 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import me.pagekite.glen3b.library.bukkit.command.CommandSenderType;
+import me.pagekite.glen3b.library.bukkit.command.HelpPageCache;
+import me.pagekite.glen3b.library.bukkit.command.PermissionCache;
+import me.pagekite.glen3b.library.bukkit.command.PreprocessableCommandDispatcher;
+import me.pagekite.glen3b.library.bukkit.datastore.MessageProvider;
+import me.pagekite.glen3b.library.bukkit.protocol.PacketInterceptor;
 import me.pagekite.glen3b.library.bukkit.protocol.ProtocolOperationResult;
 import me.pagekite.glen3b.library.bukkit.protocol.ProtocolOperationReturn;
 import me.pagekite.glen3b.library.bukkit.protocol.ProtocolUtilities;
+import me.pagekite.glen3b.library.bukkit.reflection.PacketFactory;
 import me.pagekite.glen3b.library.bukkit.reflection.ReflectionUtilities;
+import me.pagekite.glen3b.library.bukkit.reflection.ReflectionWarmup;
 import me.pagekite.glen3b.library.bukkit.teleport.QueuedTeleport;
 import me.pagekite.glen3b.library.bukkit.teleport.TeleportationManager;
 
@@ -72,6 +79,9 @@ import org.bukkit.event.entity.EntityDeathEvent;
 import org.bukkit.event.entity.EntityRegainHealthEvent;
 import org.bukkit.event.player.PlayerKickEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.event.server.ServiceRegisterEvent;
+import org.bukkit.event.server.ServiceUnregisterEvent;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.FireworkEffectMeta;
 import org.bukkit.inventory.meta.FireworkMeta;
@@ -161,6 +171,35 @@ public final class Utilities {
 
 		// End kick event determiners
 
+		// Help page invalidation
+
+		@EventHandler(priority = EventPriority.MONITOR)
+		public void onServiceRegister(ServiceRegisterEvent event){
+			if(event.getProvider().getService() == MessageProvider.class){
+				HelpPageCache.invalidateAll();
+			}
+		}
+
+		@EventHandler(priority = EventPriority.MONITOR)
+		public void onServiceUnregister(ServiceUnregisterEvent event){
+			if(event.getProvider().getService() == MessageProvider.class){
+				HelpPageCache.invalidateAll();
+			}
+		}
+
+		// End help page invalidation
+
+		@EventHandler(priority = EventPriority.MONITOR)
+		public void onQuit(final PlayerQuitEvent event){
+			ReflectionUtilities.CraftBukkit.invalidatePlayerConnection(event.getPlayer());
+		}
+
+		@EventHandler(priority = EventPriority.MONITOR)
+		public void onPluginDisable(PluginDisableEvent event){
+			// Cached members would otherwise keep the classes of the plugin loaded across reloads
+			ReflectionUtilities.evictClassLoader(event.getPlugin().getClass().getClassLoader());
+		}
+
 
 		// Wolf spawn assurance
 		private Set<Location> _wolfSpawnLocs = Sets.newHashSet();
@@ -268,8 +307,11 @@ public final class Utilities {
 
 			_eventListener = new UtilityEventListener(hostPlugin);
 			Bukkit.getPluginManager().registerEvents(_eventListener, hostPlugin);
-
-			Utilities.Effects.resetCache();
+			Bukkit.getPluginManager().registerEvents(PreprocessableCommandDispatcher.getInstance(), hostPlugin);
+			Bukkit.getPluginManager().registerEvents(PermissionCache.getInstance(), hostPlugin);
+			Bukkit.getPluginManager().registerEvents(OnlinePlayerIndex.getInstance(), hostPlugin);
+			OnlinePlayerIndex.getInstance().rebuild();
+			Bukkit.getPluginManager().registerEvents(PacketInterceptor.getInstance(), hostPlugin);
 		}
 	}
 
@@ -372,6 +414,14 @@ public final class Utilities {
 			}
 
 			_eventListener = null;
+
+			HandlerList.unregisterAll(PreprocessableCommandDispatcher.getInstance());
+			HandlerList.unregisterAll(PermissionCache.getInstance());
+			PermissionCache.getInstance().invalidateAll();
+			HandlerList.unregisterAll(OnlinePlayerIndex.getInstance());
+			OnlinePlayerIndex.getInstance().clear();
+			HandlerList.unregisterAll(PacketInterceptor.getInstance());
+			PacketInterceptor.getInstance().cleanup();
 		}
 	}
 
@@ -438,7 +488,7 @@ public final class Utilities {
 
 			@Override
 			public boolean apply(Object sender) {
-				return sender instanceof CommandSender && _type.isInstance(sender.getClass());
+				return sender instanceof CommandSender && (CommandSenderType.getTypeMask(sender.getClass()) & _type.getMask()) != 0;
 			}
 
 		}	
@@ -741,15 +791,11 @@ public final class Utilities {
 		 * @return A mutable list of all of the unique identifiers of all of the players currently online on the {@code Bukkit} server.
 		 * @see Server#getOnlinePlayers()
 		 * @see Player#getUniqueId()
+		 * @see OnlinePlayerIndex#getPlayerIDs()
 		 */
 		public static List<UUID> getOnlinePlayerIDs(){
-			ArrayList<UUID> players = new ArrayList<UUID>();
-
-			for(Player player : Bukkit.getServer().getOnlinePlayers()){
-				players.add(player.getUniqueId());
-			}
-
-			return players;
+			// Copied from the immutable snapshot, which callers that do not modify the list should use directly
+			return Lists.newArrayList(OnlinePlayerIndex.getInstance().getPlayerIDs());
 		}
 
 		/**
@@ -784,9 +830,10 @@ public final class Utilities {
 		 * @return A mutable list of all of the usernames of all of the players currently online on the {@code Bukkit} server.
 		 * @see Server#getOnlinePlayers()
 		 * @see Player#getName()
+		 * @see OnlinePlayerIndex#getPlayerNames()
 		 */
 		public static List<String> getOnlinePlayerNames(){
-			return getPlayerNames(Bukkit.getOnlinePlayers());
+			return Lists.newArrayList(OnlinePlayerIndex.getInstance().getPlayerNames());
 		}
 	}
 
@@ -1109,35 +1156,13 @@ public final class Utilities {
 
 			private static final Map<String, Particle> NAME_MAP = new TreeMap<String, Particle>(String.CASE_INSENSITIVE_ORDER);
 			private static final double MAX_RANGE = 32; // More than 16 to give some breathing room
-			private static Constructor<?> packetPlayOutWorldParticles;
 			private final String name;
 
-			private static void loadReflectionObjects(){
-				try {
-					packetPlayOutWorldParticles = ReflectionUtilities.getConstructor(ReflectionUtilities.Minecraft.getType("PacketPlayOutWorldParticles"), String.class, float.class, float.class, float.class, float.class, float.class,
-							float.class, float.class, int.class);
-				}catch (Exception e) {
-					throw new IllegalStateException("Reflective object initialization failed.", e);
-				}
-			}
-
-			private static void flushReflectionCache(){
-				packetPlayOutWorldParticles = null;
-			}
-
-			private static boolean isReflectionInitialized(){
-				return packetPlayOutWorldParticles != null;
-			}
-
 			static {
 				for (Particle p : values()){
 					NAME_MAP.put(p.name, p);
 				}
-				try{
-					loadReflectionObjects();
-				}catch(Throwable ex){
-					Bukkit.getLogger().log(Level.WARNING, "Failed to load reflection required for particle effects.", ex);
-				}
+				// Reflective handles are resolved by Effects.warmUp on an asynchronous task, or on first display
 			}
 
 			/**
@@ -1175,7 +1200,7 @@ public final class Utilities {
 			}
 
 			/**
-			 * Instantiates a new {@code PacketPlayOutWorldParticles} object using reflection.
+			 * Instantiates a new {@code PacketPlayOutWorldParticles} object using the {@linkplain PacketFactory#particle() packet factory}.
 			 *
 			 * @param center Center location of the effect.
 			 * @param offsetX Maximum distance particles can fly away from the center on the X-axis.
@@ -1189,15 +1214,7 @@ public final class Utilities {
 			private static Object instantiatePacket(String name, Location center, float offsetX, float offsetY, float offsetZ, float speed, int amount) {
 				Validate.isTrue(amount >= 1, "At least one packet must be instantiated.");
 
-				if(!isReflectionInitialized()){
-					loadReflectionObjects();
-				}
-
-				try {
-					return packetPlayOutWorldParticles.newInstance(name, (float) center.getX(), (float) center.getY(), (float) center.getZ(), offsetX, offsetY, offsetZ, speed, amount);
-				} catch (Exception e) {
-					throw new RuntimeException("Instantiation of a particle packet failed.", e);
-				}
+				return PacketFactory.particle().name(name).location(center).offset(offsetX, offsetY, offsetZ).speed(speed).amount(amount).build();
 			}
 
 			/**
@@ -1228,21 +1245,24 @@ public final class Utilities {
 			}
 
 			/**
-			 * Sends a packet through reflection to a collection of players.
-			 * @see ReflectionUtilities.CraftBukkit#sendPacket(Player, Object)
+			 * Determines if particle packets may be created. This is {@code false} only if the warm-up found that the reflective handles used to create them cannot be resolved; a pending warm-up does not prevent display, in which case the handles are resolved on first use.
+			 * @return Whether particle effects may be displayed.
 			 */
-			private static void sendPacket(Iterable<Player> players, Object packet) {
-				for (Player p : players){
-					if(p == null){
-						throw new IllegalArgumentException("No null players may be specified as packet recipients.");
-					}
+			private static boolean isDisplayable() {
+				return ReflectionWarmup.getStatus(ReflectionWarmup.Feature.PARTICLES) != ReflectionWarmup.Status.UNAVAILABLE;
+			}
 
-					ReflectionUtilities.CraftBukkit.sendPacket(p, packet);
-				}
+			/**
+			 * Sends a packet through reflection to a collection of players.
+			 * @see ReflectionUtilities.CraftBukkit#sendPacket(Collection, Object)
+			 */
+			private static void sendPacket(Collection<Player> players, Object packet) {
+				ReflectionUtilities.CraftBukkit.sendPacket(players, packet);
 			}
 
 			/**
 			 * Displays a particle effect which is only visible for players within a certain range of the centerpoint.
+			 * Nothing is displayed if the reflective handles used to display particle effects could not be resolved on this server version.
 			 *
 			 * @param center The center location of the particle effect.
 			 * @param range The range which binds all players that will receive the packet.
@@ -1262,6 +1282,9 @@ public final class Utilities {
 					Bukkit.getLogger().log(Level.WARNING, "A particle is being displayed with the range set to " + range + ", higher than the recommended maximum of " + MAX_RANGE + ", which will potentially result in inefficiency.");
 				}
 
+				if(!isDisplayable()){
+					return;
+				}
 				sendPacket(Utilities.Entities.getEntitiesInRange(center, range, Player.class), instantiatePacket(name, center, (float)offset.getX(), (float)offset.getY(), (float)offset.getZ(), speed, amount));
 			}
 
@@ -1281,6 +1304,7 @@ public final class Utilities {
 
 			/**
 			 * Displays an item break (icon crack) particle effect which is only visible for players within a certain range of the centerpoint.
+			 * Nothing is displayed if the reflective handles used to display particle effects could not be resolved on this server version.
 			 * @param center The center location of the particle effect.
 			 * @param item The item type for which this effect applies.
 			 * @param offset A vector representing the maximum distance particles can fly away from the center location on each axis (independently).
@@ -1302,6 +1326,9 @@ public final class Utilities {
 					Bukkit.getLogger().log(Level.WARNING, "A particle is being displayed with the range set to " + range + ", higher than the recommended maximum of " + MAX_RANGE + ", which will potentially result in inefficiency.");
 				}
 
+				if(!isDisplayable()){
+					return;
+				}
 				sendPacket(Utilities.Entities.getEntitiesInRange(center, range, Player.class), instantiateIconCrackPacket(item.getId(), center, (float)offset.getX(), (float)offset.getY(), (float)offset.getZ(), speed, amount));
 			}
 
@@ -1321,6 +1348,7 @@ public final class Utilities {
 
 			/**
 			 * Displays a block break (block crack) particle effect which is only visible for players within a certain range of the centerpoint.
+			 * Nothing is displayed if the reflective handles used to display particle effects could not be resolved on this server version.
 			 * @param center The center location of the particle effect.
 			 * @param data The material data (which includes type) of the represented block. This value may not be {@code null}.
 			 * @param offset A vector representing the maximum distance particles can fly away from the center location on each axis (independently).
@@ -1340,6 +1368,9 @@ public final class Utilities {
 					// throw new IllegalArgumentException("The range of particle recipients cannot exceed the maximum value of " + MAX_RANGE +", a limitation of the client.");
 					Bukkit.getLogger().log(Level.WARNING, "A particle is being displayed with the range set to " + range + ", higher than the recommended maximum of " + MAX_RANGE + ", which will potentially result in inefficiency.");
 				}
+				if(!isDisplayable()){
+					return;
+				}
 				sendPacket(Utilities.Entities.getEntitiesInRange(center, range, Player.class), instantiateBlockCrackPacket(data.getItemTypeId(), data.getData(), center, (float)offset.getX(), (float)offset.getY(), (float)offset.getZ(), amount));
 			}
 
@@ -1358,6 +1389,7 @@ public final class Utilities {
 
 			/**
 			 * Displays a block dust particle effect which is only visible for players within a certain range of the centerpoint.
+			 * Nothing is displayed if the reflective handles used to display particle effects could not be resolved on this server version.
 			 * @param center The center location of the particle effect.
 			 * @param data The material data (which includes type) of the represented block. This value may not be {@code null}.
 			 * @param offset A vector representing the maximum distance particles can fly away from the center location on each axis (independently).
@@ -1378,6 +1410,9 @@ public final class Utilities {
 					// throw new IllegalArgumentException("The range of particle recipients cannot exceed the maximum value of " + MAX_RANGE +", a limitation of the client.");
 					Bukkit.getLogger().log(Level.WARNING, "A particle is being displayed with the range set to " + range + ", higher than the recommended maximum of " + MAX_RANGE + ", which will potentially result in inefficiency.");
 				}
+				if(!isDisplayable()){
+					return;
+				}
 				sendPacket(Utilities.Entities.getEntitiesInRange(center, range, Player.class), instantiateBlockDustPacket(data.getItemTypeId(), data.getData(), center, (float)offset.getX(), (float)offset.getY(), (float)offset.getZ(), speed, amount));
 			}
 
@@ -1399,10 +1434,11 @@ public final class Utilities {
 		private Effects(){}
 
 		/**
-		 * Reset internal cache.
+		 * Resolves the reflective handles used to display particle effects.
+		 * @throws IllegalStateException If a handle cannot be resolved.
 		 */
-		static void resetCache(){
-			Particle.flushReflectionCache();
+		static void warmUp(){
+			PacketFactory.particle();
 		}
 
 		/**
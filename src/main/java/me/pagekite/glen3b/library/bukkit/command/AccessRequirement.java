@@ -0,0 +1,60 @@
+package me.pagekite.glen3b.library.bukkit.command;
+
+import org.bukkit.command.CommandSender;
+
+import com.google.common.base.Predicate;
+
+/**
+ * A flattened access check, requiring a command sender to be of one of a set of {@linkplain CommandSenderType types} and to have a permission.
+ * The sender types are compared as a bit mask cached per sender class, and permissions are checked through the {@link PermissionCache}, so applying this predicate is cheap enough to filter large sets of commands.
+ * @author Glen Husman
+ */
+public final class AccessRequirement implements Predicate<CommandSender> {
+
+	/**
+	 * An access requirement which all non-{@code null} command senders fulfill.
+	 */
+	public static final AccessRequirement NONE = new AccessRequirement(null);
+
+	private final String _permission;
+	private final int _allowedMask;
+
+	/**
+	 * Creates an access requirement.
+	 * @param permission The permission node required, or {@code null} or an empty string if no permission is required.
+	 * @param allowedSenders The allowed sender types. If none are specified, {@link CommandSenderType#ALL ALL} is assumed.
+	 */
+	public AccessRequirement(String permission, CommandSenderType... allowedSenders){
+		_permission = permission == null || permission.isEmpty() ? null : permission;
+
+		int mask = 0;
+		if(allowedSenders != null){
+			for(CommandSenderType type : allowedSenders){
+				if(type != null){
+					mask |= type.getMask();
+				}
+			}
+		}
+		_allowedMask = mask == 0 ? CommandSenderType.ALL.getMask() : mask;
+	}
+
+	/**
+	 * Gets the permission required by this access requirement.
+	 * @return The permission node, or {@code null} if no permission is required.
+	 */
+	public String getPermission(){
+		return _permission;
+	}
+
+	/**
+	 * Determines if the specified sender fulfills this access requirement.
+	 * @param sender The command sender.
+	 * @return {@code true} if and only if {@code sender} is non-{@code null}, of an allowed type and has the required permission.
+	 */
+	@Override
+	public boolean apply(CommandSender sender) {
+		return sender != null && (CommandSenderType.getTypeMask(sender.getClass()) & _allowedMask) != 0
+				&& (_permission == null || PermissionCache.getInstance().hasPermission(sender, _permission));
+	}
+
+}
@@ -0,0 +1,211 @@
+package me.pagekite.glen3b.library.bukkit.command;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+
+import org.apache.commons.lang.Validate;
+
+/**
+ * A case-insensitive prefix tree mapping aliases to values. Keys are case folded character by character, so lookups do not create lowercased copies of the key.
+ * Exact lookups take time proportional to the length of the key, and prefix enumeration visits only the matching subtree, adding matches directly to the collection supplied by the caller in case-insensitive alphabetical order.
+ * <p>
+ * This class is not synchronized. An instance which is no longer modified after it has been safely published may be read from any number of threads.
+ * @param <V> The type of value mapped to by aliases.
+ * @author Glen Husman
+ */
+public final class AliasTrie<V> {
+
+	private static final char[] NO_KEYS = new char[0];
+	private static final Node[] NO_CHILDREN = new Node[0];
+
+	private static final class Node{
+		// Children are sorted by case folded character to allow binary search
+		private char[] _keys = NO_KEYS;
+		private Node[] _children = NO_CHILDREN;
+		private int _childCount = 0;
+
+		// Only set if an alias ends at this node
+		private String _alias;
+		private Object _value;
+
+		public Node getChild(char key){
+			int index = Arrays.binarySearch(_keys, 0, _childCount, key);
+			return index < 0 ? null : _children[index];
+		}
+
+		public Node getOrCreateChild(char key){
+			int index = Arrays.binarySearch(_keys, 0, _childCount, key);
+			if(index >= 0){
+				return _children[index];
+			}
+
+			index = -(index + 1);
+			if(_childCount == _keys.length){
+				int capacity = _keys.length == 0 ? 2 : _keys.length * 2;
+				_keys = Arrays.copyOf(_keys, capacity);
+				_children = Arrays.copyOf(_children, capacity);
+			}
+
+			System.arraycopy(_keys, index, _keys, index + 1, _childCount - index);
+			System.arraycopy(_children, index, _children, index + 1, _childCount - index);
+
+			Node child = new Node();
+			_keys[index] = key;
+			_children[index] = child;
+			_childCount++;
+			return child;
+		}
+	}
+
+	private final Node _root = new Node();
+	private int _size = 0;
+
+	/**
+	 * Folds the case of a single character, in the same manner as {@link String#equalsIgnoreCase(String)}.
+	 */
+	private static char fold(char c){
+		return Character.toLowerCase(Character.toUpperCase(c));
+	}
+
+	/**
+	 * Finds the node at the end of the specified key, or {@code null} if no key with that prefix exists.
+	 */
+	private Node find(String key){
+		Node node = _root;
+		for(int i = 0; i < key.length() && node != null; i++){
+			node = node.getChild(fold(key.charAt(i)));
+		}
+		return node;
+	}
+
+	/**
+	 * Maps the specified alias to the specified value. If a case-insensitively equal alias is already mapped, its value is replaced, but the originally added case of the alias is retained.
+	 * @param alias The alias.
+	 * @param value The value to map the alias to.
+	 * @return The value previously mapped to the alias, or {@code null} if there was none.
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(String alias, V value){
+		Validate.notNull(alias, "The alias must not be null.");
+		Validate.notNull(value, "The value must not be null.");
+
+		Node node = _root;
+		for(int i = 0; i < alias.length(); i++){
+			node = node.getOrCreateChild(fold(alias.charAt(i)));
+		}
+
+		Object previous = node._value;
+		if(previous == null){
+			node._alias = alias;
+			_size++;
+		}
+		node._value = value;
+		return (V)previous;
+	}
+
+	/**
+	 * Gets the value mapped to the specified alias, ignoring case.
+	 * @param alias The alias to look up.
+	 * @return The value mapped to the alias, or {@code null} if the alias is not mapped.
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(String alias){
+		if(alias == null){
+			return null;
+		}
+
+		Node node = find(alias);
+		return node == null ? null : (V)node._value;
+	}
+
+	/**
+	 * Determines if the specified alias is mapped, ignoring case.
+	 * @param alias The alias to look up.
+	 * @return {@code true} if and only if a value is mapped to the alias.
+	 */
+	public boolean containsKey(String alias){
+		return get(alias) != null;
+	}
+
+	/**
+	 * Gets the number of aliases in this trie.
+	 * @return The number of mapped aliases.
+	 */
+	public int size(){
+		return _size;
+	}
+
+	/**
+	 * Adds every alias which starts with the specified prefix, ignoring case, to the specified collection.
+	 * @param prefix The prefix to match. A {@code null} or empty prefix matches every alias.
+	 * @param destination The collection to add aliases to, in the case they were added to this trie.
+	 * @return {@code destination}.
+	 */
+	public <C extends Collection<? super String>> C getAliasesWithPrefix(String prefix, C destination){
+		Validate.notNull(destination, "The destination collection must not be null.");
+
+		Node node = prefix == null ? _root : find(prefix);
+		if(node != null){
+			collect(node, destination, true);
+		}
+		return destination;
+	}
+
+	/**
+	 * Adds the value of every alias which starts with the specified prefix, ignoring case, to the specified collection. A value mapped by more than one matching alias is added once per alias unless the collection rejects duplicates.
+	 * @param prefix The prefix to match. A {@code null} or empty prefix matches every alias.
+	 * @param destination The collection to add values to.
+	 * @return {@code destination}.
+	 */
+	public <C extends Collection<? super V>> C getValuesWithPrefix(String prefix, C destination){
+		Validate.notNull(destination, "The destination collection must not be null.");
+
+		Node node = prefix == null ? _root : find(prefix);
+		if(node != null){
+			collect(node, destination, false);
+		}
+		return destination;
+	}
+
+	/**
+	 * Gets the value of the shortest alias which starts with the specified prefix, ignoring case. If several matching aliases are equally short, the first in case-insensitive alphabetical order is chosen.
+	 * Nodes are visited in order of depth, so only aliases up to the length of the shortest match are examined.
+	 * @param prefix The prefix to match. A {@code null} or empty prefix matches every alias.
+	 * @return The value of the shortest matching alias, or {@code null} if no alias starts with the prefix.
+	 */
+	@SuppressWarnings("unchecked")
+	public V getShortestWithPrefix(String prefix){
+		Node start = prefix == null ? _root : find(prefix);
+		if(start == null){
+			return null;
+		}
+
+		Deque<Node> level = new ArrayDeque<Node>();
+		level.add(start);
+		while(!level.isEmpty()){
+			Node node = level.poll();
+			if(node._value != null){
+				return (V)node._value;
+			}
+
+			for(int i = 0; i < node._childCount; i++){
+				level.add(node._children[i]);
+			}
+		}
+		return null;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static void collect(Node node, Collection destination, boolean aliases){
+		if(node._value != null){
+			destination.add(aliases ? node._alias : node._value);
+		}
+
+		for(int i = 0; i < node._childCount; i++){
+			collect(node._children[i], destination, aliases);
+		}
+	}
+
+}
@@ -1,11 +1,15 @@
 package me.pagekite.glen3b.library.bukkit.command;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
 
 import me.pagekite.glen3b.library.bukkit.GBukkitCorePlugin;
 import me.pagekite.glen3b.library.bukkit.Utilities;
+import me.pagekite.glen3b.library.bukkit.command.annotation.RateLimit;
 import me.pagekite.glen3b.library.bukkit.datastore.Message;
 
 import org.apache.commons.lang.Validate;
@@ -21,6 +25,7 @@ import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 
 /**
  * Represents a base command that can execute subcommands.
@@ -30,8 +35,80 @@ public final class BaseCommand implements TabExecutor, PreprocessedCommandHandle
 
 	private String _helpPageHeader = "Help (page %d):";
 	private ArrayList<SubCommand> _subCommands;
+	private AliasTrie<SubCommandEntry> _aliasIndex;
 	
 	private GBukkitCorePlugin _plugin;
+	private final HelpPageCache _helpPages = new HelpPageCache();
+	
+	/**
+	 * Holds a subcommand along with the state used to execute it, which is resolved once rather than on each execution.
+	 */
+	private static final class SubCommandEntry{
+		private final SubCommand _command;
+		private final int _rateLimitPermits;
+		private final double _rateLimitSeconds;
+		// The command this subcommand was last executed through, which is almost always the only one
+		private volatile CommandBinding _binding;
+		
+		public SubCommandEntry(SubCommand command){
+			_command = command;
+			
+			RateLimit limit = command.getClass().getAnnotation(RateLimit.class);
+			_rateLimitPermits = limit == null ? 0 : limit.permits();
+			_rateLimitSeconds = limit == null ? 0 : limit.seconds();
+		}
+		
+		public SubCommand getCommand(){
+			return _command;
+		}
+		
+		/**
+		 * Gets the state of this subcommand when executed through the specified command.
+		 * @param commandName The name of the command, which is the same instance on each invocation, so the check is cheap.
+		 */
+		public CommandBinding getBinding(String commandName){
+			CommandBinding binding = _binding;
+			if(binding == null || (binding.getCommandName() != commandName && !binding.getCommandName().equals(commandName))){
+				binding = new CommandBinding(commandName, _command.getName(), RateLimiter.forCommand(commandName + " " + _command.getName(), _rateLimitPermits, _rateLimitSeconds));
+				_binding = binding;
+			}
+			return binding;
+		}
+	}
+	
+	/**
+	 * Holds the state of a subcommand when executed through a specific command.
+	 */
+	private static final class CommandBinding{
+		private final String _commandName;
+		private final String _metricsName;
+		private final RateLimiter _rateLimiter;
+		// Resolved on first use, so that commands are not listed in the metrics unless they are invoked while metrics are enabled
+		private volatile CommandMetrics.Stats _stats;
+		
+		public CommandBinding(String commandName, String subcommandName, RateLimiter rateLimiter){
+			_commandName = commandName;
+			_metricsName = "/" + commandName + " " + subcommandName;
+			_rateLimiter = rateLimiter;
+		}
+		
+		public String getCommandName(){
+			return _commandName;
+		}
+		
+		public RateLimiter getRateLimiter(){
+			return _rateLimiter;
+		}
+		
+		public CommandMetrics.Stats getStats(){
+			CommandMetrics.Stats stats = _stats;
+			if(stats == null){
+				stats = CommandMetrics.getStats(_metricsName);
+				_stats = stats;
+			}
+			return stats;
+		}
+	}
 	
 	/**
 	 * Create a base command. For this class to execute a command, {@code register(getCommand("commandNameInPluginYaml"))} must be called.
@@ -47,22 +124,23 @@ public final class BaseCommand implements TabExecutor, PreprocessedCommandHandle
 		}
 		
 		_subCommands = Lists.newArrayList(commands);
-	}
-	
-	private List<SubCommand> getCommands(String label, boolean getExact){
-		ArrayList<SubCommand> retVal = new ArrayList<SubCommand>();
 		
+		_aliasIndex = new AliasTrie<SubCommandEntry>();
 		for(SubCommand cmd : _subCommands){
+			SubCommandEntry entry = new SubCommandEntry(cmd);
 			for(String alias : cmd.getAliases()){
-				if(alias != null && (label.equalsIgnoreCase(alias) || (!getExact && alias.toLowerCase().startsWith(label.toLowerCase())))){
-					retVal.add(cmd);
-					//Break out of the alias loop
-					break;
+				if(alias == null){
+					continue;
+				}
+				
+				SubCommandEntry previous = _aliasIndex.put(alias, entry);
+				if(previous != null && previous != entry){
+					// The first subcommand to claim an alias keeps it
+					_aliasIndex.put(alias, previous);
+					Bukkit.getLogger().log(Level.WARNING, "The alias '" + alias + "' of the subcommand " + cmd.getName() + " conflicts with the subcommand " + previous.getCommand().getName() + ", and will not be registered.");
 				}
 			}
 		}
-		
-		return retVal;
 	}
 	
 	private FileConfiguration getConfig(){
@@ -74,6 +152,76 @@ public final class BaseCommand implements TabExecutor, PreprocessedCommandHandle
 		return _plugin.getConfig();
 	}
 	
+	/**
+	 * Sends a help page, rendering it only if it is not cached.
+	 * @param page The zero-based page number.
+	 */
+	private void sendHelp(CommandSender sender, String label, int page){
+		List<Object> key = Arrays.<Object>asList(label, Integer.valueOf(page));
+		String message = _helpPages.get(key);
+		if(message == null){
+			int perPage = getConfig().getInt("commandsPerPage");
+			List<String> usages = Lists.newArrayListWithCapacity(_subCommands.size());
+			List<String> descriptions = Lists.newArrayListWithCapacity(_subCommands.size());
+			for(SubCommand cmd : _subCommands){
+				usages.add(cmd.getUsage());
+				descriptions.add(cmd.getDescription());
+			}
+
+			message = HelpPageCache.render(ChatColor.AQUA + _helpPageHeader, label, page, perPage, usages, descriptions);
+			if(HelpPageCache.isListed(page, perPage, _subCommands.size())){
+				_helpPages.put(key, message);
+			}
+		}
+
+		sender.sendMessage(message);
+	}
+	
+	/**
+	 * Executes a subcommand if the sender may access it, recording its metrics.
+	 * @param commandName The name of the base command, under which metrics are recorded.
+	 */
+	private void execute(CommandSender sender, String commandName, SubCommandEntry entry, String[] args){
+		SubCommand cmd = entry.getCommand();
+		CommandBinding binding = entry.getBinding(commandName);
+		if(!binding.getRateLimiter().tryAcquire(sender)){
+			sender.sendMessage(Message.get("cmdRateLimited"));
+			return;
+		}
+
+		CommandMetrics.Stats stats = null;
+		long start = 0;
+		if(CommandMetrics.isEnabled()){
+			stats = binding.getStats();
+			stats.recordInvocation(args[0]);
+			start = System.nanoTime();
+		}
+
+		boolean accessible = cmd.hasAccess(sender);
+		if(stats != null){
+			long checked = System.nanoTime();
+			stats.getAccessTime().record(checked - start);
+			start = checked;
+		}
+
+		if(!accessible){
+			if(stats != null){
+				stats.recordDenied();
+			}
+			sender.sendMessage(Message.get("cmdNoPermission"));
+			return;
+		}
+
+		// Subcommands parse their own arguments, so parsing is timed as part of the handler
+		try{
+			cmd.execute(sender, args);
+		}finally{
+			if(stats != null){
+				stats.getHandlerTime().record(System.nanoTime() - start);
+			}
+		}
+	}
+	
 	/**
 	 * Get a list of subcommands executed by this BaseCommand instance.
 	 * @return A read only {@code Collection<SubCommand>} instance that can <b>not</b> be manipulated via reference to change the subcommands executed by this base command.
@@ -113,30 +261,13 @@ public final class BaseCommand implements TabExecutor, PreprocessedCommandHandle
     			page *= -1;
     		}
     		
-    		sender.sendMessage(String.format(ChatColor.AQUA + _helpPageHeader, page + 1));
-    		
-    		if(page * getConfig().getInt("commandsPerPage") > _subCommands.size()){
-    			return true;
-    		}
-    		
-    		for(int i = page * getConfig().getInt("commandsPerPage"); (i < ((page + 1) * getConfig().getInt("commandsPerPage")) && i < _subCommands.size()); i++){
-    			sender.sendMessage(Message.get("cmdHelpEntry").replace("%basecommand%", label).replace("%usage%", _subCommands.get(i).getUsage()).replace("%desc%", _subCommands.get(i).getDescription()));
-    		}
-    		
-    		if(((page + 1) * getConfig().getInt("commandsPerPage")) < _subCommands.size()){
-    			sender.sendMessage(Message.get("cmdHelpSeeMore").replace("%basecommand%", label).replace("%page%", Integer.valueOf(page + 2).toString()));
-    		}
-    		
+    		sendHelp(sender, label, page);
     		return true;
     	}else if(args.length >= 1){
-    		List<SubCommand> cmd = getCommands(args[0], true);
+    		SubCommandEntry cmd = _aliasIndex.get(args[0]);
     		
-    		if(cmd.size() == 1){
-    			if(!cmd.get(0).hasAccess(sender)){
-    				sender.sendMessage(Message.get("cmdNoPermission"));
-    			}else{
-    				cmd.get(0).execute(sender, args);
-    			}
+    		if(cmd != null){
+    			execute(sender, command.getName(), cmd, args);
     			return true;
     		}
     		
@@ -155,17 +286,23 @@ public final class BaseCommand implements TabExecutor, PreprocessedCommandHandle
 	public List<String> onTabComplete(CommandSender sender, Command command,
 			String label, String[] args) {
 		List<String> completions = new ArrayList<String>();
-		SubCommand argOne = args.length < 1 ? null : (getCommands(args[0], true).size() == 1 ? getCommands(args[0], true).get(0) : null);
-		if(args.length == 0 || args.length == 1){
-			List<SubCommand> cmd = args.length == 0 ? _subCommands : getCommands(args[0], false);
-			
-			for(SubCommand cmds : cmd){
+		if(args.length == 0 || args.length == 1 && args[0].isEmpty()){
+			for(SubCommand cmds : _subCommands){
 				completions.add(cmds.getName());
 			}
-		}
-		else if(args.length >= 1 && argOne != null){
-			//Pass tab completion on to subclass
-			completions = argOne.tabComplete(sender, args);
+		}else if(args.length == 1){
+			// A subcommand matched by several of its aliases is only completed once
+			Set<SubCommandEntry> cmd = _aliasIndex.getValuesWithPrefix(args[0], Sets.<SubCommandEntry>newLinkedHashSet());
+			
+			for(SubCommandEntry cmds : cmd){
+				completions.add(cmds.getCommand().getName());
+			}
+		}else{
+			SubCommandEntry argOne = _aliasIndex.get(args[0]);
+			if(argOne != null){
+				//Pass tab completion on to subclass
+				completions = argOne.getCommand().tabComplete(sender, args);
+			}
 		}
 		
 		if(completions == null){
@@ -184,6 +321,11 @@ public final class BaseCommand implements TabExecutor, PreprocessedCommandHandle
 		
 		cmd.setExecutor(this);
 		cmd.setTabCompleter(this);
+		
+		// Resolve the rate limiters of the subcommands now, rather than on their first execution
+		for(SubCommandEntry entry : _aliasIndex.getValuesWithPrefix("", Sets.<SubCommandEntry>newLinkedHashSet())){
+			entry.getBinding(cmd.getName());
+		}
 	}
 
 	@Override
@@ -212,30 +354,13 @@ public final class BaseCommand implements TabExecutor, PreprocessedCommandHandle
     			page *= -1;
     		}
     		
-    		sender.sendMessage(String.format(ChatColor.AQUA + _helpPageHeader, page + 1));
-    		
-    		if(page * getConfig().getInt("commandsPerPage") > _subCommands.size()){
-    			return true;
-    		}
-    		
-    		for(int i = page * getConfig().getInt("commandsPerPage"); (i < ((page + 1) * getConfig().getInt("commandsPerPage")) && i < _subCommands.size()); i++){
-    			sender.sendMessage(Message.get("cmdHelpEntry").replace("%basecommand%", label).replace("%usage%", _subCommands.get(i).getUsage()).replace("%desc%", _subCommands.get(i).getDescription()));
-    		}
-    		
-    		if(((page + 1) * getConfig().getInt("commandsPerPage")) < _subCommands.size()){
-    			sender.sendMessage(Message.get("cmdHelpSeeMore").replace("%basecommand%", label).replace("%page%", Integer.valueOf(page + 2).toString()));
-    		}
-    		
+    		sendHelp(sender, label, page);
     		return true;
     	}else if(args.length >= 1){
-    		List<SubCommand> cmd = getCommands(args[0], true);
+    		SubCommandEntry cmd = _aliasIndex.get(args[0]);
     		
-    		if(cmd.size() == 1){
-    			if(!cmd.get(0).hasAccess(sender)){
-    				sender.sendMessage(Message.get("cmdNoPermission"));
-    			}else{
-    				cmd.get(0).execute(sender, args);
-    			}
+    		if(cmd != null){
+    			execute(sender, command.getAliases().get(0), cmd, args);
     			return true;
     		}
     		
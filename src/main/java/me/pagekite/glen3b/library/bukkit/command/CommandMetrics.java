@@ -0,0 +1,253 @@
+package me.pagekite.glen3b.library.bukkit.command;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.Validate;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Records the throughput and latency of commands dispatched by {@link BaseCommand}, {@link me.pagekite.glen3b.library.bukkit.command.annotation.ParentCommand ParentCommand} and {@link PreprocessableCommand}.
+ * Statistics are kept per command, named by its label and the primary aliases of its subcommands (for instance, {@code /arena edit add}), and count the invocations of each alias.
+ * Parsing, access checks and the execution of handlers are timed separately.
+ * @author Glen Husman
+ */
+public final class CommandMetrics {
+
+	private CommandMetrics(){
+		// No instance should be created
+	}
+
+	/**
+	 * The statistics of a single command.
+	 */
+	public static final class Stats{
+		private final String _name;
+		private final StripedCounter _invocations = new StripedCounter();
+		private final StripedCounter _denied = new StripedCounter();
+		private final ConcurrentMap<String, StripedCounter> _aliases = new ConcurrentHashMap<String, StripedCounter>();
+		private final LatencyHistogram _parseTime = new LatencyHistogram();
+		private final LatencyHistogram _accessTime = new LatencyHistogram();
+		private final LatencyHistogram _handlerTime = new LatencyHistogram();
+
+		private Stats(String name){
+			_name = name;
+		}
+
+		/**
+		 * Gets the name of the command.
+		 * @return The command name.
+		 */
+		public String getName(){
+			return _name;
+		}
+
+		/**
+		 * Records an invocation of the command.
+		 * @param alias The alias through which the command was invoked.
+		 */
+		public void recordInvocation(String alias){
+			_invocations.increment();
+
+			String key = alias.toLowerCase();
+			StripedCounter counter = _aliases.get(key);
+			if(counter == null){
+				StripedCounter newCounter = new StripedCounter();
+				counter = _aliases.putIfAbsent(key, newCounter);
+				if(counter == null){
+					counter = newCounter;
+				}
+			}
+			counter.increment();
+		}
+
+		/**
+		 * Records an invocation of the command by a sender who was denied access.
+		 */
+		public void recordDenied(){
+			_denied.increment();
+		}
+
+		/**
+		 * Gets the number of invocations of the command, including those which were denied.
+		 * @return The number of invocations.
+		 */
+		public long getInvocations(){
+			return _invocations.get();
+		}
+
+		/**
+		 * Gets the number of invocations of the command by senders who were denied access.
+		 * @return The number of denied invocations.
+		 */
+		public long getDenied(){
+			return _denied.get();
+		}
+
+		/**
+		 * Gets the number of invocations through each alias of the command.
+		 * @return A snapshot of the invocation count of each alias, keyed by lowercase alias.
+		 */
+		public Map<String, Long> getAliasInvocations(){
+			Map<String, Long> invocations = new TreeMap<String, Long>();
+			for(Map.Entry<String, StripedCounter> alias : _aliases.entrySet()){
+				invocations.put(alias.getKey(), Long.valueOf(alias.getValue().get()));
+			}
+			return invocations;
+		}
+
+		/**
+		 * Gets the time spent parsing the arguments of the command.
+		 * @return The histogram of parse times.
+		 */
+		public LatencyHistogram getParseTime(){
+			return _parseTime;
+		}
+
+		/**
+		 * Gets the time spent checking whether senders may access the command.
+		 * @return The histogram of access check times.
+		 */
+		public LatencyHistogram getAccessTime(){
+			return _accessTime;
+		}
+
+		/**
+		 * Gets the time spent executing the handler of the command.
+		 * @return The histogram of handler execution times.
+		 */
+		public LatencyHistogram getHandlerTime(){
+			return _handlerTime;
+		}
+
+		private void reset(){
+			_invocations.reset();
+			_denied.reset();
+			_aliases.clear();
+			_parseTime.reset();
+			_accessTime.reset();
+			_handlerTime.reset();
+		}
+	}
+
+	private static final ConcurrentMap<String, Stats> _stats = new ConcurrentHashMap<String, Stats>();
+	private static volatile boolean _enabled = true;
+	private static volatile long _since = System.currentTimeMillis();
+
+	/**
+	 * Determines if command metrics are recorded. Command frameworks should not time commands while this is {@code false}.
+	 * @return Whether metrics are recorded.
+	 */
+	public static boolean isEnabled(){
+		return _enabled;
+	}
+
+	/**
+	 * Sets whether command metrics are recorded. Metrics which have already been recorded are kept.
+	 * @param enabled Whether metrics are recorded.
+	 */
+	public static void setEnabled(boolean enabled){
+		_enabled = enabled;
+	}
+
+	/**
+	 * Gets the statistics of a command, creating them if they do not exist.
+	 * @param name The name of the command.
+	 * @return The statistics of the command.
+	 */
+	public static Stats getStats(String name){
+		Validate.notNull(name, "The command name must not be null.");
+
+		Stats stats = _stats.get(name);
+		if(stats == null){
+			Stats newStats = new Stats(name);
+			stats = _stats.putIfAbsent(name, newStats);
+			if(stats == null){
+				stats = newStats;
+			}
+		}
+		return stats;
+	}
+
+	/**
+	 * Gets the statistics of all commands which have been recorded.
+	 * @return The statistics of all commands, sorted by name.
+	 */
+	public static List<Stats> getAllStats(){
+		List<String> names = Lists.newArrayList(_stats.keySet());
+		Collections.sort(names);
+
+		List<Stats> stats = Lists.newArrayListWithCapacity(names.size());
+		for(String name : names){
+			stats.add(_stats.get(name));
+		}
+		return stats;
+	}
+
+	/**
+	 * Discards all recorded metrics.
+	 */
+	public static void reset(){
+		for(Stats stats : _stats.values()){
+			stats.reset();
+		}
+		_since = System.currentTimeMillis();
+	}
+
+	/**
+	 * Formats a duration for display.
+	 * @param nanos The duration, in nanoseconds.
+	 * @return The duration in milliseconds, with three decimal places.
+	 */
+	public static String formatNanos(long nanos){
+		return String.format("%.3fms", nanos / (double)TimeUnit.MILLISECONDS.toNanos(1));
+	}
+
+	/**
+	 * Summarizes a latency histogram for display.
+	 * @param histogram The histogram.
+	 * @return The mean, median, 99th percentile and maximum of the histogram.
+	 */
+	public static String describe(LatencyHistogram histogram){
+		return "mean " + formatNanos(histogram.getMeanNanos()) + ", p50 " + formatNanos(histogram.getPercentileNanos(50))
+				+ ", p99 " + formatNanos(histogram.getPercentileNanos(99)) + ", max " + formatNanos(histogram.getMaxNanos());
+	}
+
+	/**
+	 * Writes a plain text report of all recorded metrics.
+	 * Reports are written one at a time, so that the periodic dump and a dump requested by command do not interleave in the same file.
+	 * @param file The file to write to, which is replaced if it exists.
+	 * @throws IOException If the report could not be written.
+	 */
+	public static synchronized void dump(File file) throws IOException{
+		Validate.notNull(file, "The file must not be null.");
+
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		try{
+			String newline = System.getProperty("line.separator");
+			writer.write("Command metrics recorded from " + new Date(_since) + " to " + new Date() + newline + newline);
+			for(Stats stats : getAllStats()){
+				writer.write(stats.getName() + newline);
+				writer.write("  invocations: " + stats.getInvocations() + " (" + stats.getDenied() + " denied), by alias: " + stats.getAliasInvocations() + newline);
+				writer.write("  parse:   " + describe(stats.getParseTime()) + newline);
+				writer.write("  access:  " + describe(stats.getAccessTime()) + newline);
+				writer.write("  handler: " + describe(stats.getHandlerTime()) + newline);
+			}
+		}finally{
+			writer.close();
+		}
+	}
+
+}
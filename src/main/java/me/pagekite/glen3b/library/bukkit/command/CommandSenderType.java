@@ -1,5 +1,7 @@
 package me.pagekite.glen3b.library.bukkit.command;
 
+import java.util.concurrent.ConcurrentMap;
+
 import org.bukkit.command.BlockCommandSender;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.ConsoleCommandSender;
@@ -7,6 +9,8 @@ import org.bukkit.command.RemoteConsoleCommandSender;
 import org.bukkit.entity.Player;
 import org.bukkit.entity.minecart.CommandMinecart;
 
+import com.google.common.collect.MapMaker;
+
 /**
  * Represents a specific type of command sender.
  * @see CommandSender
@@ -44,6 +48,10 @@ public enum CommandSenderType {
 	 */
 	ALL(CommandSender.class);
 	
+	// Senders are instances of few classes, so the type mask of each class is only computed once
+	// Weak keys keep the classes of disabled plugins from being retained
+	private static final ConcurrentMap<Class<?>, Integer> TYPE_MASKS = new MapMaker().weakKeys().makeMap();
+
 	private Class<? extends CommandSender> _clazz;
 	
 	private CommandSenderType(Class<? extends CommandSender> clazz){
@@ -80,4 +88,36 @@ public enum CommandSenderType {
 		return getSenderType().isAssignableFrom(sender.getClass());
 	}
 	
+	/**
+	 * Gets the bit which represents this type within a {@linkplain #getTypeMask(Class) type mask}.
+	 * @return The bit at the position of the {@linkplain #ordinal() ordinal} of this type.
+	 */
+	public int getMask(){
+		return 1 << ordinal();
+	}
+
+	/**
+	 * Gets the types of command sender which the specified {@code Class} falls under, as a bit mask of their {@linkplain #getMask() bits}. The result is cached per class, so this method does not check assignability on each call.
+	 * @param type The class of {@code CommandSender} to check.
+	 * @return The type mask of {@code type}, or {@code 0} if it is {@code null}.
+	 */
+	public static int getTypeMask(Class<?> type){
+		if(type == null){
+			return 0;
+		}
+
+		Integer mask = TYPE_MASKS.get(type);
+		if(mask == null){
+			int bits = 0;
+			for(CommandSenderType t : values()){
+				if(t.isInstance(type)){
+					bits |= t.getMask();
+				}
+			}
+			mask = Integer.valueOf(bits);
+			TYPE_MASKS.put(type, mask);
+		}
+		return mask.intValue();
+	}
+
 }
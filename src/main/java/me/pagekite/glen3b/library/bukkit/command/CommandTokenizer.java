@@ -0,0 +1,227 @@
+package me.pagekite.glen3b.library.bukkit.command;
+
+import java.util.Arrays;
+
+import org.apache.commons.lang.Validate;
+
+/**
+ * Splits command messages into space separated arguments, recording the position of each argument within the original message instead of copying it.
+ * <p>
+ * An argument beginning with a single or double quote extends to the matching closing quote, and may therefore contain spaces. A quote without a matching closing quote is treated as an ordinary character, as are quotes which do not begin an argument, so apostrophes are unaffected. A backslash causes the character following it to be treated literally, including spaces and quotes.
+ * <p>
+ * Argument strings are only created when requested, and the offsets of each argument allow trailing arguments to be sliced directly from the original message with {@link #getRemainder(int)}.
+ * A tokenizer may be reused for any number of messages, in which case it does not allocate once its internal arrays have grown to fit the longest message. This class is not thread safe.
+ * @author Glen Husman
+ */
+public final class CommandTokenizer {
+
+	private static final byte QUOTED = 1;
+	private static final byte ESCAPED = 2;
+	private static final String[] NO_TOKENS = new String[0];
+
+	private String _input = "";
+	private int[] _starts = new int[8];
+	private int[] _ends = new int[8];
+	private byte[] _flags = new byte[8];
+	private int _count = 0;
+
+	/**
+	 * Creates a tokenizer which has not tokenized any message.
+	 */
+	public CommandTokenizer(){
+		// Nothing to do
+	}
+
+	/**
+	 * Tokenizes the specified message, discarding the results of any previous call.
+	 * @param input The message to tokenize.
+	 * @return This tokenizer.
+	 */
+	public CommandTokenizer tokenize(String input){
+		return tokenize(input, 0);
+	}
+
+	/**
+	 * Tokenizes the specified message, starting at the specified offset and discarding the results of any previous call.
+	 * @param input The message to tokenize.
+	 * @param offset The index of the first character of {@code input} to tokenize.
+	 * @return This tokenizer.
+	 */
+	public CommandTokenizer tokenize(String input, int offset){
+		Validate.notNull(input, "The input must not be null.");
+		Validate.isTrue(offset >= 0 && offset <= input.length(), "The offset is out of the bounds of the input.");
+
+		_input = input;
+		_count = 0;
+
+		int length = input.length();
+		int i = offset;
+		while(true){
+			while(i < length && input.charAt(i) == ' '){
+				i++;
+			}
+
+			if(i >= length){
+				break;
+			}
+
+			int start = i;
+			byte flags = 0;
+			char c = input.charAt(i);
+			if(c == '"' || c == '\''){
+				int close = findClosingQuote(input, i + 1, c);
+				if(close >= 0){
+					flags |= QUOTED;
+					i = close + 1;
+				}
+			}
+
+			while(i < length && (c = input.charAt(i)) != ' '){
+				if(c == '\\' && i + 1 < length){
+					flags |= ESCAPED;
+					i += 2;
+				}else{
+					i++;
+				}
+			}
+
+			add(start, i, flags);
+		}
+
+		return this;
+	}
+
+	private static int findClosingQuote(String input, int from, char quote){
+		for(int i = from; i < input.length(); i++){
+			char c = input.charAt(i);
+			if(c == '\\'){
+				i++;
+			}else if(c == quote){
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	private void add(int start, int end, byte flags){
+		if(_count == _starts.length){
+			_starts = Arrays.copyOf(_starts, _count * 2);
+			_ends = Arrays.copyOf(_ends, _count * 2);
+			_flags = Arrays.copyOf(_flags, _count * 2);
+		}
+
+		_starts[_count] = start;
+		_ends[_count] = end;
+		_flags[_count] = flags;
+		_count++;
+	}
+
+	private void checkIndex(int index){
+		if(index < 0 || index >= _count){
+			throw new IndexOutOfBoundsException("Token index " + index + " is out of bounds, there are " + _count + " tokens.");
+		}
+	}
+
+	/**
+	 * Gets the message that was last tokenized.
+	 * @return The original message.
+	 */
+	public String getInput(){
+		return _input;
+	}
+
+	/**
+	 * Gets the number of tokens in the message.
+	 * @return The number of tokens.
+	 */
+	public int size(){
+		return _count;
+	}
+
+	/**
+	 * Gets the index within the original message of the first character of a token, including any opening quote.
+	 * @param index The index of the token.
+	 * @return The start offset of the token.
+	 */
+	public int getStart(int index){
+		checkIndex(index);
+		return _starts[index];
+	}
+
+	/**
+	 * Gets the index within the original message following the last character of a token, including any closing quote.
+	 * @param index The index of the token.
+	 * @return The end offset of the token.
+	 */
+	public int getEnd(int index){
+		checkIndex(index);
+		return _ends[index];
+	}
+
+	/**
+	 * Gets the value of a token, with quotes and escape characters removed.
+	 * @param index The index of the token.
+	 * @return The token.
+	 */
+	public String getToken(int index){
+		checkIndex(index);
+
+		int start = _starts[index];
+		int end = _ends[index];
+		if(_flags[index] == 0){
+			return _input.substring(start, end);
+		}
+
+		StringBuilder token = new StringBuilder(end - start);
+		char quote = 0;
+		if((_flags[index] & QUOTED) != 0){
+			quote = _input.charAt(start++);
+		}
+
+		for(int i = start; i < end; i++){
+			char c = _input.charAt(i);
+			if(c == '\\' && i + 1 < end){
+				token.append(_input.charAt(++i));
+			}else if(quote != 0 && c == quote){
+				quote = 0;
+			}else{
+				token.append(c);
+			}
+		}
+
+		return token.toString();
+	}
+
+	/**
+	 * Gets the original text of the message from the start of the specified token to the end of the last token, as it was typed.
+	 * This is intended for trailing arguments which may contain spaces.
+	 * @param index The index of the first token to include.
+	 * @return The remainder of the message.
+	 */
+	public String getRemainder(int index){
+		checkIndex(index);
+		return _input.substring(_starts[index], _ends[_count - 1]);
+	}
+
+	/**
+	 * Gets the values of all tokens starting at the specified index.
+	 * @param from The index of the first token to include. This may be equal to the number of tokens, in which case an empty array is returned.
+	 * @return A new array of the token values, unless it is empty.
+	 * @see #getToken(int)
+	 */
+	public String[] toArray(int from){
+		Validate.isTrue(from >= 0 && from <= _count, "The index is out of bounds.");
+
+		if(from == _count){
+			return NO_TOKENS;
+		}
+
+		String[] tokens = new String[_count - from];
+		for(int i = from; i < _count; i++){
+			tokens[i - from] = getToken(i);
+		}
+		return tokens;
+	}
+
+}
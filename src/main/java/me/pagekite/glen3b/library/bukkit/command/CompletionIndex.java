@@ -0,0 +1,207 @@
+package me.pagekite.glen3b.library.bukkit.command;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+import me.pagekite.glen3b.library.bukkit.Utilities.Effects.Particle;
+
+import org.apache.commons.lang.Validate;
+import org.bukkit.Material;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.MapMaker;
+import com.google.common.collect.Sets;
+
+/**
+ * An immutable, sorted set of tab completion candidates.
+ * Candidates are sorted in case-insensitive order, so the candidates starting with a prefix form a contiguous range which is found by binary search.
+ * Completing a token therefore takes time logarithmic in the number of candidates, plus the number of matches, instead of filtering every candidate on each keystroke.
+ * <p>
+ * Instances may be read from any number of threads.
+ * @author Glen Husman
+ */
+public final class CompletionIndex {
+
+	private static final String[] NO_CANDIDATES = new String[0];
+
+	/**
+	 * An index without any candidates.
+	 */
+	public static final CompletionIndex EMPTY = new CompletionIndex(NO_CANDIDATES);
+
+	/**
+	 * The values of booleans accepted by command methods.
+	 */
+	public static final CompletionIndex BOOLEANS = of("true", "false");
+
+	/**
+	 * Holds the index of material names, so that it is only built when first used.
+	 */
+	private static final class MaterialsHolder{
+		static final CompletionIndex INDEX;
+
+		static{
+			Material[] materials = Material.values();
+			String[] materialNames = new String[materials.length];
+			for(int i = 0; i < materials.length; i++){
+				materialNames[i] = materials[i].name().toLowerCase();
+			}
+			INDEX = of(materialNames);
+		}
+	}
+
+	/**
+	 * Holds the index of particle effect names, so that it is only built when first used.
+	 * Building it initializes {@link Particle}, which must not happen merely because another index is created.
+	 */
+	private static final class ParticlesHolder{
+		static final CompletionIndex INDEX;
+
+		static{
+			Particle[] particles = Particle.values();
+			String[] particleNames = new String[particles.length];
+			for(int i = 0; i < particles.length; i++){
+				particleNames[i] = particles[i].getName();
+			}
+			INDEX = of(particleNames);
+		}
+	}
+
+	/**
+	 * Gets the index of the names of all materials, in lowercase, building it if it has not yet been built.
+	 * @return The index of material names.
+	 */
+	public static CompletionIndex materials(){
+		return MaterialsHolder.INDEX;
+	}
+
+	/**
+	 * Gets the index of the protocol names of all particle effects, building it if it has not yet been built.
+	 * @return The index of particle effect names.
+	 */
+	public static CompletionIndex particles(){
+		return ParticlesHolder.INDEX;
+	}
+
+	// Enumeration types are held weakly, so the indices of types from disabled plugins may be collected
+	private static final Map<Class<?>, CompletionIndex> _enumIndices = new MapMaker().weakKeys().makeMap();
+
+	/**
+	 * Creates an index of the specified candidates. Candidates which are equal ignoring case are only included once.
+	 * @param candidates The candidates.
+	 * @return An index of the candidates.
+	 */
+	public static CompletionIndex of(Collection<String> candidates){
+		Validate.noNullElements(candidates, "There must not be a null tab completion candidate.");
+
+		Set<String> sorted = Sets.newTreeSet(String.CASE_INSENSITIVE_ORDER);
+		sorted.addAll(candidates);
+		return sorted.isEmpty() ? EMPTY : new CompletionIndex(sorted.toArray(new String[sorted.size()]));
+	}
+
+	/**
+	 * Creates an index of the specified candidates. Candidates which are equal ignoring case are only included once.
+	 * @param candidates The candidates.
+	 * @return An index of the candidates.
+	 */
+	public static CompletionIndex of(String... candidates){
+		Validate.notNull(candidates, "The candidates must not be null.");
+
+		return of(Arrays.asList(candidates));
+	}
+
+	/**
+	 * Gets the index of the constant names of an enumeration type, creating it if it does not exist.
+	 * @param type The enumeration type.
+	 * @return An index of the names of the constants of {@code type}.
+	 */
+	public static CompletionIndex forEnum(Class<? extends Enum<?>> type){
+		Validate.notNull(type, "The enumeration type must not be null.");
+
+		CompletionIndex index = _enumIndices.get(type);
+		if(index == null){
+			Enum<?>[] constants = type.getEnumConstants();
+			String[] names = new String[constants.length];
+			for(int i = 0; i < constants.length; i++){
+				names[i] = constants[i].name();
+			}
+			index = of(names);
+			_enumIndices.put(type, index);
+		}
+		return index;
+	}
+
+	private final String[] _candidates;
+
+	private CompletionIndex(String[] sortedCandidates){
+		_candidates = sortedCandidates;
+	}
+
+	/**
+	 * Gets the number of candidates within this index.
+	 * @return The number of candidates.
+	 */
+	public int size(){
+		return _candidates.length;
+	}
+
+	/**
+	 * Finds the position of the first candidate which starts with the specified prefix, ignoring case.
+	 * @return The position of the first candidate not ordered before {@code prefix}.
+	 */
+	private int lowerBound(String prefix){
+		int index = Arrays.binarySearch(_candidates, prefix, String.CASE_INSENSITIVE_ORDER);
+		return index < 0 ? -(index + 1) : index;
+	}
+
+	/**
+	 * Adds all candidates which start with the specified prefix, ignoring case, to a collection in case-insensitive order.
+	 * @param prefix The token typed so far. May be {@code null}, in which case all candidates match.
+	 * @param destination The collection to add matching candidates to.
+	 * @return {@code destination}.
+	 */
+	public <C extends Collection<? super String>> C complete(String prefix, C destination){
+		return complete(prefix, destination, null);
+	}
+
+	/**
+	 * Adds all candidates which start with the specified prefix, ignoring case, and which are accepted by a filter to a collection in case-insensitive order.
+	 * @param prefix The token typed so far. May be {@code null}, in which case all candidates match.
+	 * @param destination The collection to add matching candidates to.
+	 * @param filter The filter matching candidates must be accepted by, or {@code null} to add all matching candidates.
+	 * @return {@code destination}.
+	 */
+	public <C extends Collection<? super String>> C complete(String prefix, C destination, Predicate<? super String> filter){
+		Validate.notNull(destination, "The destination collection must not be null.");
+
+		if(prefix == null){
+			prefix = "";
+		}
+
+		int length = prefix.length();
+		for(int i = lowerBound(prefix); i < _candidates.length; i++){
+			String candidate = _candidates[i];
+			if(!candidate.regionMatches(true, 0, prefix, 0, length)){
+				// Candidates starting with the prefix are contiguous
+				break;
+			}
+
+			if(filter == null || filter.apply(candidate)){
+				destination.add(candidate);
+			}
+		}
+		return destination;
+	}
+
+	/**
+	 * Determines if this index contains a candidate, ignoring case.
+	 * @param candidate The candidate.
+	 * @return Whether this index contains {@code candidate}.
+	 */
+	public boolean contains(String candidate){
+		return candidate != null && Arrays.binarySearch(_candidates, candidate, String.CASE_INSENSITIVE_ORDER) >= 0;
+	}
+
+}
@@ -0,0 +1,106 @@
+package me.pagekite.glen3b.library.bukkit.command;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import me.pagekite.glen3b.library.bukkit.datastore.Message;
+
+import org.apache.commons.lang.Validate;
+
+/**
+ * Caches the rendered help pages of a command, each of which is a single multi-line message.
+ * All help page caches are invalidated together by {@link #invalidateAll()}, which GBukkitCore calls when its configuration is reloaded or a {@link me.pagekite.glen3b.library.bukkit.datastore.MessageProvider MessageProvider} is registered or unregistered.
+ * @author Glen Husman
+ */
+public final class HelpPageCache {
+
+	// Every cache compares its generation to this one before use, so invalidation does not require a list of all caches
+	private static final AtomicInteger GENERATION = new AtomicInteger();
+
+	// Labels are typed by players, so the number of cached pages is bounded
+	private static final int MAXIMUM_SIZE = 256;
+
+	private final ConcurrentMap<Object, String> _pages = new ConcurrentHashMap<Object, String>();
+	private volatile int _generation = GENERATION.get();
+
+	/**
+	 * Invalidates the help pages cached by all commands.
+	 */
+	public static void invalidateAll(){
+		GENERATION.incrementAndGet();
+	}
+
+	/**
+	 * Gets a cached help page.
+	 * @param key The key of the help page, which must identify everything that the page was rendered from other than the configuration and messages.
+	 * @return The rendered help page, or {@code null} if it is not cached.
+	 */
+	public String get(Object key){
+		int generation = GENERATION.get();
+		if(_generation != generation){
+			_pages.clear();
+			_generation = generation;
+		}
+
+		return _pages.get(key);
+	}
+
+	/**
+	 * Caches a help page.
+	 * @param key The key of the help page.
+	 * @param page The rendered help page.
+	 */
+	public void put(Object key, String page){
+		if(_pages.size() >= MAXIMUM_SIZE){
+			_pages.clear();
+		}
+
+		_pages.put(key, page);
+	}
+
+	/**
+	 * Determines if a help page lists any entries, and therefore should be cached. Pages past the last page only consist of a header.
+	 * @param page The zero-based page number.
+	 * @param perPage The number of entries per page.
+	 * @param entryCount The total number of entries.
+	 * @return Whether the page is within the range of pages listing entries.
+	 */
+	public static boolean isListed(int page, int perPage, int entryCount){
+		return (long)page * perPage < entryCount;
+	}
+
+	/**
+	 * Renders a help page as a single multi-line message, using the {@code cmdHelpEntry} and {@code cmdHelpSeeMore} messages.
+	 * @param headerFormat The format string of the header, with the one-based page number as the formatting argument.
+	 * @param label The label of the command, substituted for {@code %basecommand%}.
+	 * @param page The zero-based page number.
+	 * @param perPage The number of entries per page.
+	 * @param usages The usage of each entry.
+	 * @param descriptions The description of each entry.
+	 * @return The rendered help page.
+	 */
+	public static String render(String headerFormat, String label, int page, int perPage, List<String> usages, List<String> descriptions){
+		Validate.isTrue(usages.size() == descriptions.size(), "There must be a description for each usage.");
+
+		StringBuilder message = new StringBuilder(String.format(headerFormat, page + 1));
+		if(!isListed(page, perPage, usages.size())){
+			return message.toString();
+		}
+
+		// The label is the same for every entry
+		String entry = Message.get("cmdHelpEntry").replace("%basecommand%", label);
+		int first = page * perPage;
+		for(int i = first; i < first + perPage && i < usages.size(); i++){
+			message.append('\n').append(entry.replace("%usage%", usages.get(i)).replace("%desc%", descriptions.get(i)));
+		}
+
+		if(first + perPage < usages.size()){
+			message.append('\n').append(Message.get("cmdHelpSeeMore").replace("%basecommand%", label).replace("%page%", Integer.toString(page + 2)));
+		}
+
+		return message.toString();
+	}
+
+}
@@ -0,0 +1,135 @@
+package me.pagekite.glen3b.library.bukkit.command;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of durations, in nanoseconds, with one bucket per power of two. Like a {@link StripedCounter}, each thread records into its own stripe of buckets.
+ * Percentiles are therefore approximate, and reported as the upper bound of the bucket they fall into.
+ * @author Glen Husman
+ */
+public final class LatencyHistogram {
+
+	// Bucket 0 holds durations of zero, and bucket i the durations in [2^(i - 1), 2^i)
+	// The last bucket also holds all longer durations, beginning at about 9 minutes
+	private static final int BUCKETS = 40;
+
+	private static final int TOTAL = BUCKETS;
+	private static final int MAX = BUCKETS + 1;
+
+	// Buckets, total and maximum of each stripe, rounded up to a multiple of a cache line
+	private static final int STRIDE = (BUCKETS + 2 + 7) & ~7;
+
+	private final AtomicLongArray _values = new AtomicLongArray(StripedCounter.STRIPES * STRIDE);
+
+	/**
+	 * Records a duration.
+	 * @param nanos The duration, in nanoseconds. Negative durations are recorded as zero.
+	 */
+	public void record(long nanos){
+		if(nanos < 0){
+			nanos = 0;
+		}
+
+		int base = StripedCounter.currentStripe() * STRIDE;
+		_values.incrementAndGet(base + Math.min(64 - Long.numberOfLeadingZeros(nanos), BUCKETS - 1));
+		_values.addAndGet(base + TOTAL, nanos);
+
+		long max;
+		while((max = _values.get(base + MAX)) < nanos){
+			if(_values.compareAndSet(base + MAX, max, nanos)){
+				break;
+			}
+		}
+	}
+
+	private long[] getBuckets(){
+		long[] buckets = new long[BUCKETS];
+		for(int stripe = 0; stripe < StripedCounter.STRIPES; stripe++){
+			for(int i = 0; i < BUCKETS; i++){
+				buckets[i] += _values.get(stripe * STRIDE + i);
+			}
+		}
+		return buckets;
+	}
+
+	/**
+	 * Gets the number of recorded durations.
+	 * @return The number of durations.
+	 */
+	public long getCount(){
+		long count = 0;
+		for(long bucket : getBuckets()){
+			count += bucket;
+		}
+		return count;
+	}
+
+	/**
+	 * Gets the sum of all recorded durations.
+	 * @return The total duration, in nanoseconds.
+	 */
+	public long getTotalNanos(){
+		long total = 0;
+		for(int stripe = 0; stripe < StripedCounter.STRIPES; stripe++){
+			total += _values.get(stripe * STRIDE + TOTAL);
+		}
+		return total;
+	}
+
+	/**
+	 * Gets the longest recorded duration.
+	 * @return The maximum duration, in nanoseconds, or {@code 0} if none were recorded.
+	 */
+	public long getMaxNanos(){
+		long max = 0;
+		for(int stripe = 0; stripe < StripedCounter.STRIPES; stripe++){
+			max = Math.max(max, _values.get(stripe * STRIDE + MAX));
+		}
+		return max;
+	}
+
+	/**
+	 * Gets the mean recorded duration.
+	 * @return The mean duration, in nanoseconds, or {@code 0} if none were recorded.
+	 */
+	public long getMeanNanos(){
+		long count = getCount();
+		return count == 0 ? 0 : getTotalNanos() / count;
+	}
+
+	/**
+	 * Gets an approximate percentile of the recorded durations.
+	 * @param percentile The percentile, between {@code 0} and {@code 100}.
+	 * @return The upper bound of the bucket containing the percentile, in nanoseconds, or {@code 0} if no durations were recorded.
+	 */
+	public long getPercentileNanos(double percentile){
+		long[] buckets = getBuckets();
+		long count = 0;
+		for(long bucket : buckets){
+			count += bucket;
+		}
+		if(count == 0){
+			return 0;
+		}
+
+		long rank = Math.max((long)Math.ceil(count * percentile / 100.0), 1);
+		long seen = 0;
+		for(int i = 0; i < BUCKETS - 1; i++){
+			seen += buckets[i];
+			if(seen >= rank){
+				return i == 0 ? 0 : 1L << i;
+			}
+		}
+		return getMaxNanos();
+	}
+
+	/**
+	 * Discards all recorded durations.
+	 */
+	public void reset(){
+		for(int i = 0; i < _values.length(); i++){
+			_values.set(i, 0);
+		}
+	}
+
+}
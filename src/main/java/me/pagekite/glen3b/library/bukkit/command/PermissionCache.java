@@ -0,0 +1,152 @@
+package me.pagekite.glen3b.library.bukkit.command;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.Validate;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.event.server.PluginEnableEvent;
+import org.bukkit.permissions.Permissible;
+
+/**
+ * Caches the results of permission checks made against players, so that checking many commands for access, as done when listing help or tab completing, does not resolve each permission node repeatedly.
+ * <p>
+ * Bukkit does not signal changes to the permission attachments of a player, so cached results expire after a short, configurable lifetime.
+ * The results of a player are also discarded when they change worlds or quit, and the results of all players are discarded when a plugin is enabled or disabled.
+ * Plugins which change permissions at other times may call {@link #invalidate(Player)} to make the change visible immediately.
+ * @author Glen Husman
+ */
+public final class PermissionCache implements Listener {
+
+	private static final PermissionCache INSTANCE = new PermissionCache();
+
+	/**
+	 * Gets the permission cache instance.
+	 * @return The permission cache.
+	 */
+	public static PermissionCache getInstance(){
+		return INSTANCE;
+	}
+
+	private PermissionCache(){
+		// Singleton
+	}
+
+	/**
+	 * The permission results of one player, discarded as a whole when they expire.
+	 */
+	private static final class PlayerPermissions{
+		private final long _created;
+		private final ConcurrentMap<String, Boolean> _results = new ConcurrentHashMap<String, Boolean>();
+
+		public PlayerPermissions(long created){
+			_created = created;
+		}
+	}
+
+	private final ConcurrentMap<UUID, PlayerPermissions> _players = new ConcurrentHashMap<UUID, PlayerPermissions>();
+	private volatile long _lifetimeNanos = TimeUnit.SECONDS.toNanos(1);
+
+	/**
+	 * Sets the time for which permission results are cached.
+	 * @param lifetime The lifetime of cached results. If it is not positive, permission results are not cached.
+	 * @param unit The unit of {@code lifetime}.
+	 */
+	public void setLifetime(long lifetime, TimeUnit unit){
+		Validate.notNull(unit, "The time unit must not be null.");
+
+		_lifetimeNanos = unit.toNanos(lifetime);
+		_players.clear();
+	}
+
+	/**
+	 * Determines if the specified permissible has a permission, using the cached result if the permissible is a player.
+	 * @param permissible The permissible to check.
+	 * @param permission The permission node to check.
+	 * @return Whether {@code permissible} has the permission {@code permission}.
+	 */
+	public boolean hasPermission(Permissible permissible, String permission){
+		long lifetime = _lifetimeNanos;
+		if(!(permissible instanceof Player) || lifetime <= 0){
+			// Other senders are few, and usually have every permission anyways
+			return permissible.hasPermission(permission);
+		}
+
+		Player player = (Player)permissible;
+		long now = System.nanoTime();
+		PlayerPermissions permissions = _players.get(player.getUniqueId());
+		if(permissions == null || now - permissions._created > lifetime){
+			permissions = new PlayerPermissions(now);
+			_players.put(player.getUniqueId(), permissions);
+		}
+
+		Boolean result = permissions._results.get(permission);
+		if(result == null){
+			result = Boolean.valueOf(player.hasPermission(permission));
+			permissions._results.put(permission, result);
+		}
+		return result.booleanValue();
+	}
+
+	/**
+	 * Discards the cached permission results of a player.
+	 * @param player The player whose permissions have changed.
+	 */
+	public void invalidate(Player player){
+		Validate.notNull(player, "The player must not be null.");
+
+		_players.remove(player.getUniqueId());
+	}
+
+	/**
+	 * Discards the cached permission results of all players.
+	 */
+	public void invalidateAll(){
+		_players.clear();
+	}
+
+	/**
+	 * Discards the permission results of players who quit.
+	 * @param event The quit event.
+	 */
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onPlayerQuit(PlayerQuitEvent event){
+		_players.remove(event.getPlayer().getUniqueId());
+	}
+
+	/**
+	 * Discards the permission results of players who change worlds, as permissions may be assigned per world.
+	 * @param event The world change event.
+	 */
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onPlayerChangedWorld(PlayerChangedWorldEvent event){
+		_players.remove(event.getPlayer().getUniqueId());
+	}
+
+	/**
+	 * Discards all permission results when a plugin is enabled, as it may assign permissions.
+	 * @param event The plugin enable event.
+	 */
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onPluginEnable(PluginEnableEvent event){
+		_players.clear();
+	}
+
+	/**
+	 * Discards all permission results when a plugin is disabled, as the permissions it assigned are removed.
+	 * @param event The plugin disable event.
+	 */
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onPluginDisable(PluginDisableEvent event){
+		_players.clear();
+	}
+
+}
@@ -7,8 +7,6 @@ import javax.annotation.Nullable;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.Validate;
-import org.bukkit.Bukkit;
-import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerCommandPreprocessEvent;
@@ -17,7 +15,8 @@ import org.bukkit.plugin.Plugin;
 import com.google.common.collect.ImmutableList;
 
 /**
- * Represents a command that can be processed by the {@link PlayerCommandPreprocessEvent}, which will be registered at {@linkplain EventPriority#HIGHEST highest} priority.
+ * Represents a command that can be processed by the {@link PlayerCommandPreprocessEvent}, which will be handled at {@linkplain EventPriority#HIGHEST highest} priority.
+ * All preprocessable commands are dispatched by a single event handler owned by GBukkitCore, which looks up the command by its alias.
  * @author Glen Husman
  */
 public final class PreprocessableCommand implements Listener {
@@ -33,6 +32,19 @@ public final class PreprocessableCommand implements Listener {
 	}
 	
 	private PreprocessedCommandHandler _executor;
+	private Plugin _plugin;
+	private int _rateLimitPermits = 0;
+	private double _rateLimitSeconds = 0;
+	private volatile RateLimiter _rateLimiter;
+	private volatile CommandMetrics.Stats _stats;
+	
+	/**
+	 * Gets the plugin which registered this command.
+	 * @return The host plugin, or {@code null} if this command is not registered.
+	 */
+	public Plugin getPlugin(){
+		return _plugin;
+	}
 	
 	/**
 	 * Gets the currently registered command handler for this command.
@@ -50,6 +62,44 @@ public final class PreprocessableCommand implements Listener {
 		_executor = executor;
 	}
 	
+	/**
+	 * Sets the default limit of how often each player may execute this command. The limit may be overridden by the server owner in the {@code rateLimits} section of the GBukkitCore configuration, under the primary alias of this command.
+	 * This must be called before the command is first registered or executed.
+	 * @param permits The number of executions allowed per period. If this is not positive, executions are not limited.
+	 * @param seconds The length of the period, in seconds.
+	 * @see RateLimiter
+	 */
+	public void setRateLimit(int permits, double seconds){
+		_rateLimitPermits = permits;
+		_rateLimitSeconds = seconds;
+	}
+	
+	/**
+	 * Gets the rate limiter of this command, resolving it if it has not yet been resolved.
+	 * @return The rate limiter.
+	 */
+	RateLimiter getRateLimiter(){
+		RateLimiter limiter = _rateLimiter;
+		if(limiter == null){
+			limiter = RateLimiter.forCommand(_aliases.get(0), _rateLimitPermits, _rateLimitSeconds);
+			_rateLimiter = limiter;
+		}
+		return limiter;
+	}
+	
+	/**
+	 * Gets the metrics of this command, resolving them if they have not yet been resolved.
+	 * @return The metrics of this command.
+	 */
+	CommandMetrics.Stats getStats(){
+		CommandMetrics.Stats stats = _stats;
+		if(stats == null){
+			stats = CommandMetrics.getStats("/" + _aliases.get(0));
+			_stats = stats;
+		}
+		return stats;
+	}
+	
 	/**
 	 * Creates a preprocessor-handled command. This does <i>not</i>register the event handlers.
 	 * @param aliases The aliases of the command, not including the preceding '/' character.
@@ -61,39 +111,45 @@ public final class PreprocessableCommand implements Listener {
 			if(aliases[i] == null || StringUtils.isWhitespace(aliases[i])){
 				throw new IllegalArgumentException("Empty aliases are not allowed.");
 			}
-			builder.add(aliases[i].toLowerCase().trim());
+			String alias = aliases[i].toLowerCase().trim();
+			builder.add(alias.charAt(0) == '/' ? alias.substring(1) : alias);
 		}
 		_aliases = builder.build();
 	}
 	
 	/**
-	 * Registers this command handler to process events.
+	 * Registers this command to process events. The command is unregistered automatically when the host plugin is disabled.
 	 * @param plugin The host plugin.
 	 */
 	public void registerEvents(@Nonnull Plugin plugin){
 		Validate.notNull(plugin, "The host plugin must not be null.");
 		
-		Bukkit.getPluginManager().registerEvents(this, plugin);
+		_plugin = plugin;
+		getRateLimiter();
+		PreprocessableCommandDispatcher.getInstance().register(this);
+	}
+	
+	/**
+	 * Unregisters this command, so that it no longer processes events.
+	 */
+	public void unregisterEvents(){
+		PreprocessableCommandDispatcher.getInstance().unregister(this);
+		_plugin = null;
 	}
 	
 	/**
 	 * Checks for this command as the preprocessed command.
+	 * Registered commands are dispatched by GBukkitCore, so this method should not be called directly.
 	 * @param event The command preprocessing event.
+	 * @deprecated Use {@link #registerEvents(Plugin)} to have this command dispatched.
 	 */
-	@EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
+	@Deprecated
 	public void onPlayerCommandPreProcess(PlayerCommandPreprocessEvent event){
 		if(getExecutor() == null){
 			return;
 		}
 		
-		String[] cmdAndArgs = event.getMessage().split(" ", 2);
-		cmdAndArgs[0] = cmdAndArgs[0].toLowerCase().trim();
-		for(String alias : _aliases){
-			if(alias.equals(cmdAndArgs[0])){
-				event.setCancelled(getExecutor().onCommand(event.getPlayer(), this, alias, cmdAndArgs.length == 1 ? new String[0] : cmdAndArgs[1].split(" ")));
-				break;
-			}
-		}
+		PreprocessableCommandDispatcher.getInstance().dispatch(event, this);
 	}
 	
 }
@@ -0,0 +1,172 @@
+package me.pagekite.glen3b.library.bukkit.command;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+
+import me.pagekite.glen3b.library.bukkit.datastore.Message;
+
+import org.bukkit.Bukkit;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerCommandPreprocessEvent;
+import org.bukkit.event.server.PluginDisableEvent;
+
+/**
+ * <b>Internally used event listener class. Not for consumption by API users. This class does not have a stable API.</b>
+ * <p>
+ * Dispatches every {@link PreprocessableCommand} from a single {@link PlayerCommandPreprocessEvent} handler, registered at {@linkplain EventPriority#HIGHEST highest} priority by GBukkitCore. The command label of each message is looked up in a hash map of all registered aliases, so the cost of dispatch does not depend on the number of registered commands, and the arguments are only split when a command matches. Handlers implementing {@link TokenizedCommandHandler} receive arguments tokenized once by a reused {@link CommandTokenizer}; all other handlers receive the arguments split at each space.
+ * @author Glen Husman
+ */
+public final class PreprocessableCommandDispatcher implements Listener {
+
+	private static final PreprocessableCommandDispatcher INSTANCE = new PreprocessableCommandDispatcher();
+
+	/**
+	 * Gets the dispatcher instance.
+	 * @return The dispatcher.
+	 */
+	public static PreprocessableCommandDispatcher getInstance(){
+		return INSTANCE;
+	}
+
+	private PreprocessableCommandDispatcher(){
+		// Singleton
+	}
+
+	// Lowercased aliases, without the preceding '/' character
+	private final ConcurrentMap<String, PreprocessableCommand> _commands = new ConcurrentHashMap<String, PreprocessableCommand>();
+
+	private static final String[] NO_ARGUMENTS = new String[0];
+
+	// Events are dispatched on the main thread, so one tokenizer is reused unless a handler dispatches another command
+	private final CommandTokenizer _tokenizer = new CommandTokenizer();
+	private boolean _tokenizerInUse = false;
+	private CommandTokenizer _currentTokens = null;
+
+	/**
+	 * Gets the tokens of the command message which is currently being dispatched, the first of which is the command label.
+	 * Handlers may use this to access the message as it was typed, for instance to slice trailing arguments with {@link CommandTokenizer#getRemainder(int)}.
+	 * @return The tokens of the current command message, or {@code null} if no command is being dispatched, the handler of the command is not a {@link TokenizedCommandHandler}, or this method is not called from the main thread.
+	 */
+	public CommandTokenizer getCurrentTokens(){
+		return Bukkit.isPrimaryThread() ? _currentTokens : null;
+	}
+
+	/**
+	 * Adds all aliases of the specified command to the dispatch table. Aliases already claimed by another command are not replaced.
+	 * @param command The command to register.
+	 */
+	void register(PreprocessableCommand command){
+		for(String alias : command.getAliases()){
+			PreprocessableCommand previous = _commands.putIfAbsent(alias, command);
+			if(previous != null && previous != command){
+				Bukkit.getLogger().log(Level.WARNING, "The preprocessable command alias '" + alias + "' is already registered by another command, and will not be registered again.");
+			}
+		}
+	}
+
+	/**
+	 * Removes all aliases of the specified command from the dispatch table.
+	 * @param command The command to unregister.
+	 */
+	void unregister(PreprocessableCommand command){
+		for(String alias : command.getAliases()){
+			_commands.remove(alias, command);
+		}
+	}
+
+	/**
+	 * Dispatches a command message to the specified command, if the message invokes it.
+	 * @param event The command preprocessing event.
+	 * @param command The command which must be invoked, or {@code null} to dispatch to whichever command is registered under the label of the message.
+	 */
+	void dispatch(PlayerCommandPreprocessEvent event, PreprocessableCommand command){
+		boolean measured = CommandMetrics.isEnabled();
+		long start = measured ? System.nanoTime() : 0;
+		String message = event.getMessage();
+		int offset = message.startsWith("/") ? 1 : 0;
+		int end = message.indexOf(' ', offset);
+		if(end < 0){
+			end = message.length();
+		}
+
+		// Only the label is examined until a command matches
+		String alias = message.substring(offset, end).toLowerCase();
+		PreprocessableCommand target = command == null ? _commands.get(alias) : command.getAliases().contains(alias) ? command : null;
+		if(target == null || target.getExecutor() == null){
+			return;
+		}
+
+		if(!target.getRateLimiter().tryAcquire(event.getPlayer())){
+			event.getPlayer().sendMessage(Message.get("cmdRateLimited"));
+			event.setCancelled(true);
+			return;
+		}
+
+		CommandTokenizer tokens = null;
+		String[] args;
+		if(target.getExecutor() instanceof TokenizedCommandHandler){
+			tokens = _tokenizerInUse ? new CommandTokenizer() : _tokenizer;
+			tokens.tokenize(message, offset);
+			args = tokens.toArray(1);
+		}else{
+			args = end >= message.length() ? NO_ARGUMENTS : message.substring(end + 1).split(" ");
+		}
+
+		CommandMetrics.Stats stats = null;
+		if(measured){
+			// Splitting the arguments is the parsing done by the dispatcher
+			stats = target.getStats();
+			stats.recordInvocation(alias);
+			long parsed = System.nanoTime();
+			stats.getParseTime().record(parsed - start);
+			start = parsed;
+		}
+
+		CommandTokenizer previousTokens = _currentTokens;
+		boolean claimed = tokens == _tokenizer;
+		_currentTokens = tokens;
+		_tokenizerInUse |= claimed;
+		try{
+			event.setCancelled(target.getExecutor().onCommand(event.getPlayer(), target, alias, args));
+		}finally{
+			_currentTokens = previousTokens;
+			if(claimed){
+				_tokenizerInUse = false;
+			}
+			if(stats != null){
+				stats.getHandlerTime().record(System.nanoTime() - start);
+			}
+		}
+	}
+
+	/**
+	 * Dispatches command messages to the registered command.
+	 * @param event The command preprocessing event.
+	 */
+	@EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
+	public void onPlayerCommandPreProcess(PlayerCommandPreprocessEvent event){
+		if(!_commands.isEmpty()){
+			dispatch(event, null);
+		}
+	}
+
+	/**
+	 * Unregisters the commands of plugins which are disabled.
+	 * @param event The plugin disable event.
+	 */
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onPluginDisable(PluginDisableEvent event){
+		Iterator<Map.Entry<String, PreprocessableCommand>> iter = _commands.entrySet().iterator();
+		while(iter.hasNext()){
+			if(iter.next().getValue().getPlugin() == event.getPlugin()){
+				iter.remove();
+			}
+		}
+	}
+
+}
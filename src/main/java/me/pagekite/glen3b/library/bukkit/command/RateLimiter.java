@@ -0,0 +1,265 @@
+package me.pagekite.glen3b.library.bukkit.command;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import org.apache.commons.lang.Validate;
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.Player;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+/**
+ * Limits how often each player may execute a command, using a token bucket per player.
+ * A bucket holds up to {@code permits} tokens, one of which is taken by each execution, and is refilled by {@code permits} tokens every {@code seconds} seconds.
+ * <p>
+ * Each bucket is stored as a single {@code long}, the time at which it will be full again, in a primitive hash table keyed by player UUID.
+ * Buckets which have refilled are discarded when the table grows, so it only holds players who have recently executed the command.
+ * <p>
+ * Limiters are shared per command name, such as {@code "arena"} or {@code "arena edit add"}. The limit set by the command declaration is overridden by the {@code rateLimits} section of the GBukkitCore configuration.
+ * Players with the {@code gbukkitcore.ratelimit.bypass} permission are not limited.
+ * @author Glen Husman
+ */
+public final class RateLimiter {
+
+	/**
+	 * The permission node which exempts players from all rate limits.
+	 */
+	public static final String BYPASS_PERMISSION = "gbukkitcore.ratelimit.bypass";
+
+	private static final ConcurrentMap<String, RateLimiter> _limiters = new ConcurrentHashMap<String, RateLimiter>();
+	private static volatile Map<String, String> _overrides = ImmutableMap.of();
+
+	// Marks an unused slot of the table
+	private static final long EMPTY = Long.MIN_VALUE;
+	private static final int INITIAL_CAPACITY = 16;
+
+	/**
+	 * Gets the rate limiter of a command, creating it if it does not exist.
+	 * @param name The name of the command, which is its label followed by the aliases of its subcommands, separated by spaces.
+	 * @param permits The number of executions allowed per period if the configuration does not override the limit. If this is not positive, executions are not limited.
+	 * @param seconds The length of the period, in seconds, if the configuration does not override the limit.
+	 * @return The rate limiter of the command. If a limiter already exists for the command, it is returned with its limit unchanged.
+	 */
+	public static RateLimiter forCommand(String name, int permits, double seconds){
+		Validate.notNull(name, "The command name must not be null.");
+
+		RateLimiter limiter = _limiters.get(name);
+		if(limiter == null){
+			RateLimiter newLimiter = new RateLimiter(name, permits, seconds);
+			limiter = _limiters.putIfAbsent(name, newLimiter);
+			if(limiter == null){
+				limiter = newLimiter;
+			}
+		}
+		return limiter;
+	}
+
+	/**
+	 * Loads the limits configured by the server owner, applying them to all existing and future limiters.
+	 * Each key of the section is a command name, and each value is a limit of the form {@code <permits>/<seconds>}.
+	 * @param section The configuration section, or {@code null} if no limits are configured.
+	 */
+	public static void configure(ConfigurationSection section){
+		Map<String, String> overrides = Maps.newHashMap();
+		if(section != null){
+			for(String key : section.getKeys(false)){
+				overrides.put(key.toLowerCase(), section.getString(key));
+			}
+		}
+
+		_overrides = overrides;
+		for(RateLimiter limiter : _limiters.values()){
+			limiter.applyConfiguration();
+		}
+	}
+
+	private final String _name;
+	private final int _defaultPermits;
+	private final double _defaultSeconds;
+
+	// Nanoseconds per token, or 0 if unlimited
+	private volatile long _interval;
+	// How far the time of the bucket being full may be ahead of the current time while it still holds a token
+	private volatile long _tolerance;
+
+	// Guarded by this
+	private long[] _mostSignificant;
+	private long[] _leastSignificant;
+	private long[] _fullAt;
+	private int _size;
+
+	private RateLimiter(String name, int permits, double seconds){
+		_name = name;
+		_defaultPermits = permits;
+		_defaultSeconds = seconds;
+		allocate(INITIAL_CAPACITY);
+		applyConfiguration();
+	}
+
+	private void applyConfiguration(){
+		int permits = _defaultPermits;
+		double seconds = _defaultSeconds;
+
+		String override = _overrides.get(_name.toLowerCase());
+		if(override != null){
+			try{
+				int separator = override.indexOf('/');
+				permits = Integer.parseInt(override.substring(0, separator < 0 ? override.length() : separator).trim());
+				seconds = separator < 0 ? 1 : Double.parseDouble(override.substring(separator + 1).trim());
+			}catch(NumberFormatException except){
+				Bukkit.getLogger().log(Level.WARNING, "The configured rate limit '" + override + "' of the command " + _name + " is not of the form <permits>/<seconds>.");
+				permits = _defaultPermits;
+				seconds = _defaultSeconds;
+			}
+		}
+
+		setLimit(permits, seconds);
+	}
+
+	private synchronized void setLimit(int permits, double seconds){
+		if(permits <= 0 || seconds <= 0){
+			_interval = 0;
+			_tolerance = 0;
+			return;
+		}
+
+		long interval = Math.max((long)(seconds * TimeUnit.SECONDS.toNanos(1) / permits), 1);
+		_tolerance = interval * (permits - 1);
+		_interval = interval;
+	}
+
+	/**
+	 * Gets the name of the command limited by this limiter.
+	 * @return The command name.
+	 */
+	public String getName(){
+		return _name;
+	}
+
+	/**
+	 * Determines if this limiter limits executions.
+	 * @return {@code false} if the number of permits is not positive.
+	 */
+	public boolean isLimited(){
+		return _interval != 0;
+	}
+
+	/**
+	 * Takes a token from the bucket of the specified sender, if it is a player. Other senders are not limited.
+	 * @param sender The command sender.
+	 * @return {@code true} if the sender may execute the command, {@code false} if they have executed it too often.
+	 */
+	public boolean tryAcquire(CommandSender sender){
+		return !(sender instanceof Player) || tryAcquire((Player)sender);
+	}
+
+	/**
+	 * Takes a token from the bucket of the specified player.
+	 * @param player The player executing the command, or {@code null} if the command is not executed by a player.
+	 * @return {@code true} if the player may execute the command, {@code false} if they have executed it too often.
+	 */
+	public boolean tryAcquire(Player player){
+		if(_interval == 0 || player == null){
+			return true;
+		}
+
+		UUID id = player.getUniqueId();
+		if(acquire(id.getMostSignificantBits(), id.getLeastSignificantBits(), System.nanoTime())){
+			return true;
+		}
+
+		// Only checked for players who are over the limit
+		return PermissionCache.getInstance().hasPermission(player, BYPASS_PERMISSION);
+	}
+
+	private void allocate(int capacity){
+		_mostSignificant = new long[capacity];
+		_leastSignificant = new long[capacity];
+		_fullAt = new long[capacity];
+		Arrays.fill(_fullAt, EMPTY);
+		_size = 0;
+	}
+
+	private static int hash(long mostSignificant, long leastSignificant){
+		long h = mostSignificant ^ leastSignificant;
+		return ((int)(h ^ (h >>> 32))) * 0x9E3779B9;
+	}
+
+	private int slot(long mostSignificant, long leastSignificant){
+		int mask = _fullAt.length - 1;
+		int i = hash(mostSignificant, leastSignificant) & mask;
+		while(_fullAt[i] != EMPTY && (_mostSignificant[i] != mostSignificant || _leastSignificant[i] != leastSignificant)){
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
+	private synchronized boolean acquire(long mostSignificant, long leastSignificant, long now){
+		long interval = _interval;
+		if(interval == 0){
+			return true;
+		}
+
+		int i = slot(mostSignificant, leastSignificant);
+		boolean present = _fullAt[i] != EMPTY;
+		long fullAt = present && _fullAt[i] - now > 0 ? _fullAt[i] : now;
+		if(fullAt - now > _tolerance){
+			// The bucket is empty
+			return false;
+		}
+
+		if(!present){
+			if((_size + 1) * 2 > _fullAt.length){
+				rehash(now);
+				i = slot(mostSignificant, leastSignificant);
+			}
+			_mostSignificant[i] = mostSignificant;
+			_leastSignificant[i] = leastSignificant;
+			_size++;
+		}
+		_fullAt[i] = fullAt + interval;
+		return true;
+	}
+
+	/**
+	 * Rebuilds the table without the buckets which have refilled, growing it if it is still at least half full.
+	 */
+	private void rehash(long now){
+		long[] mostSignificant = _mostSignificant;
+		long[] leastSignificant = _leastSignificant;
+		long[] fullAt = _fullAt;
+
+		int live = 0;
+		for(int i = 0; i < fullAt.length; i++){
+			if(fullAt[i] != EMPTY && fullAt[i] - now > 0){
+				live++;
+			}
+		}
+
+		int capacity = INITIAL_CAPACITY;
+		while((live + 1) * 2 > capacity){
+			capacity <<= 1;
+		}
+
+		allocate(capacity);
+		for(int i = 0; i < fullAt.length; i++){
+			if(fullAt[i] != EMPTY && fullAt[i] - now > 0){
+				int slot = slot(mostSignificant[i], leastSignificant[i]);
+				_mostSignificant[slot] = mostSignificant[i];
+				_leastSignificant[slot] = leastSignificant[i];
+				_fullAt[slot] = fullAt[i];
+				_size++;
+			}
+		}
+	}
+
+}
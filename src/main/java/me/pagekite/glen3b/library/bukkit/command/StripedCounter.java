@@ -0,0 +1,69 @@
+package me.pagekite.glen3b.library.bukkit.command;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter which is split into several stripes, selected by the incrementing thread, so that threads incrementing it concurrently do not contend on a single value.
+ * Reading the counter sums all stripes, and is therefore more expensive than incrementing it.
+ * @author Glen Husman
+ */
+public final class StripedCounter {
+
+	// Must be a power of two
+	static final int STRIPES = 8;
+
+	// Stripes are spaced a cache line apart
+	private static final int SPACING = 8;
+
+	private final AtomicLongArray _stripes = new AtomicLongArray(STRIPES * SPACING);
+
+	/**
+	 * Gets the stripe used by the current thread.
+	 * @return The index of the stripe.
+	 */
+	static int currentStripe(){
+		return (int)Thread.currentThread().getId() & (STRIPES - 1);
+	}
+
+	/**
+	 * Increments this counter.
+	 */
+	public void increment(){
+		_stripes.incrementAndGet(currentStripe() * SPACING);
+	}
+
+	/**
+	 * Adds a value to this counter.
+	 * @param value The value to add.
+	 */
+	public void add(long value){
+		_stripes.addAndGet(currentStripe() * SPACING, value);
+	}
+
+	/**
+	 * Gets the value of this counter. The value is not an atomic snapshot if the counter is being updated concurrently.
+	 * @return The sum of all stripes.
+	 */
+	public long get(){
+		long sum = 0;
+		for(int i = 0; i < STRIPES; i++){
+			sum += _stripes.get(i * SPACING);
+		}
+		return sum;
+	}
+
+	/**
+	 * Resets this counter to zero.
+	 */
+	public void reset(){
+		for(int i = 0; i < STRIPES; i++){
+			_stripes.set(i * SPACING, 0);
+		}
+	}
+
+	@Override
+	public String toString(){
+		return Long.toString(get());
+	}
+
+}
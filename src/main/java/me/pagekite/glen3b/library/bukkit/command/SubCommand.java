@@ -5,16 +5,17 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
+import me.pagekite.glen3b.library.bukkit.OnlinePlayerIndex;
+
 import org.apache.commons.lang.Validate;
-import org.bukkit.Bukkit;
 import org.bukkit.command.CommandSender;
-import org.bukkit.entity.Player;
 import org.bukkit.util.StringUtil;
 
 import com.google.common.collect.Lists;
 
 /**
  * Represents a command that can be used via a base command.
+ * A subclass may be annotated with {@link me.pagekite.glen3b.library.bukkit.command.annotation.RateLimit RateLimit} to limit how often each player may execute the subcommand.
  * TODO: TSender type argument (validates sender instance, such as players only command) and an Argument class and list.
  * @author Glen Husman
  */
@@ -125,25 +126,16 @@ public abstract class SubCommand implements PermissionConstrainedCommand {
 	/**
 	 * Gets all possible tab completion arguments, given the arguments so far and the sender of the command.
 	 * The first element of the {@code arguments} array will always be the alias of this {@code SubCommand} that is used in invokation.
-	 * The default implementation of this method returns all online players that start with the argument so far.
+	 * The default implementation of this method returns all online players that start with the argument so far, using the {@link OnlinePlayerIndex}.
 	 * @param sender The requester of tab completion options.
 	 * @param arguments The arguments passed to the command so far.
 	 * @return A list of strings which are possibilities for the tab completion argument.
 	 * @see SubCommand#getTabCompletions(String, Collection)
 	 */
 	public List<String> tabComplete(CommandSender sender, String[] arguments){
-		// Get all online players, and return them as the list
-		String argSoFar = arguments.length >= 2 ? arguments[1].trim().toLowerCase() : "";
-		Player[] onlinePlayers = Bukkit.getOnlinePlayers();
-		
-		ArrayList<String> retVal = Lists.newArrayListWithExpectedSize(onlinePlayers.length / (argSoFar == null || argSoFar.length() == 0 ? 1 : (argSoFar.length() * 2) / 3)); // TODO: Check function performance, maybe make function less "magic"?
-		for(Player playr : onlinePlayers){
-			if(argSoFar == null || StringUtil.startsWithIgnoreCase(playr.getName(), argSoFar)){
-				retVal.add(playr.getName());
-			}
-		}
-		
-		return retVal;
+		// Complete the names of online players from the sorted index
+		String argSoFar = arguments.length >= 2 ? arguments[arguments.length - 1].trim() : "";
+		return OnlinePlayerIndex.getInstance().getNames().complete(argSoFar, new ArrayList<String>());
 	}
 	
 }
@@ -0,0 +1,12 @@
+package me.pagekite.glen3b.library.bukkit.command;
+
+/**
+ * Represents a preprocessed command handler which receives its arguments as tokenized by a {@link CommandTokenizer}.
+ * Quoted arguments are passed as a single argument, quotes and escape characters are removed, and consecutive spaces do not produce empty arguments.
+ * Handlers which do not implement this interface receive the arguments split at each space, exactly as typed.
+ * Subclasses of {@link me.pagekite.glen3b.library.bukkit.command.annotation.ParentCommand ParentCommand} opt in by implementing this interface.
+ * @author Glen Husman
+ */
+public interface TokenizedCommandHandler extends PreprocessedCommandHandler {
+
+}
@@ -0,0 +1,20 @@
+package me.pagekite.glen3b.library.bukkit.command.annotation;
+
+/**
+ * Parses command arguments, written in human-readable string form, to instances of a specific type.
+ * A parser is resolved once for each parameter of a {@link CommandMethod} when the command is registered, and the same parser instance may be shared by any number of commands. Implementations must therefore be stateless, or at least safe to share.
+ * @param <T> The type of object produced by this parser.
+ * @author Glen Husman
+ * @see ArgumentParsers
+ */
+public interface ArgumentParser<T> {
+
+	/**
+	 * Parses the specified argument.
+	 * @param argument The argument in string form to parse. This value is never {@code null}, as the default values of unspecified arguments are supplied by the command.
+	 * @return {@code argument} represented as an instance of {@code T}.
+	 * @throws IllegalArgumentException If {@code argument} does not represent an instance of {@code T}.
+	 */
+	T parse(String argument) throws IllegalArgumentException;
+
+}
@@ -0,0 +1,257 @@
+package me.pagekite.glen3b.library.bukkit.command.annotation;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import me.pagekite.glen3b.library.bukkit.OfflinePlayerResolver;
+import me.pagekite.glen3b.library.bukkit.OnlinePlayerIndex;
+import me.pagekite.glen3b.library.bukkit.Utilities.Effects.Particle;
+import me.pagekite.glen3b.library.bukkit.reflection.PrimitiveType;
+
+import org.apache.commons.lang.Validate;
+import org.bukkit.Material;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.entity.Player;
+
+/**
+ * The registry of {@link ArgumentParser argument parsers} shared by all {@link ParentCommand} instances.
+ * Plugins may register parsers for their own types, which makes those types usable as parameters of {@link CommandMethod command methods}. Parsers must be registered before the commands using them are constructed, as parsers are resolved when the command is registered.
+ * <p>
+ * Parsers for strings, primitives and their wrappers, {@link Player}, {@link OfflinePlayer}, {@link Material} and {@link Particle} are registered by default. Enumeration types without a registered parser are parsed by constant name.
+ * @author Glen Husman
+ */
+public final class ArgumentParsers {
+
+	private ArgumentParsers(){
+		// No instance should be created
+	}
+
+	private static final ConcurrentMap<Class<?>, ArgumentParser<?>> _parsers = new ConcurrentHashMap<Class<?>, ArgumentParser<?>>();
+
+	private static final class EnumParser<T extends Enum<T>> implements ArgumentParser<T>{
+
+		private final Class<T> _type;
+
+		public EnumParser(Class<T> type){
+			_type = type;
+		}
+
+		@Override
+		public T parse(String argument) throws IllegalArgumentException {
+			return Enum.valueOf(_type, argument);
+		}
+
+	}
+
+	/**
+	 * Parses strings, returning the argument itself.
+	 */
+	public static final ArgumentParser<String> STRING = new ArgumentParser<String>(){
+		@Override
+		public String parse(String argument) {
+			return argument;
+		}
+	};
+
+	/**
+	 * Parses booleans. The values "true", "yes", "y" and "on" represent {@code true}, and the values "false", "no", "n" and "off" represent {@code false}, ignoring case.
+	 */
+	public static final ArgumentParser<Boolean> BOOLEAN = new ArgumentParser<Boolean>(){
+		@Override
+		public Boolean parse(String argument) {
+			String vt = argument.trim();
+
+			if(vt.equalsIgnoreCase("true") || vt.equalsIgnoreCase("yes") || vt.equalsIgnoreCase("y") || vt.equalsIgnoreCase("on")){
+				return Boolean.TRUE;
+			}else if(vt.equalsIgnoreCase("false") || vt.equalsIgnoreCase("no") || vt.equalsIgnoreCase("n") || vt.equalsIgnoreCase("off")){
+				return Boolean.FALSE;
+			}
+
+			throw new IllegalArgumentException(argument + " is not a boolean.");
+		}
+	};
+
+	/**
+	 * Parses integers.
+	 */
+	public static final ArgumentParser<Integer> INTEGER = new ArgumentParser<Integer>(){
+		@Override
+		public Integer parse(String argument) {
+			return Integer.valueOf(Integer.parseInt(argument));
+		}
+	};
+
+	/**
+	 * Parses long integers.
+	 */
+	public static final ArgumentParser<Long> LONG = new ArgumentParser<Long>(){
+		@Override
+		public Long parse(String argument) {
+			return Long.valueOf(Long.parseLong(argument));
+		}
+	};
+
+	/**
+	 * Parses short integers.
+	 */
+	public static final ArgumentParser<Short> SHORT = new ArgumentParser<Short>(){
+		@Override
+		public Short parse(String argument) {
+			return Short.valueOf(Short.parseShort(argument));
+		}
+	};
+
+	/**
+	 * Parses double-precision floating-point values.
+	 */
+	public static final ArgumentParser<Double> DOUBLE = new ArgumentParser<Double>(){
+		@Override
+		public Double parse(String argument) {
+			return Double.valueOf(Double.parseDouble(argument));
+		}
+	};
+
+	/**
+	 * Parses single-precision floating-point values.
+	 */
+	public static final ArgumentParser<Float> FLOAT = new ArgumentParser<Float>(){
+		@Override
+		public Float parse(String argument) {
+			return Float.valueOf(Float.parseFloat(argument));
+		}
+	};
+
+	/**
+	 * Parses single characters, optionally enclosed in single or double quotes.
+	 */
+	public static final ArgumentParser<Character> CHARACTER = new ArgumentParser<Character>(){
+		@Override
+		public Character parse(String argument) {
+			if(argument.length() == 1){
+				return Character.valueOf(argument.charAt(0));
+			}else if(argument.length() == 3 && ((argument.charAt(0) == '\'' && argument.charAt(2) == '\'') || (argument.charAt(0) == '"' && argument.charAt(2) == '"'))){
+				return Character.valueOf(argument.charAt(1));
+			}
+
+			throw new IllegalArgumentException("The specified argument does not represent a single character.");
+		}
+	};
+
+	/**
+	 * Parses online players by full or partial name, resolved through the {@link OnlinePlayerIndex}.
+	 */
+	public static final ArgumentParser<Player> PLAYER = new ArgumentParser<Player>(){
+		@Override
+		public Player parse(String argument) {
+			return OnlinePlayerIndex.getInstance().getPlayer(argument);
+		}
+	};
+
+	/**
+	 * Parses offline players by name, through the {@link OfflinePlayerResolver}. This parser blocks if a profile lookup is required.
+	 * {@link ParentCommand} does not call this parser for names which are not cached, but instead resolves them asynchronously before invoking the command method.
+	 */
+	public static final ArgumentParser<OfflinePlayer> OFFLINE_PLAYER = new ArgumentParser<OfflinePlayer>(){
+		@Override
+		public OfflinePlayer parse(String argument) {
+			return OfflinePlayerResolver.getInstance().resolve(argument);
+		}
+	};
+
+	/**
+	 * Parses particle effects by name.
+	 */
+	public static final ArgumentParser<Particle> PARTICLE = new ArgumentParser<Particle>(){
+		@Override
+		public Particle parse(String argument) {
+			return Particle.fromName(argument);
+		}
+	};
+
+	/**
+	 * Parses materials by name or ID. Hyphens in the argument are treated as underscores.
+	 */
+	public static final ArgumentParser<Material> MATERIAL = new ArgumentParser<Material>(){
+		@Override
+		public Material parse(String argument) {
+			Material returnValue = Material.matchMaterial(argument.trim().replace('-', '_'));
+			if(returnValue != null){
+				return returnValue;
+			}
+			throw new IllegalArgumentException("The specified argument does not represent a material.");
+		}
+	};
+
+	static{
+		_parsers.put(String.class, STRING);
+		_parsers.put(Boolean.class, BOOLEAN);
+		_parsers.put(Integer.class, INTEGER);
+		_parsers.put(Long.class, LONG);
+		_parsers.put(Short.class, SHORT);
+		_parsers.put(Double.class, DOUBLE);
+		_parsers.put(Float.class, FLOAT);
+		_parsers.put(Character.class, CHARACTER);
+		_parsers.put(Player.class, PLAYER);
+		_parsers.put(OfflinePlayer.class, OFFLINE_PLAYER);
+		_parsers.put(Particle.class, PARTICLE);
+		_parsers.put(Material.class, MATERIAL);
+	}
+
+	/**
+	 * Gets the type under which parsers for the specified type are stored. Primitive types share the parser of their wrapper type.
+	 */
+	private static Class<?> getKey(Class<?> type){
+		if(type.isPrimitive()){
+			PrimitiveType primitive = PrimitiveType.getPrimitiveType(type);
+			return primitive == null ? type : primitive.getWrapper();
+		}
+
+		return type;
+	}
+
+	/**
+	 * Registers a parser for the specified type, replacing any parser previously registered for it. A parser registered for a wrapper type is also used for the corresponding primitive type.
+	 * @param type The type of argument that is parsed.
+	 * @param parser The parser to use for arguments of the specified type.
+	 */
+	public static <T> void register(Class<T> type, ArgumentParser<? extends T> parser){
+		Validate.notNull(type, "The type must not be null.");
+		Validate.notNull(parser, "The parser must not be null.");
+
+		_parsers.put(getKey(type), parser);
+	}
+
+	/**
+	 * Removes the parser registered for the specified type. Commands which have already resolved the parser will continue to use it.
+	 * @param type The type of argument for which to remove the parser.
+	 * @return Whether a parser was registered for the specified type.
+	 */
+	public static boolean unregister(Class<?> type){
+		Validate.notNull(type, "The type must not be null.");
+
+		return _parsers.remove(getKey(type)) != null;
+	}
+
+	/**
+	 * Gets the parser for the specified type. If no parser is registered for an enumeration type, a parser of constant names is created and registered.
+	 * @param type The type of argument that is parsed.
+	 * @return The parser for the specified type, or {@code null} if arguments of the specified type cannot be parsed.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public static <T> ArgumentParser<? extends T> getParser(Class<T> type){
+		Validate.notNull(type, "The type must not be null.");
+
+		Class<?> key = getKey(type);
+		ArgumentParser<?> parser = _parsers.get(key);
+		if(parser == null && key.isEnum()){
+			ArgumentParser<?> created = new EnumParser(key.asSubclass(Enum.class));
+			parser = _parsers.putIfAbsent(key, created);
+			if(parser == null){
+				parser = created;
+			}
+		}
+
+		return (ArgumentParser<? extends T>) parser;
+	}
+
+}
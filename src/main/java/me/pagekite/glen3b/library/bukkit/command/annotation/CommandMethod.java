@@ -17,4 +17,12 @@ public @interface CommandMethod {
 	String[] aliases();
 	
 	String description();
+	
+	/**
+	 * Whether this subcommand is executed off the main server thread. Arguments are parsed and access is checked on the main thread, after which the method is invoked on a bounded pool of worker threads owned by GBukkitCore.
+	 * <p>
+	 * Asynchronous subcommands must not access the Bukkit API, apart from the scheduler. If the method returns a {@link CharSequence}, or a {@link java.util.concurrent.Future Future} whose result is a {@code CharSequence}, that message is sent to the sender on the main thread once it is available. A {@code Future} which does not complete within the {@code asyncCommandTimeoutSeconds} set in the GBukkitCore configuration is cancelled, and an error message is sent instead.
+	 * @return Whether to invoke the annotated method asynchronously.
+	 */
+	boolean async() default false;
 }
@@ -0,0 +1,342 @@
+package me.pagekite.glen3b.library.bukkit.command.annotation;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.logging.Level;
+
+import me.pagekite.glen3b.library.bukkit.command.CommandSenderType;
+
+import org.apache.commons.lang.Validate;
+import org.bukkit.Bukkit;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Describes a {@link CommandMethod command method}, as declared by its annotations.
+ * Descriptors are read from the annotations at runtime, or supplied by a {@link CommandMethodRegistry} generated at compile time.
+ * @author Glen Husman
+ */
+public final class CommandMethodDescriptor {
+
+	private final String _methodName;
+	private final String[] _aliases;
+	private final String _description;
+	private final boolean _async;
+	private final String _permission;
+	private final CommandSenderType[] _allowedSenders;
+	private final CommandParameterDescriptor[] _parameters;
+	private final Class<?>[] _parameterTypes;
+	private final String _helpMessage;
+	private final int _rateLimitPermits;
+	private final double _rateLimitSeconds;
+	private int _optionalCount = 0;
+	private boolean _continualStringAtEnd = false;
+
+	// Only known for descriptors read at runtime
+	private Method _method;
+
+	/**
+	 * Creates a command method descriptor. The declaration is validated by this constructor.
+	 * @param methodName The name of the command method.
+	 * @param aliases The aliases of the command, as specified by {@link CommandMethod#aliases()}.
+	 * @param description The description of the command, as specified by {@link CommandMethod#description()}.
+	 * @param async Whether the command is executed asynchronously, as specified by {@link CommandMethod#async()}.
+	 * @param permission The permission required to execute the command, as specified by {@link Access#permission()}. May be {@code null} or empty if no permission is required.
+	 * @param allowedSenders The senders allowed to execute the command, as specified by {@link Access#allowedSenders()}, or {@code null} if the method is not annotated with {@link Access}.
+	 * @param parameters The parameters of the method, including the first parameter, which accepts the command sender.
+	 * @throws IllegalStateException If the declaration of the command method is illegal.
+	 */
+	public CommandMethodDescriptor(String methodName, String[] aliases, String description, boolean async, String permission, CommandSenderType[] allowedSenders, CommandParameterDescriptor[] parameters){
+		this(methodName, aliases, description, async, permission, allowedSenders, parameters, 0, 0);
+	}
+
+	/**
+	 * Creates a command method descriptor. The declaration is validated by this constructor.
+	 * @param methodName The name of the command method.
+	 * @param aliases The aliases of the command, as specified by {@link CommandMethod#aliases()}.
+	 * @param description The description of the command, as specified by {@link CommandMethod#description()}.
+	 * @param async Whether the command is executed asynchronously, as specified by {@link CommandMethod#async()}.
+	 * @param permission The permission required to execute the command, as specified by {@link Access#permission()}. May be {@code null} or empty if no permission is required.
+	 * @param allowedSenders The senders allowed to execute the command, as specified by {@link Access#allowedSenders()}, or {@code null} if the method is not annotated with {@link Access}.
+	 * @param parameters The parameters of the method, including the first parameter, which accepts the command sender.
+	 * @param rateLimitPermits The number of executions allowed per player per period, as specified by {@link RateLimit#permits()}, or {@code 0} if the method is not annotated with {@link RateLimit}.
+	 * @param rateLimitSeconds The length of the rate limit period, as specified by {@link RateLimit#seconds()}.
+	 * @throws IllegalStateException If the declaration of the command method is illegal.
+	 */
+	public CommandMethodDescriptor(String methodName, String[] aliases, String description, boolean async, String permission, CommandSenderType[] allowedSenders, CommandParameterDescriptor[] parameters, int rateLimitPermits, double rateLimitSeconds){
+		Validate.notNull(methodName, "The method name must not be null.");
+		Validate.notNull(aliases, "The aliases must not be null.");
+		Validate.notNull(parameters, "The parameters must not be null.");
+
+		_methodName = methodName;
+		_aliases = aliases.clone();
+		_description = description;
+		_async = async;
+		_permission = permission == null || permission.isEmpty() ? null : permission;
+		_allowedSenders = allowedSenders == null ? null : allowedSenders.clone();
+		_parameters = parameters.clone();
+		_rateLimitPermits = rateLimitPermits;
+		_rateLimitSeconds = rateLimitSeconds;
+
+		if(_aliases.length == 0){
+			throw new IllegalStateException("There are no aliases for the command specified by " + methodName);
+		}
+
+		for(String alias : _aliases){
+			if(alias == null){ // TODO: Support one null alias, which represents the base command
+				throw new IllegalStateException("An alias for the command specified by " + methodName + " is null.");
+			}
+		}
+
+		if(_parameters.length <= 0){
+			// Does not accept a command sender
+			throw new IllegalStateException(methodName + " does not accept a legal first argument.");
+		}
+
+		if(_description == null){
+			throw new IllegalStateException(methodName + " has a null description.");
+		}
+
+		if(_allowedSenders != null && _allowedSenders.length > 1){
+			for(CommandSenderType t : _allowedSenders){
+				if(t == CommandSenderType.ALL){
+					throw new IllegalStateException("The allowed command sender types on " + methodName + " include ALL, but ALL is not the only element.");
+				}
+			}
+		}
+
+		_parameterTypes = new Class<?>[_parameters.length];
+		_parameterTypes[0] = _parameters[0].getType();
+
+		// Build help message here so we don't have to compute it on each execution
+		StringBuilder helpMessage = new StringBuilder(_aliases[0]);
+		helpMessage.append(' ');
+		boolean prevOptional = false;
+		for(int i = 1 /* Exclude CommandSender param */; i < _parameters.length; i++){
+			CommandParameterDescriptor param = _parameters[i];
+			_parameterTypes[i] = param.getType();
+
+			if(i < _parameters.length - 1 && param.acceptsSpaces()){
+				throw new IllegalStateException(methodName + " specified a continual string argument, but it is not the last parameter.");
+			}else if(param.acceptsSpaces()){
+				// If it IS the last element
+				_continualStringAtEnd = true;
+			}
+
+			if(param.acceptsSpaces() && param.getType() != String.class){
+				throw new IllegalStateException(methodName + " specified a continual string argument, but the argument in question is not a string.");
+			}
+
+			if(param.isOptional()){
+				prevOptional = true;
+				_optionalCount++;
+			}else if(prevOptional){
+				throw new IllegalStateException("Parameter of type " + param.getType().toString() + " is required, but follows an optional parameter. All parameters after an optional parameter must be optional.");
+			}
+
+			helpMessage.append(param.isOptional() ? '[' : '<');
+			helpMessage.append(param.getName());
+			if(i == _parameters.length - 1 && param.acceptsSpaces()){
+				helpMessage.append("...");
+			}
+			helpMessage.append(param.isOptional() ? ']' : '>');
+
+			if(i != _parameters.length - 1){
+				helpMessage.append(' ');
+			}
+		}
+
+		_helpMessage = helpMessage.toString();
+	}
+
+	/**
+	 * Creates a descriptor by reading the annotations of a command method.
+	 * @param method The method annotated with {@link CommandMethod}.
+	 * @return A descriptor of the method.
+	 */
+	static CommandMethodDescriptor fromMethod(Method method){
+		CommandMethod cmdAnnotation = method.getAnnotation(CommandMethod.class);
+		Access access = method.getAnnotation(Access.class);
+		RateLimit rateLimit = method.getAnnotation(RateLimit.class);
+
+		Class<?>[] types = method.getParameterTypes();
+		Annotation[][] annotations = method.getParameterAnnotations();
+		CommandParameterDescriptor[] parameters = new CommandParameterDescriptor[types.length];
+		for(int i = 0; i < types.length; i++){
+			parameters[i] = CommandParameterDescriptor.fromAnnotations(types[i], annotations[i]);
+		}
+
+		CommandMethodDescriptor descriptor = new CommandMethodDescriptor(method.getName(), cmdAnnotation.aliases(), cmdAnnotation.description(), cmdAnnotation.async(),
+				access == null ? null : access.permission(), access == null ? null : access.allowedSenders(), parameters,
+				rateLimit == null ? 0 : rateLimit.permits(), rateLimit == null ? 0 : rateLimit.seconds());
+		descriptor._method = method;
+		return descriptor;
+	}
+
+	/**
+	 * Gets the descriptors of all command methods declared by the specified class, not including those declared by its superclasses.
+	 * If a {@link CommandMethodRegistry} was generated for the class at compile time and each of its descriptors describes a command method of the class, it is used; otherwise, the methods of the class are read by reflection.
+	 * @param clazz The class declaring the command methods.
+	 * @return The descriptors of the command methods declared by the class.
+	 */
+	static List<CommandMethodDescriptor> forClass(Class<?> clazz){
+		CommandMethodRegistry registry = CommandMethodRegistry.Loader.load(clazz);
+		if(registry != null){
+			try{
+				List<CommandMethodDescriptor> descriptors = Lists.newArrayList(registry.getCommandMethods());
+				for(CommandMethodDescriptor descriptor : descriptors){
+					// Bind each descriptor now, so that a registry which does not match the class is discarded as a whole
+					Method method = descriptor.getMethod(clazz);
+					if(!method.isAnnotationPresent(CommandMethod.class)){
+						throw new IllegalStateException("The method " + method + " is not a command method.");
+					}
+					descriptor._method = method;
+				}
+				return descriptors;
+			}catch(RuntimeException except){
+				// The registry is outdated or corrupt, so the class is read by reflection instead
+				Bukkit.getLogger().log(Level.WARNING, "The generated command registry of " + clazz.getName() + " could not be used.", except);
+			}
+		}
+
+		List<CommandMethodDescriptor> descriptors = Lists.newArrayList();
+		for(Method m : clazz.getDeclaredMethods()){
+			if(m.isAnnotationPresent(CommandMethod.class)){
+				descriptors.add(fromMethod(m));
+			}
+		}
+		return descriptors;
+	}
+
+	/**
+	 * Gets the described method from the class which declares it.
+	 * @param clazz The class declaring the method.
+	 * @return The method.
+	 * @throws IllegalStateException If the method is not declared by the specified class.
+	 */
+	Method getMethod(Class<?> clazz){
+		if(_method != null){
+			return _method;
+		}
+
+		try{
+			return clazz.getDeclaredMethod(_methodName, _parameterTypes);
+		}catch(NoSuchMethodException except){
+			throw new IllegalStateException("The command method " + _methodName + " is not declared by " + clazz.getName() + ".", except);
+		}
+	}
+
+	/**
+	 * Gets the name of the command method.
+	 * @return The method name.
+	 */
+	public String getMethodName(){
+		return _methodName;
+	}
+
+	/**
+	 * Gets the aliases of the command.
+	 * @return A copy of the command aliases.
+	 */
+	public String[] getAliases(){
+		return _aliases.clone();
+	}
+
+	/**
+	 * Gets the description of the command.
+	 * @return The command description.
+	 */
+	public String getDescription(){
+		return _description;
+	}
+
+	/**
+	 * Determines if the command is executed asynchronously.
+	 * @return Whether the command is asynchronous.
+	 */
+	public boolean isAsync(){
+		return _async;
+	}
+
+	/**
+	 * Determines if the command method is annotated with {@link Access}.
+	 * @return Whether access to the command is restricted.
+	 */
+	public boolean isRestricted(){
+		return _allowedSenders != null;
+	}
+
+	/**
+	 * Gets the permission required to execute the command.
+	 * @return The permission node, or {@code null} if no permission is required.
+	 */
+	public String getPermission(){
+		return _permission;
+	}
+
+	/**
+	 * Gets the types of senders allowed to execute the command.
+	 * @return A copy of the allowed sender types, or {@code null} if access to the command is not restricted.
+	 */
+	public CommandSenderType[] getAllowedSenders(){
+		return _allowedSenders == null ? null : _allowedSenders.clone();
+	}
+
+	/**
+	 * Gets the number of executions allowed per player per rate limit period.
+	 * @return The number of permits, or {@code 0} if executions are not limited.
+	 */
+	public int getRateLimitPermits(){
+		return _rateLimitPermits;
+	}
+
+	/**
+	 * Gets the length of the rate limit period.
+	 * @return The length of the period, in seconds.
+	 */
+	public double getRateLimitSeconds(){
+		return _rateLimitSeconds;
+	}
+
+	/**
+	 * Gets the descriptors of the parameters of the command method, including the first parameter, which accepts the command sender.
+	 * @return A copy of the parameter descriptors.
+	 */
+	public CommandParameterDescriptor[] getParameters(){
+		return _parameters.clone();
+	}
+
+	/**
+	 * Gets the declared types of the parameters of the command method.
+	 * @return A copy of the parameter types.
+	 */
+	public Class<?>[] getParameterTypes(){
+		return _parameterTypes.clone();
+	}
+
+	/**
+	 * Gets the usage of the command displayed within the help menu.
+	 * @return The help message.
+	 */
+	public String getHelpMessage(){
+		return _helpMessage;
+	}
+
+	/**
+	 * Gets the number of optional parameters.
+	 * @return The number of optional parameters.
+	 */
+	public int getOptionalCount(){
+		return _optionalCount;
+	}
+
+	/**
+	 * Determines if the last parameter consumes all remaining arguments.
+	 * @return Whether the last parameter accepts a space-delimited string.
+	 */
+	public boolean hasContinualStringAtEnd(){
+		return _continualStringAtEnd;
+	}
+
+}
@@ -0,0 +1,65 @@
+package me.pagekite.glen3b.library.bukkit.command.annotation;
+
+/**
+ * Provides the descriptors of the command methods declared by a class, so that they do not have to be read by reflection at runtime.
+ * Implementations are generated at compile time by the GBukkitCore annotation processor, which runs automatically when GBukkitCore is on the compile classpath of a plugin.
+ * The registry of a class is named after its binary name, with each {@code '_'} doubled and each {@code '$'} replaced by {@code "_0"} so that distinct classes never share a registry name, followed by {@link #SUFFIX}, and must have a public no-argument constructor.
+ * @author Glen Husman
+ */
+public interface CommandMethodRegistry {
+
+	/**
+	 * The suffix appended to the name of a class to form the name of its generated registry.
+	 */
+	public static final String SUFFIX = "_CommandRegistry";
+
+	/**
+	 * Gets the descriptors of all command methods declared by the class of this registry, not including those declared by its superclasses.
+	 * @return The command method descriptors.
+	 */
+	public CommandMethodDescriptor[] getCommandMethods();
+
+	/**
+	 * Loads generated registries.
+	 */
+	public static final class Loader{
+		private Loader(){
+			// No instance should be created
+		}
+
+		/**
+		 * Gets the name of the registry generated for a class.
+		 * @param binaryName The binary name of the class.
+		 * @return The binary name of the generated registry.
+		 */
+		public static String getRegistryName(String binaryName){
+			int packageEnd = binaryName.lastIndexOf('.');
+			// Underscores are escaped first, so the mangling can be reversed and no two classes map to the same name
+			return binaryName.substring(0, packageEnd + 1) + binaryName.substring(packageEnd + 1).replace("_", "__").replace("$", "_0") + SUFFIX;
+		}
+
+		/**
+		 * Loads the registry generated for the specified class.
+		 * @param clazz The class declaring command methods.
+		 * @return The registry, or {@code null} if no registry was generated for the class.
+		 */
+		public static CommandMethodRegistry load(Class<?> clazz){
+			try{
+				Class<?> registryClass = Class.forName(getRegistryName(clazz.getName()), true, clazz.getClassLoader());
+				return registryClass.asSubclass(CommandMethodRegistry.class).newInstance();
+			}catch(ClassNotFoundException except){
+				// No registry was generated
+				return null;
+			}catch(LinkageError except){
+				return null;
+			}catch(ClassCastException except){
+				return null;
+			}catch(InstantiationException except){
+				return null;
+			}catch(IllegalAccessException except){
+				return null;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,122 @@
+package me.pagekite.glen3b.library.bukkit.command.annotation;
+
+import java.lang.annotation.Annotation;
+
+import org.apache.commons.lang.Validate;
+
+/**
+ * Describes a parameter of a {@link CommandMethod command method}, as declared by its annotations.
+ * @author Glen Husman
+ * @see CommandMethodDescriptor
+ */
+public final class CommandParameterDescriptor {
+
+	private static final String[] NO_VALUES = new String[0];
+
+	private final Class<?> _type;
+	private final String _name;
+	private final boolean _optional;
+	private final boolean _spaces;
+	private final TabCompleteMode _completionMode;
+	private final String[] _completionValues;
+
+	/**
+	 * Creates a parameter descriptor.
+	 * @param type The declared type of the parameter.
+	 * @param name The name of the parameter displayed within the help menu, as specified by {@link Argument#name()}, or {@code null} to use the default name.
+	 * @param optional Whether the parameter is {@linkplain Optional optional}.
+	 * @param spaces Whether the parameter accepts a space-delimited string, as specified by {@link Argument#spaces()}.
+	 * @param completionMode The mode of tab completion specified by {@link TabCompletion#mode()}, or {@code null} if the parameter is not annotated with {@link TabCompletion}.
+	 * @param completionValues The values to tab complete with, as specified by {@link TabCompletion#values()}. May be {@code null}.
+	 */
+	public CommandParameterDescriptor(Class<?> type, String name, boolean optional, boolean spaces, TabCompleteMode completionMode, String[] completionValues){
+		Validate.notNull(type, "The parameter type must not be null.");
+
+		_type = type;
+		_name = name == null ? "argument" : name;
+		_optional = optional;
+		_spaces = spaces;
+		_completionMode = completionMode;
+		_completionValues = completionValues == null ? NO_VALUES : completionValues.clone();
+	}
+
+	/**
+	 * Creates a parameter descriptor by reading the annotations of a parameter.
+	 * @param type The declared type of the parameter.
+	 * @param annotations The annotations of the parameter.
+	 * @return A descriptor of the parameter.
+	 */
+	static CommandParameterDescriptor fromAnnotations(Class<?> type, Annotation[] annotations){
+		String name = null;
+		boolean optional = false;
+		boolean spaces = false;
+		TabCompleteMode completionMode = null;
+		String[] completionValues = null;
+
+		for(Annotation a : annotations){
+			if(a instanceof Argument){
+				Argument annot = (Argument)a;
+				if(annot.name() != null){
+					name = annot.name();
+					spaces = annot.spaces(); // TODO: Instead of this, allow arrays of all supported types to be space delimited
+				}
+			}else if(a instanceof Optional){
+				optional = ((Optional)a).optional();
+			}else if(a instanceof TabCompletion){
+				completionMode = ((TabCompletion)a).mode();
+				completionValues = ((TabCompletion)a).values();
+			}
+		}
+
+		return new CommandParameterDescriptor(type, name, optional, spaces, completionMode, completionValues);
+	}
+
+	/**
+	 * Gets the declared type of the parameter.
+	 * @return The parameter type.
+	 */
+	public Class<?> getType(){
+		return _type;
+	}
+
+	/**
+	 * Gets the name of the parameter displayed within the help menu.
+	 * @return The parameter name.
+	 */
+	public String getName(){
+		return _name;
+	}
+
+	/**
+	 * Determines if the parameter is optional.
+	 * @return Whether the parameter is optional.
+	 */
+	public boolean isOptional(){
+		return _optional;
+	}
+
+	/**
+	 * Determines if the parameter accepts a space-delimited string.
+	 * @return Whether the parameter consumes all remaining arguments.
+	 */
+	public boolean acceptsSpaces(){
+		return _spaces;
+	}
+
+	/**
+	 * Gets the mode of tab completion declared for the parameter.
+	 * @return The tab completion mode, or {@code null} if none was declared.
+	 */
+	public TabCompleteMode getCompletionMode(){
+		return _completionMode;
+	}
+
+	/**
+	 * Gets the constant values to tab complete the parameter with.
+	 * @return A copy of the tab completion values.
+	 */
+	public String[] getCompletionValues(){
+		return _completionValues.clone();
+	}
+
+}
@@ -1,21 +1,40 @@
 package me.pagekite.glen3b.library.bukkit.command.annotation;
 
-import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Set;
-import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
 
 import me.pagekite.glen3b.library.bukkit.GBukkitCorePlugin;
+import me.pagekite.glen3b.library.bukkit.OfflinePlayerResolver;
+import me.pagekite.glen3b.library.bukkit.OnlinePlayerIndex;
 import me.pagekite.glen3b.library.bukkit.Utilities;
 import me.pagekite.glen3b.library.bukkit.Utilities.Effects.Particle;
+import me.pagekite.glen3b.library.bukkit.command.AccessRequirement;
 import me.pagekite.glen3b.library.bukkit.command.CommandInvocationContext;
+import me.pagekite.glen3b.library.bukkit.command.CommandMetrics;
 import me.pagekite.glen3b.library.bukkit.command.CommandSenderType;
+import me.pagekite.glen3b.library.bukkit.command.CommandTokenizer;
+import me.pagekite.glen3b.library.bukkit.command.CompletionIndex;
+import me.pagekite.glen3b.library.bukkit.command.HelpPageCache;
 import me.pagekite.glen3b.library.bukkit.command.PreprocessableCommand;
+import me.pagekite.glen3b.library.bukkit.command.PreprocessableCommandDispatcher;
 import me.pagekite.glen3b.library.bukkit.command.PreprocessedCommandHandler;
+import me.pagekite.glen3b.library.bukkit.command.RateLimiter;
 import me.pagekite.glen3b.library.bukkit.datastore.Message;
 import me.pagekite.glen3b.library.bukkit.reflection.PrimitiveType;
 
@@ -23,249 +42,765 @@ import org.apache.commons.lang.Validate;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
+import org.bukkit.World;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.PluginCommand;
+import org.bukkit.command.TabCompleter;
 import org.bukkit.command.TabExecutor;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
 import org.bukkit.util.StringUtil;
 
 import com.google.common.base.Predicate;
-import com.google.common.base.Predicates;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 /**
  * Represents a parent command, which can encompass ase commands.
+ * <p>
+ * By default, the arguments of a parent command are split at each space, both when it is executed by Bukkit and when it handles a {@link PreprocessableCommand}.
+ * A subclass which also implements {@link me.pagekite.glen3b.library.bukkit.command.TokenizedCommandHandler TokenizedCommandHandler} opts in to quoted arguments when it handles a {@code PreprocessableCommand}: quoted arguments are passed as a single argument, quotes and escape characters are removed, and consecutive spaces do not produce empty arguments.
+ * Bukkit splits the arguments of commands it executes itself, so arguments received through {@link #onCommand(CommandSender, Command, String, String[])} are never tokenized.
+ * </p>
  * @author Glen Husman
  */
 public abstract class ParentCommand implements TabExecutor, PreprocessedCommandHandler, SubcommandAnnotatedObject {
 
-	private Map<String, AnnotatedCommandInfo> _aliasesToCommands;
-	private List<AnnotatedCommandInfo> _commands;
+	private final CommandNode _root = new CommandNode(null, 0, null);
+	private final HelpPageCache _helpPages = new HelpPageCache();
 
-	private final class AnnotatedCommandInfo{
-		private Method _method;
-		private Predicate<CommandSender> _accessPredicate;
-		private String _helpMessage;
-		public Method getMethod(){
-			return _method;
+	/**
+	 * An entry displayed within a help page.
+	 */
+	private static interface HelpEntry{
+		public String getHelpMessage();
+
+		public String getDescription();
+
+		/**
+		 * Determines if the entry is listed to the specified sender.
+		 */
+		public boolean isAccessible(CommandSender sender);
+	}
+
+	/**
+	 * A node of the subcommand routing tree, holding the subcommands and child nodes mounted under one alias path.
+	 * Aliases are stored case folded in hash maps, so routing a command costs one lookup per level.
+	 */
+	private static final class CommandNode implements HelpEntry{
+		private final Map<String, AnnotatedCommandInfo> _commands = Maps.newHashMap();
+		private final Map<String, CommandNode> _children = Maps.newHashMap();
+		private final NavigableSet<String> _aliases = Sets.newTreeSet(String.CASE_INSENSITIVE_ORDER);
+		private final List<HelpEntry> _helpEntries = Lists.newArrayList();
+		private final String _alias;
+		private final int _depth;
+		private final String _path;
+		private String _description = "";
+
+		public CommandNode(String alias, int depth, String path){
+			_alias = alias;
+			_depth = depth;
+			_path = path;
 		}
 
-		public Predicate<CommandSender> getAccessRequirement(){
-			return _accessPredicate;
+		/**
+		 * Gets the aliases on the path from the root node to this node, separated by spaces.
+		 * @return The path of this node, or {@code null} if this is the root node.
+		 */
+		public String getPath(){
+			return _path;
 		}
 
-		public String getHelpMessage(){
-			return _helpMessage;
+		/**
+		 * Gets the number of aliases on the path from the root node to this node.
+		 */
+		public int getDepth(){
+			return _depth;
 		}
 
-		private void throwIllegalFirstArg(){
-			throw new IllegalStateException(_method.getName() + " does not accept a legal first argument.");
+		public AnnotatedCommandInfo getCommand(String alias){
+			return _commands.get(foldCase(alias));
 		}
 
+		public CommandNode getChild(String alias){
+			return _children.get(foldCase(alias));
+		}
+
+		/**
+		 * Gets the aliases of all subcommands and child nodes of this node, in case insensitive order.
+		 */
+		public NavigableSet<String> getAliases(){
+			return _aliases;
+		}
+
+		/**
+		 * Gets the subcommands and child nodes displayed within the help pages of this node, in order of registration.
+		 */
+		public List<HelpEntry> getHelpEntries(){
+			return _helpEntries;
+		}
+
+		public void addCommand(String alias, AnnotatedCommandInfo command){
+			_commands.put(foldCase(alias), command);
+			_aliases.add(alias);
+		}
+
+		public void addHelpEntry(HelpEntry entry){
+			_helpEntries.add(entry);
+		}
+
+		/**
+		 * Gets the child node mounted under the specified alias, creating it if it does not exist.
+		 * @param description The description of the child node, or {@code null} to keep its current description.
+		 */
+		public CommandNode getOrCreateChild(String alias, String description){
+			String key = foldCase(alias);
+			CommandNode child = _children.get(key);
+			if(child == null){
+				if(_commands.containsKey(key)){
+					throw new IllegalStateException("The alias '" + alias + "' is already used by a subcommand, and cannot be used by a child node.");
+				}
+
+				child = new CommandNode(alias, _depth + 1, _path == null ? alias : _path + " " + alias);
+				_children.put(key, child);
+				_aliases.add(alias);
+				_helpEntries.add(child);
+			}
+
+			if(description != null){
+				child._description = description;
+			}
+			return child;
+		}
+
+		/**
+		 * Follows the specified arguments down the tree, as long as they name child nodes.
+		 * @param args The command arguments, the first of which is an alias of a child of this node.
+		 * @param limit The maximum number of arguments to follow.
+		 * @return The deepest node reached. The argument at the index of its depth, if any, is not the alias of one of its children.
+		 */
+		public CommandNode route(String[] args, int limit){
+			CommandNode node = this;
+			while(node._depth < limit){
+				CommandNode child = node.getChild(args[node._depth]);
+				if(child == null){
+					break;
+				}
+				node = child;
+			}
+			return node;
+		}
+
+		@Override
+		public String getHelpMessage(){
+			return _alias + " ...";
+		}
+
+		@Override
 		public String getDescription(){
 			return _description;
 		}
 
-		private Class<?>[] _params;
+		@Override
+		public boolean isAccessible(CommandSender sender){
+			// Access is only restricted per subcommand
+			return true;
+		}
+	}
 
-		private String _description;
+	/**
+	 * Case folds an alias character by character, consistent with case insensitive comparison.
+	 */
+	private static String foldCase(String alias){
+		char[] folded = null;
+		for(int i = 0; i < alias.length(); i++){
+			char c = alias.charAt(i);
+			char f = Character.toLowerCase(Character.toUpperCase(c));
+			if(f != c){
+				if(folded == null){
+					folded = alias.toCharArray();
+				}
+				folded[i] = f;
+			}
+		}
+		return folded == null ? alias : new String(folded);
+	}
 
-		private int _optionalCt = 0;
-		private boolean[] _optionals; // Map _params index values to boolean indicating if optional
-		private boolean _continualStringAtEnd = false;
+	/**
+	 * A subcommand method bound to the object that declares it, prepared once at registration so that each invocation is a single call.
+	 * The method is made accessible up front, which skips the per-call access check, and the argument array template already holds the boxed default value of every parameter.
+	 * Unchecked exceptions and errors thrown by the subcommand method are rethrown as-is, while checked exceptions are wrapped in a {@link RuntimeException}.
+	 */
+	private static final class CompiledInvoker{
+		private final Object _receiver;
+		private final Method _method;
+		private final Object[] _argumentTemplate;
 
-		public AnnotatedCommandInfo(Method method){
+		public CompiledInvoker(Object receiver, Method method, Object[] argumentTemplate){
+			_receiver = receiver;
 			_method = method;
+			_argumentTemplate = argumentTemplate;
+
+			if(!method.isAccessible()){
+				method.setAccessible(true);
+			}
+		}
+
+		/**
+		 * Creates a new argument array, with each slot set to the default value of its parameter.
+		 * @return A new argument array for this method.
+		 */
+		public Object[] newArguments(){
+			return _argumentTemplate.clone();
+		}
 
-			_params = method.getParameterTypes();
-			if(_params.length <= 0){
-				// Does not accept a command sender
-				throwIllegalFirstArg();
+		/**
+		 * Invokes the method on its declaring object.
+		 * @param arguments The argument array, as created by {@link #newArguments()}.
+		 * @return The value returned by the method.
+		 */
+		public Object invoke(Object[] arguments){
+			try{
+				return _method.invoke(_receiver, arguments);
+			}catch(InvocationTargetException e){
+				// The command method itself threw the exception, hand it up to Bukkit unchanged
+				// Bukkit will log it properly and display the "An internal error occurred..." message
+				Throwable cause = e.getCause();
+				if(cause instanceof RuntimeException){
+					throw (RuntimeException)cause;
+				}else if(cause instanceof Error){
+					throw (Error)cause;
+				}
+				throw new RuntimeException("An error occured while executing the command method " + _method.toString() + ".", cause);
+			}catch(IllegalAccessException e){
+				// Cannot happen, the method was made accessible when this invoker was built
+				throw new IllegalStateException("The command method " + _method.toString() + " is not accessible.", e);
 			}
+		}
+
+		@Override
+		public String toString(){
+			return _method.toString();
+		}
+	}
+
+	/**
+	 * Sends a message to a command sender on the main thread.
+	 */
+	private static final class MessageDelivery implements Runnable{
+		private final CommandSender _sender;
+		private final String _message;
+		private final String _messageKey;
+
+		public MessageDelivery(CommandSender sender, String message, String messageKey){
+			_sender = sender;
+			_message = message;
+			_messageKey = messageKey;
+		}
+
+		@Override
+		public void run() {
+			// Messages are only looked up on the main thread
+			_sender.sendMessage(_message != null ? _message : Message.get(_messageKey));
+		}
+	}
+
+	/**
+	 * Completes the argument of a single command method parameter.
+	 */
+	private static interface ArgumentCompleter{
+		/**
+		 * @param token The argument typed so far.
+		 * @return The completions, or {@code null} to let the server complete the argument.
+		 */
+		public List<String> complete(CommandSender sender, Command command, String alias, String[] args, String token);
+	}
+
+	/**
+	 * Completes arguments from a prebuilt index.
+	 */
+	private static final class IndexCompleter implements ArgumentCompleter{
+		private final CompletionIndex _index;
+
+		public IndexCompleter(CompletionIndex index){
+			_index = index;
+		}
+
+		@Override
+		public List<String> complete(CommandSender sender, Command command, String alias, String[] args, String token) {
+			return _index.complete(token, new ArrayList<String>());
+		}
+	}
+
+	/**
+	 * Completes the names of online players the sender can see, optionally only those in the world of the sender.
+	 */
+	private static final class PlayerCompleter implements ArgumentCompleter{
+		private final boolean _sameWorld;
 
-			CommandMethod cmdAnnotation = method.getAnnotation(CommandMethod.class);
-			_description = cmdAnnotation.description();
+		public PlayerCompleter(boolean sameWorld){
+			_sameWorld = sameWorld;
+		}
 
-			if(_description == null){
-				throw new IllegalStateException(method.getName() + " has a null description.");
+		@Override
+		public List<String> complete(CommandSender sender, Command command, String alias, String[] args, String token) {
+			final OnlinePlayerIndex players = OnlinePlayerIndex.getInstance();
+			if(!(sender instanceof Player)){
+				// The sender cannot be mapped to a world, and can see all players
+				return players.getNames().complete(token, new ArrayList<String>());
 			}
 
-			if(method.isAnnotationPresent(Access.class)){
-				Access annotation = method.getAnnotation(Access.class);
-				List<Predicate<? super CommandSender>> anded = Lists.newArrayListWithExpectedSize(3);
-				anded.add(Predicates.<CommandSender>notNull());
-				if(annotation.permission() != null && !annotation.permission().isEmpty()){
-					anded.add(Utilities.Predicates.hasPermission(annotation.permission()));
+			final Player viewer = (Player)sender;
+			final World world = _sameWorld ? viewer.getWorld() : null;
+			return players.getNames().complete(token, new ArrayList<String>(), new Predicate<String>(){
+				@Override
+				public boolean apply(String name) {
+					Player player = players.getPlayerExact(name);
+					return player != null && viewer.canSee(player) && (world == null || player.getWorld() == world);
 				}
+			});
+		}
+	}
 
-				List<Predicate<? super CommandSender>> or = Lists.newArrayListWithCapacity(annotation.allowedSenders().length);
+	/**
+	 * Delegates completion to the object declaring the command method.
+	 */
+	private static final class DelegatingCompleter implements ArgumentCompleter{
+		private final TabCompleter _delegate;
 
-				Class<? extends CommandSender> superclass = CommandSender.class;
+		public DelegatingCompleter(TabCompleter delegate){
+			_delegate = delegate;
+		}
 
-				if(annotation.allowedSenders().length == 0){
-					// Assume all senders allowed
-					or.add(Utilities.Predicates.isOfSenderType(CommandSenderType.ALL));
-				}else if(annotation.allowedSenders().length == 1){
-					or.add(Utilities.Predicates.isOfSenderType(annotation.allowedSenders()[0]));
-					superclass = annotation.allowedSenders()[0].getSenderType();
-				}else{
-					for(CommandSenderType t : annotation.allowedSenders()){
-						if(t == CommandSenderType.ALL){
-							throw new IllegalStateException("The allowed command sender types on " + method.toString() + " include ALL, but ALL is not the only element.");
-						}
-						or.add(Utilities.Predicates.isOfSenderType(t));
+		@Override
+		public List<String> complete(CommandSender sender, Command command, String alias, String[] args, String token) {
+			return _delegate.onTabComplete(sender, command, alias, args);
+		}
+	}
+
+	private static final ArgumentCompleter NO_COMPLETIONS = new IndexCompleter(CompletionIndex.EMPTY);
+	private static final ArgumentCompleter PLAYERS = new PlayerCompleter(false);
+	private static final ArgumentCompleter WORLD_PLAYERS = new PlayerCompleter(true);
+
+	/**
+	 * Resolves the completer of a command method parameter, once, when the command is registered.
+	 * @return The completer, or {@code null} if the server should complete the parameter.
+	 */
+	@SuppressWarnings("unchecked")
+	private static ArgumentCompleter resolveCompleter(CommandParameterDescriptor parameter, SubcommandAnnotatedObject owner){
+		TabCompleteMode mode = parameter.getCompletionMode();
+		if(mode != null){
+			switch(mode){
+			case CONSTANT_LIST:
+				return new IndexCompleter(CompletionIndex.of(parameter.getCompletionValues()));
+			case PLAYER_LIST:
+				return PLAYERS;
+			case WORLD_PLAYER_LIST:
+				return WORLD_PLAYERS;
+			case DELEGATE_TO_METHOD:
+				// A parent command's own onTabComplete routes back to this completer, so completion is then left to the subclass override of it
+				return owner instanceof TabCompleter && !(owner instanceof ParentCommand) ? new DelegatingCompleter((TabCompleter)owner) : null;
+			}
+		}
+
+		// Complete by type when no mode is specified
+		Class<?> type = parameter.getType();
+		if(type == Player.class || type == OfflinePlayer.class){
+			return PLAYERS;
+		}else if(type == Material.class){
+			return new IndexCompleter(CompletionIndex.materials());
+		}else if(type == Particle.class){
+			return new IndexCompleter(CompletionIndex.particles());
+		}else if(type == Boolean.class || type == boolean.class){
+			return new IndexCompleter(CompletionIndex.BOOLEANS);
+		}else if(type.isEnum()){
+			return new IndexCompleter(CompletionIndex.forEnum((Class<? extends Enum<?>>)type));
+		}else if(type == String.class){
+			return null;
+		}
+		return NO_COMPLETIONS;
+	}
+
+	/**
+	 * Invokes an asynchronous command method on a worker thread, delivering its result to the sender on the main thread.
+	 */
+	private static final class AsyncInvocation implements Runnable{
+		private final GBukkitCorePlugin _host;
+		private final CommandSender _sender;
+		private final CompiledInvoker _invoker;
+		private final Object[] _arguments;
+		private final CommandMetrics.Stats _stats;
+
+		public AsyncInvocation(GBukkitCorePlugin host, CommandSender sender, CompiledInvoker invoker, Object[] arguments, CommandMetrics.Stats stats){
+			_host = host;
+			_sender = sender;
+			_invoker = invoker;
+			_arguments = arguments;
+			_stats = stats;
+		}
+
+		@Override
+		public void run() {
+			MessageDelivery delivery = null;
+			long start = _stats == null ? 0 : System.nanoTime();
+			try{
+				Object returnVal = _invoker.invoke(_arguments);
+				if(returnVal instanceof Future){
+					// Still off the main thread, so waiting is acceptable, but only for a bounded time so that a Future which never completes does not hold the worker
+					Future<?> result = (Future<?>)returnVal;
+					try{
+						returnVal = result.get(_host.getAsyncCommandTimeoutMillis(), TimeUnit.MILLISECONDS);
+					}catch(TimeoutException e){
+						result.cancel(true);
+						throw e;
 					}
 				}
 
-				anded.add(Predicates.or(or));
+				if(returnVal instanceof CharSequence){
+					delivery = new MessageDelivery(_sender, returnVal.toString(), null);
+				}
+			}catch(InterruptedException e){
+				// The worker pool is shutting down
+				Thread.currentThread().interrupt();
+				return;
+			}catch(TimeoutException e){
+				Bukkit.getLogger().log(Level.SEVERE, "The result of the asynchronous command method " + _invoker.toString() + " was not available within " + _host.getAsyncCommandTimeoutMillis() + "ms.");
+				delivery = new MessageDelivery(_sender, null, "cmdInternalError");
+			}catch(ExecutionException e){
+				Bukkit.getLogger().log(Level.SEVERE, "The result of the asynchronous command method " + _invoker.toString() + " could not be computed.", e.getCause());
+				delivery = new MessageDelivery(_sender, null, "cmdInternalError");
+			}catch(RuntimeException e){
+				Bukkit.getLogger().log(Level.SEVERE, "An error occured while executing the asynchronous command method " + _invoker.toString() + ".", e);
+				delivery = new MessageDelivery(_sender, null, "cmdInternalError");
+			}finally{
+				if(_stats != null){
+					// Includes waiting for a returned Future
+					_stats.getHandlerTime().record(System.nanoTime() - start);
+				}
+			}
 
+			if(delivery != null && _host.isEnabled()){
+				Bukkit.getScheduler().runTask(_host, delivery);
+			}
+		}
+	}
+
+	private final class AnnotatedCommandInfo implements HelpEntry{
+		private Method _method;
+		private CompiledInvoker _invoker;
+		private AccessRequirement _accessRequirement;
+		private String _helpMessage;
+		public Method getMethod(){
+			return _method;
+		}
+
+		public AccessRequirement getAccessRequirement(){
+			return _accessRequirement;
+		}
+
+		@Override
+		public boolean isAccessible(CommandSender sender){
+			return _accessRequirement.apply(sender);
+		}
+
+		/**
+		 * Gets the metrics of this subcommand when invoked through the specified command.
+		 * @param commandName The name of the command, which is the same instance on each invocation, so the lookup is cheap.
+		 */
+		public CommandMetrics.Stats getStats(String commandName){
+			CommandMetrics.Stats stats = _stats.get(commandName);
+			if(stats == null){
+				stats = CommandMetrics.getStats("/" + commandName + " " + _name);
+				_stats.put(commandName, stats);
+			}
+			return stats;
+		}
+
+		/**
+		 * Gets the rate limiter of this subcommand when invoked through the specified command.
+		 * @param commandName The name of the command, which is the same instance on each invocation, so the lookup is cheap.
+		 */
+		public RateLimiter getRateLimiter(String commandName){
+			RateLimiter limiter = _rateLimiters.get(commandName);
+			if(limiter == null){
+				limiter = RateLimiter.forCommand(commandName + " " + _name, _rateLimitPermits, _rateLimitSeconds);
+				_rateLimiters.put(commandName, limiter);
+			}
+			return limiter;
+		}
+
+		@Override
+		public String getHelpMessage(){
+			return _helpMessage;
+		}
+
+		private void throwIllegalFirstArg(){
+			throw new IllegalStateException(_method.getName() + " does not accept a legal first argument.");
+		}
+
+		@Override
+		public String getDescription(){
+			return _description;
+		}
+
+		private Class<?>[] _params;
+
+		private String _description;
+
+		private int _optionalCt = 0;
+		private boolean _continualStringAtEnd = false;
+		private boolean _takesContext;
+		private boolean _async;
+		private ArgumentParser<?>[] _parsers; // Map _params index values to the parser used for the argument
+		private boolean[] _resolvesOfflinePlayer; // Whether the argument is resolved by the OfflinePlayerResolver, which may take place asynchronously
+		private ArgumentCompleter[] _completers; // Map _params index values to the completer of the argument, or null to let the server complete it
+		private String _name; // The path of the node followed by the primary alias
+		private ConcurrentMap<String, CommandMetrics.Stats> _stats = new ConcurrentHashMap<String, CommandMetrics.Stats>(4); // Keyed by the name of the command this is a subcommand of
+		private ConcurrentMap<String, RateLimiter> _rateLimiters = new ConcurrentHashMap<String, RateLimiter>(4); // Keyed by the name of the command this is a subcommand of
+		private int _rateLimitPermits;
+		private double _rateLimitSeconds;
+
+		public AnnotatedCommandInfo(CommandNode node, SubcommandAnnotatedObject owner, Method method, CommandMethodDescriptor descriptor){
+			_method = method;
+			_name = node.getPath() == null ? descriptor.getAliases()[0] : node.getPath() + " " + descriptor.getAliases()[0];
+
+			_params = descriptor.getParameterTypes();
+			_description = descriptor.getDescription();
+			_async = descriptor.isAsync();
+			_helpMessage = descriptor.getHelpMessage();
+			_optionalCt = descriptor.getOptionalCount();
+			_continualStringAtEnd = descriptor.hasContinualStringAtEnd();
+			_rateLimitPermits = descriptor.getRateLimitPermits();
+			_rateLimitSeconds = descriptor.getRateLimitSeconds();
+
+			if(descriptor.isRestricted()){
+				CommandSenderType[] allowedSenders = descriptor.getAllowedSenders();
+				Class<? extends CommandSender> superclass = allowedSenders.length == 1 ? allowedSenders[0].getSenderType() : CommandSender.class;
 
 				if(_params[0] != superclass && _params[0] != CommandSender.class && !CommandInvocationContext.class.isAssignableFrom(_params[0])){
 					// The appropriate instance cannot be passed in to this method
 					throwIllegalFirstArg();
 				}
-				_accessPredicate = Predicates.and(anded);
+
+				// An empty array of allowed senders allows all senders
+				_accessRequirement = new AccessRequirement(descriptor.getPermission(), allowedSenders);
 			}else{
-				_accessPredicate = Predicates.notNull();
+				_accessRequirement = AccessRequirement.NONE;
 			}
 
-			// Build help message here so we don't have to compute it on each execution
-			StringBuilder helpMessage = new StringBuilder(cmdAnnotation.aliases()[0]);
-			helpMessage.append(' ');
-			Annotation[][] paramsAnnotations = method.getParameterAnnotations();
-			boolean prevOptional = false;
-			_optionals = new boolean[_params.length];
-			_optionals[0] = false;
+			_parsers = new ArgumentParser<?>[_params.length];
+			_completers = new ArgumentCompleter[_params.length];
+			_resolvesOfflinePlayer = new boolean[_params.length];
+			CommandParameterDescriptor[] parameters = descriptor.getParameters();
 			for(int i = 1 /* Exclude CommandSender param */; i < _params.length; i++){
-				Annotation[] paramAnnot = paramsAnnotations[i];
-				String alias = "argument";
-				boolean optional = false;
-				if(!getSupportedParameterTypes().contains(_params[i]) && !_params[i].isEnum()){
-					throw new IllegalStateException(_params[i].toString() + " is not a supported parameter type.");
+				_parsers[i] = resolveParser(_params[i]);
+				_completers[i] = resolveCompleter(parameters[i], owner);
+				_resolvesOfflinePlayer[i] = _parsers[i] == ArgumentParsers.OFFLINE_PLAYER;
+			}
+
+			// Compile the invoker once, so execution does not have to look up defaults or check access per call
+			Object[] argumentTemplate = new Object[_params.length];
+			for(int i = 1; i < _params.length; i++){
+				argumentTemplate[i] = getDefaultParameterValues().get(_params[i]);
+			}
+			_invoker = new CompiledInvoker(owner, method, argumentTemplate);
+			_takesContext = _params[0].isAssignableFrom(CommandInvocationContext.class);
+		}
+
+		/**
+		 * Tab completes an argument of the command method.
+		 * @param args The command arguments, the last of which is being completed.
+		 * @param depth The depth of the node of the subcommand, which is the index of the subcommand alias within {@code args}.
+		 * @return The completions, or {@code null} to let the server complete the argument.
+		 */
+		public List<String> tabComplete(CommandSender sender, Command command, String alias, String[] args, int depth){
+			int parameter = args.length - 1 - depth;
+			if(parameter >= _params.length){
+				if(!_continualStringAtEnd){
+					return new ArrayList<String>(0);
 				}
+				// Every word of a continual string is completed as the last parameter
+				parameter = _params.length - 1;
+			}
 
-				boolean continualStrArg = false;
+			ArgumentCompleter completer = _completers[parameter];
+			return completer == null ? null : completer.complete(sender, command, alias, args, args[args.length - 1]);
+		}
 
-				for(Annotation a : paramAnnot){
-					if(a instanceof Argument){
-						Argument annot = (Argument)a;
-						if(annot.name() != null){
-							alias = annot.name();
-							continualStrArg = annot.spaces(); // TODO: Instead of this, allow arrays of all supported types to be space delimited
+		/**
+		 * Executes the command method.
+		 * @param tokens The tokens of the original command message, if available, in which case the token at index {@code i + 1 + tokenOffset} corresponds to {@code args[i]}.
+		 * @param tokenOffset The number of tokens preceding the subcommand alias, not counting the command label.
+		 * @param stats The metrics to record into, or {@code null} if metrics are disabled.
+		 */
+		private void execute(CommandSender sender, Object arg0, String[] args, CommandTokenizer tokens, int tokenOffset, CommandMetrics.Stats stats){
+			// Assume predicate has been fulfilled
+			if((args.length <= _params.length || _continualStringAtEnd) && args.length >= _params.length - _optionalCt){
+				long start = stats == null ? 0 : System.nanoTime();
+				// Slots for unspecified (optional) arguments already hold their default values
+				Object[] methodArgs = _invoker.newArguments();
+				methodArgs[0] = arg0;
+				int lastSpecified = Math.min(_params.length, args.length);
+				boolean unresolved = false;
+				for(int i = 1; i < lastSpecified; i++){
+					if(_continualStringAtEnd && i == _params.length - 1){
+						methodArgs[i] = tokens != null ? tokens.getRemainder(i + 1 + tokenOffset) : join(args, i);
+					}else if(_resolvesOfflinePlayer[i]){
+						// Names which are not cached are resolved off the main thread before invoking the method
+						methodArgs[i] = OfflinePlayerResolver.getInstance().getCached(args[i]);
+						unresolved |= methodArgs[i] == null;
+					}else{
+						try{
+							methodArgs[i] = _parsers[i].parse(args[i]);
+						}catch(IllegalArgumentException except){
+							// Error parsing argument
+							Bukkit.getLogger().log(Level.FINE, "Couldn't parse an argument.", except);
+							sender.sendMessage(Message.get("cmdInvalidArg"));
+							if(stats != null){
+								stats.getParseTime().record(System.nanoTime() - start);
+							}
+							return;
 						}
-					}else if(a instanceof Optional){
-						optional = ((Optional)a).optional();
 					}
 				}
 
-				_optionals[i] = optional;
-
-				if(i < _params.length - 1 && continualStrArg){
-					throw new IllegalStateException(getMethod().toString() + " specified a continual string argument, but it is not the last parameter.");
-				}else if(continualStrArg){
-					// If it IS the last element
-					_continualStringAtEnd = true;
+				if(stats != null){
+					stats.getParseTime().record(System.nanoTime() - start);
 				}
 
-				if(continualStrArg && _params[i] != String.class){
-					throw new IllegalStateException(getMethod().toString() + " specified a continual string argument, but the argument in question is not a string.");
+				if(unresolved){
+					resolveOfflinePlayers(sender, methodArgs, args, lastSpecified, stats);
+				}else{
+					invoke(sender, methodArgs, stats);
 				}
+			}else{
+				sender.sendMessage(Message.get("cmdNotEnoughArgs"));
+			}
+		}
 
-				if(optional){
-					prevOptional = true;
-					_optionalCt++;
-				}else if(prevOptional){
-					throw new IllegalStateException("Parameter of type " + _params[i].toString() + " is required, but follows an optional parameter. All parameters after an optional parameter must be optional.");
+		/**
+		 * Resolves the offline player arguments which were not cached, invoking the command method on the main thread once they have been resolved.
+		 * @param lastSpecified The number of method arguments which were specified by the sender.
+		 */
+		private void resolveOfflinePlayers(final CommandSender sender, final Object[] methodArgs, String[] args, int lastSpecified, final CommandMetrics.Stats stats){
+			final List<Integer> indices = Lists.newArrayList();
+			List<String> names = Lists.newArrayList();
+			for(int i = 1; i < lastSpecified; i++){
+				if(_resolvesOfflinePlayer[i] && methodArgs[i] == null){
+					indices.add(i);
+					names.add(args[i]);
 				}
+			}
 
-				helpMessage.append(optional ? '[' : '<');
-				helpMessage.append(alias);
-				if(i == _params.length - 1 && continualStrArg){
-					helpMessage.append("...");
-				}
-				helpMessage.append(optional ? ']' : '>');
+			OfflinePlayerResolver.getInstance().resolveAsync(names.toArray(new String[names.size()]), new OfflinePlayerResolver.Callback(){
+				@Override
+				public void onResolved(OfflinePlayer[] players) {
+					if(sender instanceof Player && !((Player)sender).isOnline()){
+						// The sender left while their arguments were resolved
+						return;
+					}
 
-				if(i != _params.length - 1){
-					helpMessage.append(' ');
+					for(int i = 0; i < players.length; i++){
+						methodArgs[indices.get(i)] = players[i];
+					}
+					invoke(sender, methodArgs, stats);
 				}
+			});
+		}
+
+		/**
+		 * Invokes the command method with arguments which have been parsed, either directly or on the asynchronous worker pool.
+		 */
+		private void invoke(CommandSender sender, Object[] methodArgs, CommandMetrics.Stats stats){
+			// Method arguments have been computed, we are ready to execute!
+			if(_async && executeAsync(sender, methodArgs, stats)){
+				return;
 			}
 
-			_helpMessage = helpMessage.toString();
+			long start = stats == null ? 0 : System.nanoTime();
+			Object returnVal;
+			try{
+				returnVal = _invoker.invoke(methodArgs);
+			}finally{
+				if(stats != null){
+					stats.getHandlerTime().record(System.nanoTime() - start);
+				}
+			}
+			if(returnVal instanceof CharSequence){
+				// Interpret as a message
+				sender.sendMessage(returnVal.toString());
+			}
 		}
 
-		private <T> boolean containsIndex(int index, T[] arr){
-			return arr != null && index >= 0 && index < arr.length;
+		/**
+		 * Submits the command method to the asynchronous worker pool.
+		 * @return {@code false} if no worker pool exists, in which case the method must be invoked synchronously.
+		 */
+		private boolean executeAsync(CommandSender sender, Object[] methodArgs, CommandMetrics.Stats stats){
+			GBukkitCorePlugin host = getPlugin();
+			ExecutorService executor = host == null ? null : host.getAsyncCommandExecutor();
+			if(executor == null){
+				// No worker pool exists while GBukkitCore is disabled
+				return false;
+			}
+
+			try{
+				executor.execute(new AsyncInvocation(host, sender, _invoker, methodArgs, stats));
+			}catch(RejectedExecutionException e){
+				// All workers are busy and the queue is full
+				sender.sendMessage(Message.get("cmdBusy"));
+			}
+			return true;
 		}
 
-		private void execute(CommandSender sender, Object arg0, String[] args){
+		/**
+		 * Executes the command method.
+		 * @param args The command arguments, the first of which is the alias of the subcommand within its node.
+		 * @param depth The depth of the node of the subcommand, which is the number of arguments preceding the subcommand alias in the original message.
+		 */
+		public void execute(CommandSender sender, Command cmd, String alias, String[] args, int depth){
 			// Assume predicate has been fulfilled
-			Object[] methodArgs = new Object[_params.length];
-			methodArgs[0] = arg0;
-			if((args.length <= methodArgs.length || _continualStringAtEnd) && args.length >= methodArgs.length - _optionalCt){
-				for(int i = 1; i < _params.length; i++){
-					try{
-						if(_continualStringAtEnd && i == _params.length - 1){
-							StringBuilder arg = new StringBuilder();
-							for(int j = i; j < args.length; j++){
-								arg.append(args[j]);
-								if(j != args.length - 1){
-									arg.append(' ');
-								}
-							}
-							methodArgs[i] = arg.toString();
-						}else{
-							methodArgs[i] = parseParameter(containsIndex(i, args) ? args[i] : null, _params[i]);
-						}
-
-						if(!containsIndex(i, args) && !_optionals[i]){
-							sender.sendMessage(Message.get("cmdNotEnoughArgs"));
-							break;
-						}
-					}catch(IllegalArgumentException except){
-						// Error parsing argument
-						Bukkit.getLogger().log(Level.FINE, "Couldn't parse an argument.", except);
-						sender.sendMessage(Message.get("cmdInvalidArg"));
-						break;
-					}
-				}
+			CommandMetrics.Stats stats = CommandMetrics.isEnabled() ? getStats(cmd.getName()) : null;
+			execute(sender, _takesContext ? new CommandInvocationContext<CommandSender, Command>(sender, cmd, alias) : sender, args, null, depth, stats); // Only works due to generics not being safe in Java
+		}
 
-				// Method arguments have been computed, we are ready to execute!
-				try {
-					Object returnVal = getMethod().invoke(ParentCommand.this, methodArgs);
-					if(returnVal != null && returnVal instanceof CharSequence){
-						// Interpret as a message
-						sender.sendMessage(returnVal.toString());
-					}
-				} catch (Exception e) {
-					// I've taken lots of safeguards, so this code SHOULD never be called
-					// However, if it is called, I want Bukkit to handle it
-					// Bukkit will log it properly and display the "An internal error occurred..." message
-					// Which is the case: Unexpected internal error
-					// Therefore, proper behavior is to rethrow the exception
-					//
-					// Also, an InvocationTargetException means that the clients method threw the exceptiom
-					// Therefore it should be handed up to Bukkit (like we've previously been doing)
-					throw new RuntimeException("An error occured while reflecting a command method within ParentCommand.", e); // Bukkit will display the appropriate error message to the sender and will log the error
-				}
-			}else{
-				sender.sendMessage(Message.get("cmdNotEnoughArgs"));
+		/**
+		 * Executes the command method.
+		 * @param args The command arguments, the first of which is the alias of the subcommand within its node.
+		 * @param depth The depth of the node of the subcommand, which is the number of arguments preceding the subcommand alias in the original message.
+		 */
+		public void execute(Player sender, PreprocessableCommand cmd, String alias, String[] args, int depth){
+			// Assume predicate has been fulfilled
+			CommandTokenizer tokens = PreprocessableCommandDispatcher.getInstance().getCurrentTokens();
+			if(tokens != null && tokens.size() != args.length + 1 + depth){
+				// Not invoked by the dispatcher with these arguments
+				tokens = null;
 			}
+			CommandMetrics.Stats stats = CommandMetrics.isEnabled() ? getStats(cmd.getAliases().get(0)) : null;
+			execute(sender, _takesContext ? new CommandInvocationContext<CommandSender, PreprocessableCommand>(sender, cmd, alias) : sender, args, tokens, depth, stats); // Only works due to generics not being safe in Java
 		}
+	}
 
-		public void execute(CommandSender sender, Command cmd, String alias, String[] args){
-			// Assume predicate has been fulfilled
-			execute(sender, _params[0].isAssignableFrom(CommandInvocationContext.class) ? new CommandInvocationContext<CommandSender, Command>(sender, cmd, alias) : sender, args); // Only works due to generics not being safe in Java
+	/**
+	 * Joins the arguments starting at the specified index with spaces, which reproduces the original text of arguments split by Bukkit.
+	 */
+	private static String join(String[] args, int from){
+		int length = args.length - from - 1;
+		for(int i = from; i < args.length; i++){
+			length += args[i].length();
 		}
 
-		public void execute(Player sender, PreprocessableCommand cmd, String alias, String[] args){
-			// Assume predicate has been fulfilled
-			execute(sender, _params[0].isAssignableFrom(CommandInvocationContext.class) ? new CommandInvocationContext<CommandSender, PreprocessableCommand>(sender, cmd, alias) : sender, args); // Only works due to generics not being safe in Java
+		StringBuilder arg = new StringBuilder(Math.max(length, 0));
+		for(int i = from; i < args.length; i++){
+			if(i != from){
+				arg.append(' ');
+			}
+			arg.append(args[i]);
 		}
+		return arg.toString();
 	}
 
 	private boolean _subclassInitializedSets = false;
@@ -299,7 +834,15 @@ public abstract class ParentCommand implements TabExecutor, PreprocessedCommandH
 	 */
 	@CommandMethod(aliases = { "help", "?" }, description = "Displays help for this command.")
 	public final void helpCommand(CommandInvocationContext<CommandSender, ?> context, @Optional @Argument(name = "page") int page){
+		sendHelp(context.getSender(), context.getInvocationAlias(), _root, page);
+	}
 
+	/**
+	 * Sends a help page listing the subcommands and child nodes of the specified node.
+	 * @param label The command label and aliases which lead to the node, separated by spaces.
+	 * @param page The one-based page number.
+	 */
+	private void sendHelp(CommandSender sender, String label, CommandNode node, int page){
 		if(page == 0){
 			page = 1;
 		}
@@ -310,19 +853,33 @@ public abstract class ParentCommand implements TabExecutor, PreprocessedCommandH
 
 		page--; // Convert to zero-based
 
-		context.getSender().sendMessage(String.format(getHelpHeader(), page + 1));
-
-		if(page * getConfig().getInt("commandsPerPage") > _commands.size()){
-			return;
+		// Only entries the sender may access are listed, so the accessible entries are part of the key
+		List<HelpEntry> allEntries = node.getHelpEntries();
+		BitSet accessible = new BitSet(allEntries.size());
+		for(int i = 0; i < allEntries.size(); i++){
+			if(allEntries.get(i).isAccessible(sender)){
+				accessible.set(i);
+			}
 		}
 
-		for(int i = page * getConfig().getInt("commandsPerPage"); (i < ((page + 1) * getConfig().getInt("commandsPerPage")) && i < _commands.size()); i++){
-			context.getSender().sendMessage(Message.get("cmdHelpEntry").replace("%basecommand%", context.getInvocationAlias()).replace("%usage%", _commands.get(i).getHelpMessage()).replace("%desc%", _commands.get(i).getDescription()));
-		}
+		List<Object> key = Arrays.<Object>asList(node, label, Integer.valueOf(page), accessible);
+		String message = _helpPages.get(key);
+		if(message == null){
+			int perPage = getConfig().getInt("commandsPerPage");
+			List<String> usages = Lists.newArrayListWithCapacity(accessible.cardinality());
+			List<String> descriptions = Lists.newArrayListWithCapacity(accessible.cardinality());
+			for(int i = accessible.nextSetBit(0); i >= 0; i = accessible.nextSetBit(i + 1)){
+				usages.add(allEntries.get(i).getHelpMessage());
+				descriptions.add(allEntries.get(i).getDescription());
+			}
 
-		if(((page + 1) * getConfig().getInt("commandsPerPage")) < _commands.size()){
-			context.getSender().sendMessage(Message.get("cmdHelpSeeMore").replace("%basecommand%", context.getInvocationAlias()).replace("%page%", Integer.valueOf(page + 2).toString()));
+			message = HelpPageCache.render(getHelpHeader(), label, page, perPage, usages, descriptions);
+			if(HelpPageCache.isListed(page, perPage, usages.size())){
+				_helpPages.put(key, message);
+			}
 		}
+
+		sender.sendMessage(message);
 	}
 
 	/**
@@ -339,45 +896,49 @@ public abstract class ParentCommand implements TabExecutor, PreprocessedCommandH
 	 * The created instance (which may be of a subclassed type) will be the object containing commands.
 	 */
 	public ParentCommand() {
-		initMethodMap(getClass());
+		addCommandObject(_root, this);
+	}
+
+	/**
+	 * Registers the subcommand methods declared by the runtime class of the specified object and its superclasses, with subclass declarations taking precedence.
+	 * @param node The node to register the subcommands under.
+	 * @param object The object containing the commands to execute.
+	 */
+	private void addCommandObject(CommandNode node, SubcommandAnnotatedObject object){
+		for(Class<?> clazz = object.getClass(); clazz != null && SubcommandAnnotatedObject.class.isAssignableFrom(clazz); clazz = clazz.getSuperclass()){
+			initMethodMap(node, object, clazz);
+		}
 	}
 	
-	private void initMethodMap(Class<? extends SubcommandAnnotatedObject> clazz){
+	private void initMethodMap(CommandNode node, SubcommandAnnotatedObject owner, Class<?> clazz){
 		Set<String> aliasesUsed = Sets.newHashSet();
 		
-		for(Method m: clazz.getDeclaredMethods()) {
-			if(m.isAnnotationPresent(CommandMethod.class)) {
-				AnnotatedCommandInfo info = new AnnotatedCommandInfo(m);
-				CommandMethod annotation = m.getAnnotation(CommandMethod.class);
-				if(annotation.aliases().length == 0){
-					throw new IllegalStateException("There are no aliases for the command specified by " + m.toString());
-				}
-				
-				boolean isRegistered = false;
-				for(String alias : annotation.aliases()){
-					if(alias == null){ // TODO: Support one null alias, which represents the base command
-						throw new IllegalStateException("An alias for the command specified by " + m.toString() + " is null.");
-					}
-
-					
-					if(!aliasesUsed.add(alias)){
-						// The alias was already used BY THIS CLASS
-						throw new IllegalStateException("The alias '" + alias + "' for the command specified by " + m.toString() + " conflicts with an alias of the same name in the same class declaration.");
-					}else if(_aliasesToCommands.containsKey(alias)){
-						// The alias was already used, but not by this class
-						// Due to loop order, it was by a subclass
-						// Therefore, we assume that this alias has been taken, and we do NOT register the superclassier command under this alias
-					}else{
-						_aliasesToCommands.put(alias, info);
-						isRegistered = true;
-					}
-				}
-				
-				if(isRegistered){
-					// If no aliases were available but no exceptions were thrown, command shouldn't be in the list (which is used for help page generation)
-					_commands.add(info);
+		// Uses the registry generated at compile time, if there is one
+		for(CommandMethodDescriptor descriptor : CommandMethodDescriptor.forClass(clazz)) {
+			Method m = descriptor.getMethod(clazz);
+			AnnotatedCommandInfo info = new AnnotatedCommandInfo(node, owner, m, descriptor);
+			
+			boolean isRegistered = false;
+			for(String alias : descriptor.getAliases()){
+				if(!aliasesUsed.add(alias)){
+					// The alias was already used BY THIS CLASS
+					throw new IllegalStateException("The alias '" + alias + "' for the command specified by " + m.toString() + " conflicts with an alias of the same name in the same class declaration.");
+				}else if(node.getChild(alias) != null){
+					throw new IllegalStateException("The alias '" + alias + "' for the command specified by " + m.toString() + " is already used by a child node.");
+				}else if(node.getCommand(alias) != null){
+					// The alias was already used, but not by this class
+					// Due to loop order, it was by a subclass
+					// Therefore, we assume that this alias has been taken, and we do NOT register the superclassier command under this alias
+				}else{
+					node.addCommand(alias, info);
+					isRegistered = true;
 				}
 			}
+			
+			if(isRegistered){
+				// If no aliases were available but no exceptions were thrown, command shouldn't be in the list (which is used for help page generation)
+				node.addHelpEntry(info);
+			}
 		}
 	}
 	
@@ -386,13 +947,36 @@ public abstract class ParentCommand implements TabExecutor, PreprocessedCommandH
 	 * @param objects The objects which contain the commands to execute.
 	 */
 	public ParentCommand(SubcommandAnnotatedObject... objects) {
-		_aliasesToCommands = new TreeMap<String, AnnotatedCommandInfo>(String.CASE_INSENSITIVE_ORDER);
-		_commands = new ArrayList<AnnotatedCommandInfo>();
 		for(SubcommandAnnotatedObject object : objects){
-			for (Class<? extends SubcommandAnnotatedObject> clazz = object.getClass(); clazz != null && SubcommandAnnotatedObject.class.isAssignableFrom(clazz); clazz = clazz.getSuperclass().asSubclass(SubcommandAnnotatedObject.class))
-			{
-				initMethodMap(clazz);
-			}
+			addCommandObject(_root, object);
+		}
+	}
+
+	/**
+	 * Mounts the subcommands declared by the specified objects under an alias path, forming a nested command tree.
+	 * For instance, mounting an object under the path {@code "edit spawn"} of the command {@code /arena} makes its subcommand {@code add} available as {@code /arena edit spawn add}.
+	 * Each node of the path displays its own help page, listing its subcommands and child nodes, when it is invoked without a subcommand or as {@code help [page]}.
+	 * <p>
+	 * This method is not thread safe, and should only be called while the command is being set up.
+	 * @param path The space separated aliases of the node to mount the subcommands under. Nodes on the path which do not exist are created.
+	 * @param description The description of the node, displayed within the help page of its parent, or {@code null} to keep its current description.
+	 * @param objects The objects containing the subcommands to mount.
+	 * @throws IllegalStateException If an alias on the path is already used by a subcommand, or a subcommand alias is already used by a child node.
+	 */
+	public final void mount(String path, String description, SubcommandAnnotatedObject... objects){
+		Validate.notNull(path, "The path must not be null.");
+		Validate.notNull(objects, "The objects must not be null.");
+		Validate.isTrue(!path.trim().isEmpty(), "The path must not be empty.");
+
+		String[] aliases = path.trim().split("\\s+");
+		CommandNode node = _root;
+		for(int i = 0; i < aliases.length; i++){
+			node = node.getOrCreateChild(aliases[i], i == aliases.length - 1 ? description : null);
+		}
+
+		for(SubcommandAnnotatedObject object : objects){
+			Validate.notNull(object, "The objects must not be null.");
+			addCommandObject(node, object);
 		}
 	}
 
@@ -409,6 +993,9 @@ public abstract class ParentCommand implements TabExecutor, PreprocessedCommandH
 
 	/**
 	 * Attempts to tab complete this command. The general contract of this method is that if the superclass implementation of this method returns {@code null}, it is the subclasses responsibility to tab complete the command.
+	 * <p>
+	 * Aliases of subcommands and child nodes are completed if the sender may access them. Arguments are completed as specified by the {@link TabCompletion} annotation of their parameter, or otherwise by their type:
+	 * players, materials, particle effects, booleans and enumeration constants are completed from prebuilt sorted indices, and strings are left to the server.
 	 * @param sender The sender of the command.
 	 * @param command The command being tab completed.
 	 * @param alias The currently used alias of the command being tab completed.
@@ -419,10 +1006,37 @@ public abstract class ParentCommand implements TabExecutor, PreprocessedCommandH
 	public List<String> onTabComplete(CommandSender sender,
 			Command command, String alias,
 			String[] args) {
-		if(args.length == 1){
-			return StringUtil.copyPartialMatches(args[0], _aliasesToCommands.keySet(), new ArrayList<String>(_aliasesToCommands.size()));
+		if(args.length == 0){
+			return null;
 		}
-		return null;
+
+		CommandNode node = _root.route(args, args.length - 1);
+		if(node.getDepth() == args.length - 1){
+			// Completing an alias within the node, which is only completed if the sender may access it
+			String token = args[args.length - 1];
+			List<String> completions = new ArrayList<String>();
+			// Aliases starting with the token are contiguous in case-insensitive order
+			for(String subAlias : node.getAliases().tailSet(token, true)){
+				if(!StringUtil.startsWithIgnoreCase(subAlias, token)){
+					break;
+				}
+
+				AnnotatedCommandInfo subcommand = node.getCommand(subAlias);
+				if(subcommand == null || subcommand.isAccessible(sender)){
+					completions.add(subAlias);
+				}
+			}
+			return completions;
+		}
+
+		// Completing an argument of a subcommand
+		AnnotatedCommandInfo subcommand = node.getCommand(args[node.getDepth()]);
+		if(subcommand == null){
+			return null;
+		}else if(!subcommand.isAccessible(sender)){
+			return new ArrayList<String>(0);
+		}
+		return subcommand.tabComplete(sender, command, alias, args, node.getDepth());
 	}
 
 	private GBukkitCorePlugin _plugin;
@@ -507,15 +1121,74 @@ public abstract class ParentCommand implements TabExecutor, PreprocessedCommandH
 		return _supportedParamTypes;
 	}
 
+	/**
+	 * An argument parser which delegates to {@link ParentCommand#parseParameter(String, Class)}, used for types that are only supported by a subclass implementation of that method.
+	 */
+	private final class ParseParameterAdapter implements ArgumentParser<Object>{
+		private final Class<?> _type;
+
+		public ParseParameterAdapter(Class<?> type){
+			_type = type;
+		}
+
+		@Override
+		public Object parse(String argument) throws IllegalArgumentException {
+			return parseParameter(argument, _type);
+		}
+	}
+
+	private Boolean _overridesParseParameter;
+
+	/**
+	 * Determines if a subclass overrides {@link #parseParameter(String, Class)}, in which case it must be called for every argument to preserve its behavior.
+	 */
+	private boolean overridesParseParameter(){
+		if(_overridesParseParameter == null){
+			_overridesParseParameter = Boolean.FALSE;
+			for(Class<?> clazz = getClass(); clazz != ParentCommand.class; clazz = clazz.getSuperclass()){
+				try{
+					clazz.getDeclaredMethod("parseParameter", String.class, Class.class);
+					_overridesParseParameter = Boolean.TRUE;
+					break;
+				}catch(NoSuchMethodException e){
+					// Not declared by this class, check the superclass
+				}
+			}
+		}
+
+		return _overridesParseParameter.booleanValue();
+	}
+
+	/**
+	 * Resolves the parser used for every argument of the specified parameter type.
+	 * @param type The parameter type.
+	 * @return The parser for the specified type.
+	 * @throws IllegalStateException If the specified type is not a supported parameter type.
+	 */
+	private ArgumentParser<?> resolveParser(Class<?> type){
+		ArgumentParser<?> parser = overridesParseParameter() ? null : ArgumentParsers.getParser(type);
+
+		if(parser == null){
+			if(!getSupportedParameterTypes().contains(type) && !type.isEnum() && ArgumentParsers.getParser(type) == null){
+				throw new IllegalStateException(type.toString() + " is not a supported parameter type.");
+			}
+
+			parser = new ParseParameterAdapter(type);
+		}
+
+		return parser;
+	}
+
 	/**
 	 * Parses an argument, written in human-readable string form, to be of the specified type. Methods which derive from this method should call the superclass method as an attempted parse <em>after</em> attempting to parse the argument themselves, as the superclass call chain will ultimately throw the appropriate exception if no derived class can parse the argument.
+	 * <p>
+	 * The default implementation uses the parsers registered with {@link ArgumentParsers}. Registering a parser there is preferred over overriding this method: if a subclass overrides this method, it is called for every argument of every command method, whereas registered parsers are resolved only once, when the command is registered.
 	 * @param argument The argument in string form to parse. If this value is {@code null}, the default value in the Java compiler for fields of type {@code type} should be returned. This is {@code null} for reference types, {@code 0} for most numerical types, and {@code false} for booleans.
 	 * @param type The {@code Class} of the argument that is being parsed. If this value is equivalent to {@code String.class}, it is expected that the argument itself is returned.
 	 * @return {@code argument} represented as an instance of {@code type}.
 	 * @throws IllegalArgumentException If {@code argument} is not deserializable to an instance of type. This exception should <i>not</i> be thrown if {@code argument} is {@code null}, in which case {@code null} (or the appropriate default) should be returned. However, it <i>must</i> be thrown if {@code type} is {@code null}.
 	 * @throws UnsupportedOperationException If the specified {@code type} cannot be deserialized by this method.
 	 */
-	@SuppressWarnings({ "deprecation", "unchecked" }) // Needed to get players by name, for enumeration value parsing, and for material match by ID (matchMaterial is not deprecated, but using it for ID match is)
 	protected Object parseParameter(String argument, Class<?> type) throws IllegalArgumentException, UnsupportedOperationException {
 		if(type == null){
 			throw new IllegalArgumentException("The specified type is null.");
@@ -525,85 +1198,94 @@ public abstract class ParentCommand implements TabExecutor, PreprocessedCommandH
 			return getDefaultParameterValues().get(type);
 		}
 
-		if(type == String.class){
-			return argument;
-		}else if(type == Boolean.class || type == boolean.class){
-			String vt = argument.trim().toLowerCase();
+		ArgumentParser<?> parser = ArgumentParsers.getParser(type);
+		if(parser == null){
+			throw new UnsupportedOperationException("The type " + type.getName() + " could not be parsed as a parameter.");
+		}
 
-			if(vt.equals("true") || vt.equals("yes") || vt.equals("y") || vt.equals("on")){
-				return type == Boolean.class ? Boolean.TRUE : true;
-			}else if(vt.equals("false") || vt.equals("no") || vt.equals("n") || vt.equals("off")){
-				return type == Boolean.class ? Boolean.FALSE : false;
-			}else{
-				throw new IllegalArgumentException(argument + " is not a boolean.");
-			}
-		}else if(type == Integer.class || type == int.class){
-			int val = Integer.parseInt(argument.toLowerCase().trim());
-			return type == Integer.class ? Integer.valueOf(val) : val;
-		}else if(type == Double.class || type == double.class){
-			double val = Double.parseDouble(argument.toLowerCase().trim());
-			return type == Double.class ? Double.valueOf(val) : val;
-		}else if(type == Float.class || type == float.class){
-			float val = Float.parseFloat(argument.toLowerCase().trim());
-			return type == Float.class ? Float.valueOf(val) : val;
-		}else if(type == char.class || type == Character.class){
-			if(argument.length() == 1){
-				return type == char.class ? argument.charAt(0) : Character.valueOf(argument.charAt(0));
-			}else if(argument.length() == 3 && ((argument.charAt(0) == '\'' && argument.charAt(2) == '\'') || (argument.charAt(0) == '"' && argument.charAt(2) == '"'))){
-				return type == char.class ? argument.charAt(1) : Character.valueOf(argument.charAt(1));
+		return parser.parse(argument);
+	}
+
+	/**
+	 * Finds the subcommand invoked by the arguments following the path of the specified node, displaying help or an error message to the sender if no subcommand they may access is invoked.
+	 * Rate limits are enforced here, before any access check or argument parsing.
+	 * @param commandName The name of the command, under which metrics are recorded.
+	 * @return The subcommand to execute, or {@code null} if the command has been handled.
+	 */
+	private AnnotatedCommandInfo findCommand(CommandSender sender, String commandName, String alias, CommandNode node, String[] args){
+		int depth = node.getDepth();
+		if(args.length > depth){
+			AnnotatedCommandInfo i = node.getCommand(args[depth]);
+
+			if(i != null){
+				CommandMetrics.Stats stats = null;
+				long start = 0;
+				if(CommandMetrics.isEnabled()){
+					stats = i.getStats(commandName);
+					stats.recordInvocation(args[depth]);
+					start = System.nanoTime();
+				}
+
+				if(!i.getRateLimiter(commandName).tryAcquire(sender)){
+					if(stats != null){
+						stats.recordDenied();
+					}
+					sender.sendMessage(Message.get("cmdRateLimited"));
+					return null;
+				}
+
+				boolean accessible = i.getAccessRequirement().apply(sender);
+				if(stats != null){
+					stats.getAccessTime().record(System.nanoTime() - start);
+					if(!accessible){
+						stats.recordDenied();
+					}
+				}
+
+				if(accessible){
+					return i;
+				}
+				sender.sendMessage(Message.get("cmdNoPermission"));
+			}else if(args.length == depth + 1 && Utilities.Arguments.parseInt(args[depth], -1) > 0){
+				// Assume help command
+				sendHelp(sender, getLabel(alias, args, depth), node, Integer.parseInt(args[depth]));
+			}else if(depth > 0 && args.length <= depth + 2 && (args[depth].equalsIgnoreCase("help") || args[depth].equals("?"))){
+				// Child nodes do not declare a help subcommand of their own
+				sendHelp(sender, getLabel(alias, args, depth), node, args.length > depth + 1 ? Utilities.Arguments.parseInt(args[depth + 1], 1) : 1);
 			}else{
-				throw new IllegalArgumentException("The specified argument does not represent a single character.");
-			}
-		}else if(type == Long.class || type == long.class){
-			long val = Long.parseLong(argument.toLowerCase().trim());
-			return type == Long.class ? Long.valueOf(val) : val;
-		}else if(type == Short.class || type == short.class){
-			short val = Short.parseShort(argument.toLowerCase().trim());
-			return type == Short.class ? Short.valueOf(val) : val;
-		}else if(type == Player.class){
-			return Bukkit.getPlayer(argument);
-		}else if(type == OfflinePlayer.class){
-			return Bukkit.getOfflinePlayer(argument);
-		}else if(type == Particle.class){
-			return Particle.fromName(argument);
-		}else if(type == Material.class){
-			Material returnValue = Material.matchMaterial(argument.trim().replace('-', '_'));
-			if(returnValue != null){
-				return returnValue;
+				sender.sendMessage(Message.get("cmdUnknown"));
 			}
-			throw new IllegalArgumentException("The specified argument does not represent a material.");
-		}else if(type.isEnum()){
-			return Enum.valueOf(type.asSubclass(Enum.class), argument);
+		}else{
+			sendHelp(sender, getLabel(alias, args, depth), node, 1);
+		}
+		return null;
+	}
+
+	/**
+	 * Gets the label of a node, which is the command label followed by the aliases leading to the node.
+	 */
+	private static String getLabel(String alias, String[] args, int depth){
+		if(depth == 0){
+			return alias;
 		}
 
-		throw new UnsupportedOperationException("The type " + type.getName() + " could not be parsed as a parameter.");
+		StringBuilder label = new StringBuilder(alias);
+		for(int i = 0; i < depth; i++){
+			label.append(' ').append(args[i]);
+		}
+		return label.toString();
 	}
 
 	@Override
 	public final boolean onCommand(CommandSender sender,
 			Command command, String alias,
 			String[] args) {
-		if(args.length >= 1){
-			AnnotatedCommandInfo i = _aliasesToCommands.containsKey(args[0]) ? _aliasesToCommands.get(args[0]) : null;
-
-			if(i != null){
-				if(!i.getAccessRequirement().apply(sender)){
-					sender.sendMessage(Message.get("cmdNoPermission"));
-				}else{
-					// Execute the command!
-					i.execute(sender, command, alias, args);
-				}
-				return true;
-			}else{
-				if(args.length == 1 && Utilities.Arguments.parseInt(args[0], -1) > 0){
-					// Assume help command
-					helpCommand(new CommandInvocationContext<CommandSender, Command>(sender, command, alias), Integer.parseInt(args[0]));
-				}else{
-					sender.sendMessage(Message.get("cmdUnknown"));
-				}
-			}
-		}else{
-			helpCommand(new CommandInvocationContext<CommandSender, Command>(sender, command, alias), 1);
+		CommandNode node = _root.route(args, args.length);
+		AnnotatedCommandInfo i = findCommand(sender, command.getName(), alias, node, args);
+		if(i != null){
+			// Execute the command!
+			int depth = node.getDepth();
+			i.execute(sender, command, alias, depth == 0 ? args : Arrays.copyOfRange(args, depth, args.length), depth);
 		}
 		return true;
 	}
@@ -611,27 +1293,12 @@ public abstract class ParentCommand implements TabExecutor, PreprocessedCommandH
 	@Override
 	public final boolean onCommand(Player sender, PreprocessableCommand command,
 			String alias, String[] args) {
-		if(args.length >= 1){
-			AnnotatedCommandInfo i = _aliasesToCommands.containsKey(args[0]) ? _aliasesToCommands.get(args[0]) : null;
-
-			if(i != null){
-				if(!i.getAccessRequirement().apply(sender)){
-					sender.sendMessage(Message.get("cmdNoPermission"));
-				}else{
-					// Execute the command!
-					i.execute(sender, command, alias, args);
-				}
-				return true;
-			}else{
-				if(args.length == 1 && Utilities.Arguments.parseInt(args[0], -1) > 0){
-					// Assume help command
-					helpCommand(new CommandInvocationContext<CommandSender, PreprocessableCommand>(sender, command, alias), Integer.parseInt(args[0]));
-				}else{
-					sender.sendMessage(Message.get("cmdUnknown"));
-				}
-			}
-		}else{
-			helpCommand(new CommandInvocationContext<CommandSender, PreprocessableCommand>(sender, command, alias), 1);
+		CommandNode node = _root.route(args, args.length);
+		AnnotatedCommandInfo i = findCommand(sender, command.getAliases().get(0), alias, node, args);
+		if(i != null){
+			// Execute the command!
+			int depth = node.getDepth();
+			i.execute(sender, command, alias, depth == 0 ? args : Arrays.copyOfRange(args, depth, args.length), depth);
 		}
 		return true;
 	}
@@ -0,0 +1,31 @@
+package me.pagekite.glen3b.library.bukkit.command.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * This annotation limits how often each player may execute a command. Players may execute the command {@link #permits()} times in a burst, after which they regain one execution every {@code seconds() / permits()} seconds.
+ * The limit may be overridden by the server owner in the {@code rateLimits} section of the GBukkitCore configuration.
+ * <p>
+ * On a command method, this limits the subcommand invoked through that method. On a subclass of {@link me.pagekite.glen3b.library.bukkit.command.SubCommand SubCommand}, this limits the subcommand implemented by that class.
+ * </p>
+ * @author Glen Husman
+ * @see me.pagekite.glen3b.library.bukkit.command.RateLimiter
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RateLimit {
+	/**
+	 * @return The number of executions allowed per period. If this is not positive, executions are not limited.
+	 */
+	int permits();
+
+	/**
+	 * @return The length of the period, in seconds, which must be finite and positive.
+	 */
+	double seconds() default 1;
+}
@@ -22,6 +22,7 @@ public enum TabCompleteMode {
 	WORLD_PLAYER_LIST,
 	/**
 	 * Represents that the tab completion of an argument should be delegated to the {@link org.bukkit.command.TabCompleter#onTabComplete(org.bukkit.command.CommandSender, org.bukkit.command.Command, String, String[]) onTabComplete} method.
+	 * If the object declaring the command method implements {@link org.bukkit.command.TabCompleter} and is not itself a {@link ParentCommand}, its method is called. Otherwise, {@link ParentCommand#onTabComplete(org.bukkit.command.CommandSender, org.bukkit.command.Command, String, String[]) ParentCommand.onTabComplete} returns {@code null}, leaving completion to the subclass.
 	 */
 	DELEGATE_TO_METHOD;
 	
@@ -0,0 +1,373 @@
+package me.pagekite.glen3b.library.bukkit.command.annotation.processing;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+import me.pagekite.glen3b.library.bukkit.command.annotation.Access;
+import me.pagekite.glen3b.library.bukkit.command.annotation.Argument;
+import me.pagekite.glen3b.library.bukkit.command.annotation.CommandMethod;
+import me.pagekite.glen3b.library.bukkit.command.annotation.CommandMethodDescriptor;
+import me.pagekite.glen3b.library.bukkit.command.annotation.CommandMethodRegistry;
+import me.pagekite.glen3b.library.bukkit.command.annotation.CommandParameterDescriptor;
+import me.pagekite.glen3b.library.bukkit.command.annotation.Optional;
+import me.pagekite.glen3b.library.bukkit.command.annotation.RateLimit;
+import me.pagekite.glen3b.library.bukkit.command.annotation.TabCompleteMode;
+import me.pagekite.glen3b.library.bukkit.command.annotation.TabCompletion;
+
+/**
+ * Generates a {@link CommandMethodRegistry} for each class declaring {@link CommandMethod command methods}, which {@code ParentCommand} loads instead of reading the annotations of the class by reflection.
+ * The declaration of each command method is validated at compile time, and illegal declarations are reported as compilation errors.
+ * <p>
+ * This processor is registered as a service, so it runs automatically for any project compiled with GBukkitCore on the classpath.
+ * A registry is not generated for a class whose command methods have parameters of private types, as the generated class could not refer to them; such classes continue to be read by reflection.
+ * @author Glen Husman
+ */
+@SupportedAnnotationTypes("me.pagekite.glen3b.library.bukkit.command.annotation.CommandMethod")
+public final class CommandMethodProcessor extends AbstractProcessor {
+
+	private static final String SENDER_TYPE_NAME = "me.pagekite.glen3b.library.bukkit.command.CommandSenderType";
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		Map<TypeElement, List<ExecutableElement>> methodsByType = new LinkedHashMap<TypeElement, List<ExecutableElement>>();
+
+		for(Element element : roundEnv.getElementsAnnotatedWith(CommandMethod.class)){
+			if(element.getKind() != ElementKind.METHOD){
+				continue;
+			}
+
+			TypeElement type = (TypeElement)element.getEnclosingElement();
+			List<ExecutableElement> methods = methodsByType.get(type);
+			if(methods == null){
+				methods = new ArrayList<ExecutableElement>();
+				methodsByType.put(type, methods);
+			}
+			methods.add((ExecutableElement)element);
+		}
+
+		for(Map.Entry<TypeElement, List<ExecutableElement>> entry : methodsByType.entrySet()){
+			generateRegistry(entry.getKey(), entry.getValue());
+		}
+
+		// Other processors may also handle these annotations
+		return false;
+	}
+
+	private void generateRegistry(TypeElement type, List<ExecutableElement> methods){
+		StringBuilder descriptors = new StringBuilder();
+		Set<String> aliasesUsed = new HashSet<String>();
+		boolean valid = true;
+		boolean referable = true;
+
+		for(ExecutableElement method : methods){
+			StringBuilder descriptor = new StringBuilder();
+			if(!appendDescriptor(method, aliasesUsed, descriptor)){
+				valid = false;
+			}else if(descriptor.length() == 0){
+				referable = false;
+			}
+			descriptors.append(descriptor);
+		}
+
+		if(!valid){
+			// Errors have been reported, compilation will fail
+			return;
+		}
+
+		String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+		if(!referable){
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "No command registry is generated for " + binaryName + ", as a command method has a parameter of an inaccessible type. Its command methods will be read by reflection.", type);
+			return;
+		}
+
+		String registryName = CommandMethodRegistry.Loader.getRegistryName(binaryName);
+		String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+		String simpleName = packageName.isEmpty() ? registryName : registryName.substring(packageName.length() + 1);
+
+		StringBuilder source = new StringBuilder();
+		if(!packageName.isEmpty()){
+			source.append("package ").append(packageName).append(";\n\n");
+		}
+		source.append("/**\n * Command method registry of {@code ").append(binaryName).append("}, generated by GBukkitCore. Do not edit.\n */\n");
+		source.append("public final class ").append(simpleName).append(" implements ").append(CommandMethodRegistry.class.getName()).append(" {\n\n");
+		source.append("\t@Override\n\tpublic ").append(CommandMethodDescriptor.class.getName()).append("[] getCommandMethods() {\n");
+		source.append("\t\treturn new ").append(CommandMethodDescriptor.class.getName()).append("[] {\n");
+		source.append(descriptors);
+		source.append("\t\t};\n\t}\n\n}\n");
+
+		try{
+			JavaFileObject file = processingEnv.getFiler().createSourceFile(registryName, type);
+			Writer writer = file.openWriter();
+			try{
+				writer.write(source.toString());
+			}finally{
+				writer.close();
+			}
+		}catch(IOException except){
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "The command registry " + registryName + " could not be written: " + except.getMessage(), type);
+		}
+	}
+
+	/**
+	 * Validates a command method and appends the source of its descriptor.
+	 * @return {@code false} if the declaration is illegal. If the descriptor cannot be generated, {@code true} is returned and nothing is appended.
+	 */
+	private boolean appendDescriptor(ExecutableElement method, Set<String> aliasesUsed, StringBuilder out){
+		Map<String, AnnotationValue> command = getValues(method, CommandMethod.class.getName());
+		Map<String, AnnotationValue> access = getValues(method, Access.class.getName());
+		Map<String, AnnotationValue> rateLimit = getValues(method, RateLimit.class.getName());
+		List<? extends VariableElement> params = method.getParameters();
+		boolean valid = true;
+
+		List<String> aliases = getStrings(command.get("aliases"));
+		if(aliases.isEmpty()){
+			error(method, "There are no aliases for the command specified by " + method.getSimpleName());
+			valid = false;
+		}
+		for(String alias : aliases){
+			if(!aliasesUsed.add(alias)){
+				error(method, "The alias '" + alias + "' for the command specified by " + method.getSimpleName() + " conflicts with an alias of the same name in the same class declaration.");
+				valid = false;
+			}
+		}
+
+		if(params.isEmpty()){
+			error(method, method.getSimpleName() + " does not accept a legal first argument.");
+			return false;
+		}
+
+		List<String> allowedSenders = null;
+		if(access != null){
+			allowedSenders = getEnumNames(access.get("allowedSenders"));
+			if(allowedSenders.size() > 1 && allowedSenders.contains("ALL")){
+				error(method, "The allowed command sender types on " + method.getSimpleName() + " include ALL, but ALL is not the only element.");
+				valid = false;
+			}
+		}
+
+		if(rateLimit != null){
+			// A non-positive number of permits is emitted unchanged, and means executions are not limited
+			double seconds = ((Number)rateLimit.get("seconds").getValue()).doubleValue();
+			if(Double.isNaN(seconds) || Double.isInfinite(seconds) || seconds <= 0){
+				error(method, "The rate limit of " + method.getSimpleName() + " has a period of " + seconds + " seconds, but the period must be finite and positive.");
+				valid = false;
+			}
+		}
+
+		StringBuilder parameters = new StringBuilder();
+		boolean referable = true;
+		boolean prevOptional = false;
+		for(int i = 0; i < params.size(); i++){
+			VariableElement param = params.get(i);
+			Map<String, AnnotationValue> argument = getValues(param, Argument.class.getName());
+			Map<String, AnnotationValue> optional = getValues(param, Optional.class.getName());
+			Map<String, AnnotationValue> completion = getValues(param, TabCompletion.class.getName());
+
+			boolean isOptional = optional != null && (Boolean)optional.get("optional").getValue();
+			boolean spaces = argument != null && (Boolean)argument.get("spaces").getValue();
+			TypeMirror paramType = processingEnv.getTypeUtils().erasure(param.asType());
+
+			if(i > 0){
+				if(spaces && i < params.size() - 1){
+					error(param, method.getSimpleName() + " specified a continual string argument, but it is not the last parameter.");
+					valid = false;
+				}
+				if(spaces && !paramType.toString().equals(String.class.getName())){
+					error(param, method.getSimpleName() + " specified a continual string argument, but the argument in question is not a string.");
+					valid = false;
+				}
+				if(isOptional){
+					prevOptional = true;
+				}else if(prevOptional){
+					error(param, "Parameter of type " + paramType + " is required, but follows an optional parameter. All parameters after an optional parameter must be optional.");
+					valid = false;
+				}
+			}
+
+			String classLiteral = getClassLiteral(paramType);
+			if(classLiteral == null){
+				referable = false;
+				continue;
+			}
+
+			parameters.append("\t\t\t\tnew ").append(CommandParameterDescriptor.class.getName()).append('(').append(classLiteral).append(", ");
+			parameters.append(argument == null ? "null" : literal((String)argument.get("name").getValue())).append(", ");
+			parameters.append(isOptional).append(", ").append(spaces).append(", ");
+			if(completion == null){
+				parameters.append("null, null");
+			}else{
+				parameters.append(TabCompleteMode.class.getName()).append('.').append(((VariableElement)completion.get("mode").getValue()).getSimpleName()).append(", ");
+				appendStringArray(getStrings(completion.get("values")), parameters);
+			}
+			parameters.append("),\n");
+		}
+
+		if(!valid || !referable){
+			return valid;
+		}
+
+		out.append("\t\t\tnew ").append(CommandMethodDescriptor.class.getName()).append('(').append(literal(method.getSimpleName().toString())).append(", ");
+		appendStringArray(aliases, out);
+		out.append(", ").append(literal((String)command.get("description").getValue()));
+		out.append(", ").append(command.get("async").getValue());
+		if(access == null){
+			out.append(", null, null");
+		}else{
+			out.append(", ").append(literal((String)access.get("permission").getValue())).append(", new ").append(SENDER_TYPE_NAME).append("[] {");
+			for(int i = 0; i < allowedSenders.size(); i++){
+				out.append(i == 0 ? "" : ", ").append(SENDER_TYPE_NAME).append('.').append(allowedSenders.get(i));
+			}
+			out.append('}');
+		}
+		out.append(", new ").append(CommandParameterDescriptor.class.getName()).append("[] {\n");
+		out.append(parameters);
+		out.append("\t\t\t}");
+		if(rateLimit != null){
+			out.append(", ").append(rateLimit.get("permits").getValue()).append(", ").append(rateLimit.get("seconds").getValue()).append('D');
+		}
+		out.append("),\n");
+		return true;
+	}
+
+	private void error(Element element, String message){
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+	}
+
+	/**
+	 * Gets the values of an annotation on an element, including defaults, by element name.
+	 * @return The annotation values, or {@code null} if the element is not annotated with the annotation.
+	 */
+	private Map<String, AnnotationValue> getValues(Element element, String annotationName){
+		for(AnnotationMirror mirror : element.getAnnotationMirrors()){
+			if(((TypeElement)mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationName)){
+				Map<String, AnnotationValue> values = new LinkedHashMap<String, AnnotationValue>();
+				for(Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value : processingEnv.getElementUtils().getElementValuesWithDefaults(mirror).entrySet()){
+					values.put(value.getKey().getSimpleName().toString(), value.getValue());
+				}
+				return values;
+			}
+		}
+
+		return null;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<String> getStrings(AnnotationValue array){
+		List<String> strings = new ArrayList<String>();
+		for(AnnotationValue value : (List<? extends AnnotationValue>)array.getValue()){
+			strings.add((String)value.getValue());
+		}
+		return strings;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<String> getEnumNames(AnnotationValue array){
+		List<String> names = new ArrayList<String>();
+		for(AnnotationValue value : (List<? extends AnnotationValue>)array.getValue()){
+			names.add(((VariableElement)value.getValue()).getSimpleName().toString());
+		}
+		return names;
+	}
+
+	/**
+	 * Gets the source of a class literal for an erased type.
+	 * @return The class literal, or {@code null} if the type cannot be referred to from the generated registry.
+	 */
+	private static String getClassLiteral(TypeMirror type){
+		if(type.getKind().isPrimitive()){
+			return type.toString() + ".class";
+		}else if(type.getKind() == TypeKind.ARRAY){
+			String component = getClassLiteral(((ArrayType)type).getComponentType());
+			return component == null ? null : component.substring(0, component.length() - ".class".length()) + "[].class";
+		}else if(type.getKind() == TypeKind.DECLARED){
+			for(Element element = ((DeclaredType)type).asElement(); element instanceof TypeElement; element = element.getEnclosingElement()){
+				if(element.getModifiers().contains(Modifier.PRIVATE) || ((TypeElement)element).getNestingKind() == NestingKind.LOCAL || ((TypeElement)element).getNestingKind() == NestingKind.ANONYMOUS){
+					return null;
+				}
+			}
+			return ((TypeElement)((DeclaredType)type).asElement()).getQualifiedName() + ".class";
+		}
+
+		return null;
+	}
+
+	private static void appendStringArray(List<String> values, StringBuilder out){
+		out.append("new String[] {");
+		for(int i = 0; i < values.size(); i++){
+			out.append(i == 0 ? "" : ", ").append(literal(values.get(i)));
+		}
+		out.append('}');
+	}
+
+	/**
+	 * Gets the source of a string literal.
+	 */
+	private static String literal(String value){
+		if(value == null){
+			return "null";
+		}
+
+		StringBuilder literal = new StringBuilder(value.length() + 2);
+		literal.append('"');
+		for(int i = 0; i < value.length(); i++){
+			char c = value.charAt(i);
+			switch(c){
+			case '"':
+				literal.append("\\\"");
+				break;
+			case '\\':
+				literal.append("\\\\");
+				break;
+			case '\n':
+				literal.append("\\n");
+				break;
+			case '\r':
+				literal.append("\\r");
+				break;
+			case '\t':
+				literal.append("\\t");
+				break;
+			default:
+				if(c < 0x20 || c > 0x7E){
+					literal.append(String.format("\\u%04x", Integer.valueOf(c)));
+				}else{
+					literal.append(c);
+				}
+			}
+		}
+		literal.append('"');
+		return literal.toString();
+	}
+
+}
@@ -3,8 +3,10 @@ package me.pagekite.glen3b.library.bukkit.protocol;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 
+import me.pagekite.glen3b.library.bukkit.reflection.FieldAccessor;
 import me.pagekite.glen3b.library.bukkit.reflection.InternalPackage.SubPackage;
 import me.pagekite.glen3b.library.bukkit.reflection.ReflectionUtilities;
+import me.pagekite.glen3b.library.bukkit.reflection.ReflectionWarmup;
 
 import org.apache.commons.lang.Validate;
 import org.bukkit.inventory.ItemStack;
@@ -17,28 +19,52 @@ import org.bukkit.plugin.Plugin;
  */
 public class DefaultProtocolUtilityImplementation implements ProtocolUtilities {
 
-	private Constructor<?> _nbtTagListConstructor;
-	private Method _nbtCompound_set;
-	private Method _nmsItemStackToCraftbukkitItemStack;
+	// Volatile, as the handles may be resolved on an asynchronous warm-up task
+	private volatile Constructor<?> _nbtTagListConstructor;
+	private volatile Method _nbtCompound_set;
+	private volatile Method _nmsItemStackToCraftbukkitItemStack;
+	private volatile FieldAccessor<Object> _nmsItemStack_tag;
+
+	/**
+	 * Resolves the reflective handles used by this implementation. This is done by an asynchronous task when GBukkitCore is enabled, and otherwise when the handles are first used.
+	 * @throws Exception If a handle cannot be resolved.
+	 */
+	public void warmUp() throws Exception {
+		_nbtTagListConstructor = ReflectionUtilities.getConstructor(ReflectionUtilities.Minecraft.getType("NBTTagList"));
+		_nbtCompound_set = ReflectionUtilities.Minecraft.getType("NBTTagCompound").getDeclaredMethod("set", String.class, ReflectionUtilities.Minecraft.getType("NBTBase"));
+		_nmsItemStackToCraftbukkitItemStack = SubPackage.INVENTORY.getClass("CraftItemStack").getDeclaredMethod("asCraftMirror", 
+				ReflectionUtilities.Minecraft.getType("ItemStack"));
+		_nmsItemStack_tag = ReflectionUtilities.getFieldAccessor(ReflectionUtilities.Minecraft.getType("ItemStack"), "tag");
+	}
+
+	/**
+	 * Determines if the warm-up found that the reflective handles used by this implementation cannot be resolved, in which case resolving them again would fail as well.
+	 */
+	private static boolean isUnavailable(){
+		return ReflectionWarmup.getStatus(ReflectionWarmup.Feature.ITEM_GLOW) == ReflectionWarmup.Status.UNAVAILABLE;
+	}
+
+	/**
+	 * Resolves the reflective handles used by this implementation if they have not yet been resolved.
+	 */
+	private void resolve() throws Exception {
+		if(_nbtTagListConstructor == null || _nbtCompound_set == null || _nmsItemStackToCraftbukkitItemStack == null || _nmsItemStack_tag == null){
+			if(isUnavailable()){
+				throw new IllegalStateException("The reflective handles used to make items glow could not be resolved.", ReflectionWarmup.getResolution(ReflectionWarmup.Feature.ITEM_GLOW).getFailure());
+			}
+			warmUp();
+		}
+	}
+
 	@Override
 	public void init(Plugin plugin) {
-		try {
-			_nbtTagListConstructor = ReflectionUtilities.getConstructor(ReflectionUtilities.Minecraft.getType("NBTTagList"));
-			_nbtCompound_set = ReflectionUtilities.Minecraft.getType("NBTTagCompound").getDeclaredMethod("set", String.class, ReflectionUtilities.Minecraft.getType("NBTBase"));
-			_nmsItemStackToCraftbukkitItemStack = SubPackage.INVENTORY.getClass("CraftItemStack").getDeclaredMethod("asCraftMirror", 
-					ReflectionUtilities.Minecraft.getType("ItemStack"));
-			
-		} catch (Exception e) {
-			_nbtTagListConstructor = null;
-			_nbtCompound_set = null;
-			_nmsItemStackToCraftbukkitItemStack = null;
-			e.printStackTrace();
-		}
+		// Handles are resolved by the asynchronous warm-up, or lazily on first use, rather than on the main thread here
 	}
 
 	@Override
 	public ItemStack assureCraftItemStack(ItemStack stack) throws Exception {
 		Validate.notNull(stack);
+		resolve();
 		
 		Object nmsItemStack = ReflectionUtilities.CraftBukkit.getNMSHandle(stack); // Calls appropriate CraftItemStack methods
 
@@ -48,22 +74,29 @@ public class DefaultProtocolUtilityImplementation implements ProtocolUtilities {
 	}
 	
 	Object setGlowing(Object nmsStack, boolean glowing) throws Exception {
-		Object nmsStackDataTag = ReflectionUtilities.getValue(nmsStack, "tag");
+		resolve();
+		Object nmsStackDataTag = _nmsItemStack_tag.get(nmsStack);
 		if(nmsStackDataTag == null){
 			nmsStackDataTag = ReflectionUtilities.createInstance(ReflectionUtilities.Minecraft.getType("NBTTagCompound"));
 		}
 		Object enchList = glowing ? _nbtTagListConstructor.newInstance() : null;
 		_nbtCompound_set.invoke(nmsStackDataTag, "ench", enchList);
-		ReflectionUtilities.setValue(nmsStack, "tag", nmsStackDataTag);
+		_nmsItemStack_tag.set(nmsStack, nmsStackDataTag);
 		return nmsStack;
 		
 	}
 
 	@Override
 	public ProtocolOperationReturn<ItemStack> setGlowing(ItemStack stack, boolean glowing) {
-		if(_nbtTagListConstructor == null || _nbtCompound_set == null || _nmsItemStackToCraftbukkitItemStack == null){
+		if(isUnavailable()){
 			return new ProtocolOperationReturn<ItemStack>(ProtocolOperationResult.FAILURE);
 		}
+
+		try{
+			resolve();
+		}catch(Exception except){
+			return new ProtocolOperationReturn<ItemStack>(ProtocolOperationResult.FAILURE, except);
+		}
 		
 		if(stack == null){
 			return new ProtocolOperationReturn<ItemStack>(ProtocolOperationResult.FAILURE_INCORRECT_ARGUMENT_TYPE);
@@ -87,6 +120,7 @@ public class DefaultProtocolUtilityImplementation implements ProtocolUtilities {
 		_nbtTagListConstructor = null;
 		_nbtCompound_set = null;
 		_nmsItemStackToCraftbukkitItemStack = null;
+		_nmsItemStack_tag = null;
 	}
 
 }
@@ -0,0 +1,466 @@
+package me.pagekite.glen3b.library.bukkit.protocol;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+
+import me.pagekite.glen3b.library.bukkit.OnlinePlayerIndex;
+import me.pagekite.glen3b.library.bukkit.reflection.FieldAccessor;
+import me.pagekite.glen3b.library.bukkit.reflection.MethodInvoker;
+import me.pagekite.glen3b.library.bukkit.reflection.ReflectionUtilities;
+
+import org.apache.commons.lang.Validate;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.plugin.Plugin;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.MapMaker;
+import com.google.common.collect.Maps;
+import com.google.common.collect.SetMultimap;
+
+/**
+ * Intercepts the packets sent to and received from players without depending on a packet-processing library, by injecting a handler into the Netty pipeline of each player's connection.
+ * <p>
+ * Hooks are registered for a single packet class, inbound or outbound, and are kept in copy-on-write dispatch tables keyed by the exact class of the packet.
+ * A packet which has no hooks is passed on after a single lookup of its class, and no connection is injected at all until the first hook is registered.
+ * Hooks are called on the Netty event loop of the player's connection, off the main thread, so they must be thread-safe and must not use the parts of the Bukkit API which are not.
+ * Each hook is owned by the plugin which registered it, and is unregistered when that plugin is disabled.
+ * </p>
+ * <p>
+ * As the server shades Netty into a version-specific package, the handler is a dynamic proxy implementing the shaded handler interfaces, and all Netty types are resolved reflectively from the type of the channel of the {@code NetworkManager}.
+ * </p>
+ * @author Glen Husman
+ */
+public final class PacketInterceptor implements Listener {
+
+	private static final PacketInterceptor INSTANCE = new PacketInterceptor();
+
+	/**
+	 * Gets the packet interceptor instance.
+	 * @return The packet interceptor.
+	 */
+	public static PacketInterceptor getInstance(){
+		return INSTANCE;
+	}
+
+	private PacketInterceptor(){
+		// Singleton
+	}
+
+	/**
+	 * A hook which is called when a packet of a single type is sent to or received from a player.
+	 * @param <P> The type of packets handled by this hook.
+	 */
+	public static interface PacketHook<P>{
+		/**
+		 * Handles a packet. This method is called on the Netty event loop of the player's connection.
+		 * @param player The player who is sending or receiving the packet.
+		 * @param packet The NMS packet instance.
+		 * @return The packet to pass on, which may be {@code packet} itself or a replacement, or {@code null} to drop the packet.
+		 */
+		public Object onPacket(Player player, P packet);
+	}
+
+	/**
+	 * The name of the handler of the server within the pipeline, before which the interceptor is added so that it sees decoded packets.
+	 */
+	private static final String PACKET_HANDLER_NAME = "packet_handler";
+
+	/**
+	 * The name of the interceptor within the pipeline.
+	 */
+	private static final String INTERCEPTOR_NAME = "gbukkitcore_interceptor";
+
+	/**
+	 * The resolved handles of the server's networking internals and of its shaded Netty types.
+	 */
+	private static final class NettyHandles{
+		private final FieldAccessor<Object> _networkManager;
+		private final FieldAccessor<Object> _channel;
+		private final MethodInvoker _pipeline;
+		private final MethodInvoker _addBefore;
+		private final MethodInvoker _get;
+		private final MethodInvoker _remove;
+		private final MethodInvoker _trySuccess;
+		private final Constructor<?> _interceptorConstructor;
+		private final Method _channelRead;
+		private final Method _write;
+		// Handler method to the context method passing its event on to the next handler
+		private final Map<Method, MethodInvoker> _forwards;
+
+		public NettyHandles() throws Exception{
+			_networkManager = ReflectionUtilities.getFieldAccessor(ReflectionUtilities.Minecraft.getType("PlayerConnection"), "networkManager");
+
+			Class<?> managerType = ReflectionUtilities.Minecraft.getType("NetworkManager");
+			Field channelField = null;
+			for(Field field : managerType.getDeclaredFields()){
+				// The field is obfuscated, so it is located by type
+				if(field.getType().getName().endsWith(".netty.channel.Channel")){
+					channelField = field;
+					break;
+				}
+			}
+			if(channelField == null){
+				throw new NoSuchFieldException("The NetworkManager type does not have a Netty channel.");
+			}
+			_channel = ReflectionUtilities.getFieldAccessor(managerType, channelField.getName());
+
+			Class<?> channelType = channelField.getType();
+			String nettyPackage = channelType.getName().substring(0, channelType.getName().lastIndexOf('.'));
+			ClassLoader loader = channelType.getClassLoader();
+			Class<?> handlerType = Class.forName(nettyPackage + ".ChannelHandler", true, loader);
+			Class<?> inboundType = Class.forName(nettyPackage + ".ChannelInboundHandler", true, loader);
+			Class<?> outboundType = Class.forName(nettyPackage + ".ChannelOutboundHandler", true, loader);
+			Class<?> contextType = Class.forName(nettyPackage + ".ChannelHandlerContext", true, loader);
+			Class<?> pipelineType = Class.forName(nettyPackage + ".ChannelPipeline", true, loader);
+			Class<?> promiseType = Class.forName(nettyPackage + ".ChannelPromise", true, loader);
+
+			_pipeline = ReflectionUtilities.getMethodInvoker(channelType, "pipeline");
+			_addBefore = ReflectionUtilities.getMethodInvoker(pipelineType, "addBefore", String.class, String.class, handlerType);
+			_get = ReflectionUtilities.getMethodInvoker(pipelineType, "get", String.class);
+			_remove = ReflectionUtilities.getMethodInvoker(pipelineType, "remove", String.class);
+			_trySuccess = ReflectionUtilities.getMethodInvoker(promiseType, "trySuccess");
+			_interceptorConstructor = Proxy.getProxyClass(loader, inboundType, outboundType).getConstructor(InvocationHandler.class);
+			_channelRead = inboundType.getMethod("channelRead", contextType, Object.class);
+			_write = outboundType.getMethod("write", contextType, Object.class, promiseType);
+
+			Map<Method, MethodInvoker> forwards = Maps.newHashMap();
+			for(Class<?> type : new Class<?>[] { inboundType, outboundType }){
+				for(Method method : type.getMethods()){
+					if(method.getName().equals("handlerAdded") || method.getName().equals("handlerRemoved")){
+						// Lifecycle notifications of this handler, which are not passed on
+						continue;
+					}
+
+					// Outbound operations are passed on by the context method of the same name, inbound events by the corresponding fire method
+					String forwardName = method.getDeclaringClass() == outboundType ? method.getName()
+							: "fire" + Character.toUpperCase(method.getName().charAt(0)) + method.getName().substring(1);
+					Class<?>[] params = method.getParameterTypes();
+					forwards.put(method, ReflectionUtilities.getMethodInvoker(contextType, forwardName, Arrays.copyOfRange(params, 1, params.length)));
+				}
+			}
+			_forwards = ImmutableMap.copyOf(forwards);
+		}
+
+		public Object getPipeline(Player player) throws Exception{
+			Object connection = ReflectionUtilities.CraftBukkit.getPlayerConnection(player);
+			return _pipeline.invoke(_channel.get(_networkManager.get(connection)));
+		}
+	}
+
+	/**
+	 * The invocation handler of the interceptor injected into the pipeline of a single player.
+	 */
+	private final class ChannelInterceptor implements InvocationHandler{
+		private final Player _player;
+		private final NettyHandles _handles;
+
+		public ChannelInterceptor(Player player, NettyHandles handles){
+			_player = player;
+			_handles = handles;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			if(method.getDeclaringClass() == Object.class){
+				if(method.getName().equals("equals")){
+					return proxy == args[0];
+				}else if(method.getName().equals("hashCode")){
+					return System.identityHashCode(proxy);
+				}
+				return "PacketInterceptor[" + _player.getName() + "]";
+			}
+
+			if(method.equals(_handles._channelRead)){
+				Object packet = dispatch(_inbound, _player, args[1]);
+				if(packet == null){
+					return null;
+				}
+				args[1] = packet;
+			}else if(method.equals(_handles._write)){
+				Object packet = dispatch(_outbound, _player, args[1]);
+				if(packet == null){
+					// Complete the write, as listeners of the dropped packet would otherwise never be notified
+					_handles._trySuccess.invoke(args[2]);
+					return null;
+				}
+				args[1] = packet;
+			}
+
+			MethodInvoker forward = _handles._forwards.get(method);
+			if(forward == null){
+				return null;
+			}
+			try{
+				return forward.invoke(args[0], Arrays.copyOfRange(args, 1, args.length));
+			}catch(InvocationTargetException except){
+				throw except.getCause();
+			}
+		}
+	}
+
+	// Either the resolved handles or the exception thrown while resolving them
+	private volatile Object _handles;
+
+	// Copy-on-write dispatch tables, keyed by exact packet class
+	private volatile Map<Class<?>, PacketHook<?>[]> _inbound = ImmutableMap.of();
+	private volatile Map<Class<?>, PacketHook<?>[]> _outbound = ImmutableMap.of();
+
+	// Set once the first hook is registered, after which connections are injected
+	private volatile boolean _active = false;
+
+	// The plugins which registered each hook, guarded by this
+	private final SetMultimap<Plugin, PacketHook<?>> _owners = HashMultimap.create();
+
+	// The pipelines of injected players, guarded by this
+	private final ConcurrentMap<Player, Object> _pipelines = new MapMaker().weakKeys().weakValues().makeMap();
+
+	@SuppressWarnings("unchecked")
+	private static Object dispatch(Map<Class<?>, PacketHook<?>[]> table, Player player, Object packet){
+		PacketHook<?>[] hooks = table.get(packet.getClass());
+		if(hooks == null){
+			return packet;
+		}
+
+		for(PacketHook<?> hook : hooks){
+			try{
+				packet = ((PacketHook<Object>) hook).onPacket(player, packet);
+			}catch(Throwable except){
+				Bukkit.getLogger().log(Level.WARNING, "A packet hook threw an exception while handling a packet of " + player.getName() + ".", except);
+			}
+			if(packet == null){
+				return null;
+			}
+		}
+		return packet;
+	}
+
+	private NettyHandles getHandles(){
+		Object handles = _handles;
+		if(handles == null){
+			try{
+				handles = new NettyHandles();
+			}catch(Exception except){
+				handles = except;
+			}
+			_handles = handles;
+		}
+
+		if(!(handles instanceof NettyHandles)){
+			throw new IllegalStateException("Packet interception is not supported by this server version.", (Throwable) handles);
+		}
+		return (NettyHandles) handles;
+	}
+
+	/**
+	 * Resolves the reflective handles used to inject the interceptor, which are otherwise resolved when the first hook is registered.
+	 * @throws IllegalStateException If packet interception is not supported by this server version.
+	 */
+	public void warmUp(){
+		getHandles();
+	}
+
+	/**
+	 * Determines if packet interception is supported by this server version, resolving the reflective handles used to inject the interceptor if this has not yet been done.
+	 * @return Whether hooks may be registered.
+	 */
+	public boolean isSupported(){
+		try{
+			getHandles();
+			return true;
+		}catch(IllegalStateException except){
+			return false;
+		}
+	}
+
+	/**
+	 * Registers a hook which is called when a player sends a packet of the specified type to the server.
+	 * The hook is unregistered automatically when the plugin which registered it is disabled.
+	 * @param plugin The plugin registering the hook.
+	 * @param packetType The exact class of the NMS packets, as packets are dispatched without considering their superclasses.
+	 * @param hook The hook.
+	 * @throws IllegalStateException If packet interception is not supported by this server version.
+	 */
+	public synchronized <P> void addInboundHook(Plugin plugin, Class<P> packetType, PacketHook<? super P> hook){
+		Validate.notNull(plugin, "The plugin must not be null.");
+
+		_inbound = withHook(_inbound, packetType, hook);
+		_owners.put(plugin, hook);
+		activate();
+	}
+
+	/**
+	 * Registers a hook which is called when the server sends a packet of the specified type to a player.
+	 * The hook is unregistered automatically when the plugin which registered it is disabled.
+	 * @param plugin The plugin registering the hook.
+	 * @param packetType The exact class of the NMS packets, as packets are dispatched without considering their superclasses.
+	 * @param hook The hook.
+	 * @throws IllegalStateException If packet interception is not supported by this server version.
+	 */
+	public synchronized <P> void addOutboundHook(Plugin plugin, Class<P> packetType, PacketHook<? super P> hook){
+		Validate.notNull(plugin, "The plugin must not be null.");
+
+		_outbound = withHook(_outbound, packetType, hook);
+		_owners.put(plugin, hook);
+		activate();
+	}
+
+	/**
+	 * Unregisters a hook from all packet types and directions for which it is registered.
+	 * @param hook The hook.
+	 * @return Whether the hook was registered.
+	 */
+	public synchronized boolean removeHook(PacketHook<?> hook){
+		Validate.notNull(hook, "The hook must not be null.");
+
+		Map<Class<?>, PacketHook<?>[]> inbound = withoutHook(_inbound, hook);
+		Map<Class<?>, PacketHook<?>[]> outbound = withoutHook(_outbound, hook);
+		boolean removed = inbound != _inbound || outbound != _outbound;
+		_inbound = inbound;
+		_outbound = outbound;
+		_owners.values().remove(hook);
+		return removed;
+	}
+
+	/**
+	 * Unregisters all hooks registered by a plugin.
+	 * @param plugin The plugin.
+	 */
+	public synchronized void removeHooks(Plugin plugin){
+		Validate.notNull(plugin, "The plugin must not be null.");
+
+		for(PacketHook<?> hook : _owners.removeAll(plugin)){
+			_inbound = withoutHook(_inbound, hook);
+			_outbound = withoutHook(_outbound, hook);
+		}
+	}
+
+	private Map<Class<?>, PacketHook<?>[]> withHook(Map<Class<?>, PacketHook<?>[]> table, Class<?> packetType, PacketHook<?> hook){
+		Validate.notNull(packetType, "The packet type must not be null.");
+		Validate.notNull(hook, "The hook must not be null.");
+		Validate.isTrue(!packetType.isInterface() && !Modifier.isAbstract(packetType.getModifiers()), "The packet type must be a concrete class.");
+		getHandles();
+
+		Map<Class<?>, PacketHook<?>[]> updated = Maps.newHashMap(table);
+		PacketHook<?>[] hooks = table.get(packetType);
+		if(hooks == null){
+			hooks = new PacketHook<?>[] { hook };
+		}else{
+			hooks = Arrays.copyOf(hooks, hooks.length + 1);
+			hooks[hooks.length - 1] = hook;
+		}
+		updated.put(packetType, hooks);
+		return ImmutableMap.copyOf(updated);
+	}
+
+	private static Map<Class<?>, PacketHook<?>[]> withoutHook(Map<Class<?>, PacketHook<?>[]> table, PacketHook<?> hook){
+		Map<Class<?>, PacketHook<?>[]> updated = Maps.newHashMap();
+		boolean removed = false;
+		for(Map.Entry<Class<?>, PacketHook<?>[]> entry : table.entrySet()){
+			PacketHook<?>[] hooks = entry.getValue();
+			PacketHook<?>[] remaining = new PacketHook<?>[hooks.length];
+			int count = 0;
+			for(PacketHook<?> registered : hooks){
+				if(registered != hook){
+					remaining[count++] = registered;
+				}
+			}
+			removed |= count != hooks.length;
+			if(count != 0){
+				updated.put(entry.getKey(), count == hooks.length ? hooks : Arrays.copyOf(remaining, count));
+			}
+		}
+		return removed ? ImmutableMap.copyOf(updated) : table;
+	}
+
+	private void activate(){
+		if(!_active){
+			_active = true;
+			// The online player index may be read from any thread
+			for(Player player : OnlinePlayerIndex.getInstance().getPlayers()){
+				inject(player);
+			}
+		}
+	}
+
+	private synchronized void inject(Player player){
+		if(_pipelines.containsKey(player)){
+			return;
+		}
+
+		try{
+			NettyHandles handles = getHandles();
+			Object pipeline = handles.getPipeline(player);
+			if(handles._get.invoke(pipeline, INTERCEPTOR_NAME) == null){
+				handles._addBefore.invoke(pipeline, PACKET_HANDLER_NAME, INTERCEPTOR_NAME, handles._interceptorConstructor.newInstance(new ChannelInterceptor(player, handles)));
+			}
+			_pipelines.put(player, pipeline);
+		}catch(Exception except){
+			Bukkit.getLogger().log(Level.WARNING, "The connection of " + player.getName() + " could not be intercepted.", except);
+		}
+	}
+
+	private synchronized void uninject(Player player){
+		Object pipeline = _pipelines.remove(player);
+		if(pipeline == null){
+			return;
+		}
+
+		try{
+			NettyHandles handles = getHandles();
+			if(handles._get.invoke(pipeline, INTERCEPTOR_NAME) != null){
+				handles._remove.invoke(pipeline, INTERCEPTOR_NAME);
+			}
+		}catch(Exception except){
+			Bukkit.getLogger().log(Level.FINE, "The interceptor could not be removed from the connection of " + player.getName() + ".", except);
+		}
+	}
+
+	/**
+	 * Removes the interceptor from all connections and unregisters all hooks. Internal method, not meant to be called by user code.
+	 */
+	public synchronized void cleanup(){
+		for(Player player : _pipelines.keySet()){
+			uninject(player);
+		}
+		_inbound = ImmutableMap.of();
+		_outbound = ImmutableMap.of();
+		_owners.clear();
+		_active = false;
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onPlayerJoin(PlayerJoinEvent event){
+		if(_active){
+			inject(event.getPlayer());
+		}
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onPlayerQuit(PlayerQuitEvent event){
+		uninject(event.getPlayer());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onPluginDisable(PluginDisableEvent event){
+		// Hooks would otherwise keep running with the classes of the plugin, and keep them loaded across reloads
+		removeHooks(event.getPlugin());
+	}
+
+}
@@ -0,0 +1,241 @@
+package me.pagekite.glen3b.library.bukkit.reflection;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.security.CodeSource;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.logging.Level;
+
+import org.apache.commons.lang.Validate;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * An index of the names of the NMS and OBC classes within the server jar.
+ * <p>
+ * The index is built by scanning the entries of the server jar on an asynchronous task when GBukkitCore is enabled, without loading any class.
+ * Once it is {@linkplain #isReady() ready}, determining whether a class exists is a pair of hash lookups, so {@link PackageClassSource#getClass(String)} fails immediately for classes which do not exist instead of searching the class path.
+ * The index also supports case-insensitive lookup within a package, lookup by simple name across all packages, and bulk preloading of classes.
+ * Until the index is ready, or if the server jar cannot be scanned, every class is assumed to possibly exist.
+ * </p>
+ * @author Glen Husman
+ */
+public final class ClassIndex {
+
+	private ClassIndex(){
+		// Static class
+	}
+
+	private static final String[] INDEXED_PACKAGES = { "net/minecraft/server/", "org/bukkit/craftbukkit/" };
+
+	/**
+	 * An immutable snapshot of the index.
+	 */
+	private static final class Snapshot{
+		// Package name to lowercase simple name to simple name
+		private final Map<String, Map<String, String>> _byPackage;
+		// Lowercase simple name to fully qualified names
+		private final ImmutableListMultimap<String, String> _bySimpleName;
+		private final int _size;
+
+		public Snapshot(Map<String, Map<String, String>> byPackage, ImmutableListMultimap<String, String> bySimpleName){
+			ImmutableMap.Builder<String, Map<String, String>> packages = ImmutableMap.builder();
+			for(Map.Entry<String, Map<String, String>> pkg : byPackage.entrySet()){
+				packages.put(pkg.getKey(), ImmutableMap.copyOf(pkg.getValue()));
+			}
+			_byPackage = packages.build();
+			_bySimpleName = bySimpleName;
+			_size = bySimpleName.size();
+		}
+	}
+
+	/**
+	 * Scans the server jar and publishes the resulting index.
+	 */
+	private static final class Scanner implements Runnable{
+		private final File _jar;
+
+		public Scanner(File jar){
+			_jar = jar;
+		}
+
+		@Override
+		public void run() {
+			long start = System.nanoTime();
+			try{
+				Snapshot index = scan(_jar);
+				_index = index;
+				Bukkit.getLogger().log(Level.FINE, "Indexed " + index._size + " server classes in " + ((System.nanoTime() - start) / 1000000) + "ms.");
+			}catch(IOException except){
+				Bukkit.getLogger().log(Level.WARNING, "The server jar " + _jar.getPath() + " could not be indexed.", except);
+			}
+		}
+	}
+
+	private static volatile Snapshot _index;
+
+	private static Snapshot scan(File jar) throws IOException{
+		Map<String, Map<String, String>> byPackage = Maps.newHashMap();
+		ImmutableListMultimap.Builder<String, String> bySimpleName = ImmutableListMultimap.builder();
+
+		JarFile file = new JarFile(jar);
+		try{
+			Enumeration<JarEntry> entries = file.entries();
+			while(entries.hasMoreElements()){
+				String path = entries.nextElement().getName();
+				if(!path.endsWith(".class") || !isIndexed(path)){
+					continue;
+				}
+
+				int separator = path.lastIndexOf('/');
+				String pkg = path.substring(0, separator).replace('/', '.');
+				String simpleName = path.substring(separator + 1, path.length() - ".class".length());
+
+				Map<String, String> classes = byPackage.get(pkg);
+				if(classes == null){
+					classes = Maps.newHashMap();
+					byPackage.put(pkg, classes);
+				}
+				classes.put(simpleName.toLowerCase(), simpleName);
+				bySimpleName.put(simpleName.toLowerCase(), pkg + '.' + simpleName);
+			}
+		}finally{
+			file.close();
+		}
+
+		return new Snapshot(byPackage, bySimpleName.build());
+	}
+
+	private static boolean isIndexed(String path){
+		for(String pkg : INDEXED_PACKAGES){
+			if(path.startsWith(pkg)){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Begins indexing the server jar on an asynchronous task. Internal method, not meant to be called by user code.
+	 * @param host The GBukkitCore plugin instance.
+	 */
+	public static void build(Plugin host){
+		Validate.notNull(host, "The host plugin must not be null.");
+
+		_index = null;
+
+		File jar = null;
+		try{
+			CodeSource source = Bukkit.getServer().getClass().getProtectionDomain().getCodeSource();
+			URL location = source == null ? null : source.getLocation();
+			jar = location == null ? null : new File(location.toURI());
+		}catch(URISyntaxException except){
+			jar = null;
+		}catch(SecurityException except){
+			jar = null;
+		}catch(IllegalArgumentException except){
+			// The location is not a local file, such as a non-hierarchical URI or a URI with an authority component
+			jar = null;
+		}
+
+		if(jar == null || !jar.isFile()){
+			Bukkit.getLogger().log(Level.FINE, "The server jar could not be located, so server classes will not be indexed.");
+			return;
+		}
+
+		Bukkit.getScheduler().runTaskAsynchronously(host, new Scanner(jar));
+	}
+
+	/**
+	 * Discards the index. Internal method, not meant to be called by user code.
+	 */
+	public static void clear(){
+		_index = null;
+	}
+
+	/**
+	 * Determines if the index has been built.
+	 * @return Whether the server jar has been indexed.
+	 */
+	public static boolean isReady(){
+		return _index != null;
+	}
+
+	/**
+	 * Determines if a class may exist without loading it. This method never blocks.
+	 * @param source The package containing the class.
+	 * @param className The case-sensitive simple name of the class.
+	 * @return {@code false} if the index is ready and does not contain the class, otherwise {@code true}.
+	 */
+	public static boolean mayContain(PackageClassSource source, String className){
+		Snapshot index = _index;
+		if(index == null || className == null){
+			return true;
+		}
+
+		// Compare qualified names, as a package may contain classes whose names differ only in case
+		return index._bySimpleName.get(className.toLowerCase()).contains(source.getPackage() + '.' + className);
+	}
+
+	/**
+	 * Finds the name of a class within a package, ignoring case.
+	 * @param source The package containing the class.
+	 * @param className The simple name of the class, in any case.
+	 * @return The case-sensitive simple name of the class, or {@code null} if the class does not exist or the index is not ready.
+	 */
+	public static String getExactName(PackageClassSource source, String className){
+		Validate.notNull(source, "The package must not be null.");
+		Validate.notNull(className, "The class name must not be null.");
+
+		Snapshot index = _index;
+		Map<String, String> classes = index == null ? null : index._byPackage.get(source.getPackage());
+		return classes == null ? null : classes.get(className.trim().toLowerCase());
+	}
+
+	/**
+	 * Finds all indexed classes with a simple name, ignoring case, regardless of package.
+	 * @param simpleName The simple name of the classes, in any case.
+	 * @return The fully qualified names of the classes, which is empty if none exist or the index is not ready.
+	 */
+	public static List<String> getQualifiedNames(String simpleName){
+		Validate.notNull(simpleName, "The class name must not be null.");
+
+		Snapshot index = _index;
+		return index == null ? ImmutableList.<String>of() : index._bySimpleName.get(simpleName.trim().toLowerCase());
+	}
+
+	/**
+	 * Loads a group of classes within a package, so that later lookups of them are cache hits. Classes which do not exist are skipped without throwing an exception.
+	 * This method may be called from any thread, and is best called from an asynchronous task when a plugin is enabled.
+	 * @param source The package containing the classes.
+	 * @param classNames The case-sensitive simple names of the classes.
+	 * @return The names of the classes which could not be loaded.
+	 */
+	public static List<String> preload(PackageClassSource source, String... classNames){
+		Validate.notNull(source, "The package must not be null.");
+		Validate.noNullElements(classNames, "There must not be a null class name.");
+
+		List<String> missing = Lists.newArrayList();
+		for(String className : classNames){
+			try{
+				source.getClass(className);
+			}catch(ClassNotFoundException except){
+				missing.add(className);
+			}
+		}
+		return missing;
+	}
+
+}
@@ -0,0 +1,87 @@
+package me.pagekite.glen3b.library.bukkit.reflection;
+
+import java.lang.reflect.Field;
+
+import org.apache.commons.lang.Validate;
+
+/**
+ * Reads and writes a single field, which has been located and made accessible once.
+ * Accessors are obtained from {@link ReflectionUtilities#getFieldAccessor(Class, String, Class)}, which caches them, so they may be kept by callers on reflective hot paths without repeating the lookup.
+ * <p>
+ * Instances may be shared by any number of threads.
+ * @param <T> The type of value held by the field. Primitive fields are accessed through their wrapper type.
+ * @author Glen Husman
+ */
+public final class FieldAccessor<T> {
+
+	private final Field _field;
+
+	FieldAccessor(Field field){
+		_field = field;
+	}
+
+	/**
+	 * Gets the field accessed by this accessor.
+	 * @return The accessible field.
+	 */
+	public Field getField(){
+		return _field;
+	}
+
+	/**
+	 * Gets the value of the field.
+	 * @param instance The object holding the field, or {@code null} if the field is static.
+	 * @return The value of the field.
+	 * @throws IllegalArgumentException If {@code instance} is not an instance of the class declaring the field.
+	 * @throws ClassCastException If the value of the field is not of type {@code T}.
+	 */
+	@SuppressWarnings("unchecked")
+	public T get(Object instance){
+		try{
+			return (T) _field.get(instance);
+		}catch(IllegalAccessException except){
+			// The field was made accessible when it was located
+			throw new IllegalStateException("The field " + _field + " is not accessible.", except);
+		}
+	}
+
+	/**
+	 * Sets the value of the field.
+	 * @param instance The object holding the field, or {@code null} if the field is static.
+	 * @param value The new value of the field.
+	 * @throws IllegalArgumentException If {@code instance} is not an instance of the class declaring the field, or {@code value} cannot be assigned to the field.
+	 * @throws IllegalStateException If the field cannot be written, such as if it is static and final.
+	 */
+	public void set(Object instance, T value){
+		try{
+			_field.set(instance, value);
+		}catch(IllegalAccessException except){
+			throw new IllegalStateException("The field " + _field + " cannot be written.", except);
+		}
+	}
+
+	/**
+	 * Creates an accessor of the same field with a more specific value type.
+	 * @param type The type of value held by the field.
+	 * @return An accessor of the field.
+	 * @throws IllegalArgumentException If the field cannot hold values of type {@code type}.
+	 */
+	@SuppressWarnings("unchecked")
+	public <V> FieldAccessor<V> as(Class<V> type){
+		Validate.notNull(type, "The value type must not be null.");
+
+		Class<?> fieldType = _field.getType();
+		if(fieldType.isPrimitive()){
+			fieldType = PrimitiveType.getPrimitiveType(fieldType).getWrapper();
+		}
+		Validate.isTrue(type.isAssignableFrom(fieldType) || fieldType.isAssignableFrom(type), "The field " + _field + " cannot hold values of type " + type.getName() + ".");
+
+		return (FieldAccessor<V>) this;
+	}
+
+	@Override
+	public String toString(){
+		return "FieldAccessor[" + _field + "]";
+	}
+
+}
@@ -1,11 +1,9 @@
 package me.pagekite.glen3b.library.bukkit.reflection;
 
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Map;
 
 import org.apache.commons.lang.ClassUtils;
-import org.apache.commons.lang.Validate;
 import org.bukkit.Bukkit;
 
 import com.google.common.collect.Maps;
@@ -33,8 +31,6 @@ public enum InternalPackage implements PackageClassSource{
 	}
 
 	private InternalPackage(String pkg){
-		loadedClasses = Maps.newHashMap();
-		_cachedClassView = Collections.unmodifiableCollection(loadedClasses.values());
 	}
 
 	void initPackageName(){
@@ -66,46 +62,15 @@ public enum InternalPackage implements PackageClassSource{
 	}
 
 	@Override
-	public synchronized Class<?> getClass(String className) throws ClassNotFoundException {
-		Validate.notEmpty(className, "The class name must be specified.");
-
-		String cName = className.trim();
-		String fqcName = getPackage() + ClassUtils.PACKAGE_SEPARATOR + cName;
-
-		Class<?> retVal = null;
-		Exception errCause = null;
-
-		if(loadedClasses.containsKey(cName)){
-			retVal = loadedClasses.get(cName);
-
-			if(retVal == null){
-				errCause = new NullPointerException("The cached Class instance representing " + fqcName + " is null.");
-			}
-		}else{
-			try{
-				retVal = Class.forName(fqcName);
-			}catch(ClassNotFoundException except){
-				// Will rethrow later
-				errCause = except;
-				retVal = null;
-			}
-
-			loadedClasses.put(cName, retVal);
-		}
-
-		if(retVal == null){
-			throw new ClassNotFoundException(fqcName + " does not exist.", errCause);
-		}
-
-		return retVal;
+	public Class<?> getClass(String className) throws ClassNotFoundException {
+		return loadedClasses.getClass(this, className);
 	}
 
-	Map<String, Class<?>> loadedClasses; // Package-private to allow for resetCache to work
-	private Collection<Class<?>> _cachedClassView;
+	final PackageClassCache loadedClasses = new PackageClassCache(); // Package-private to allow for resetCache to work
 
 	@Override
 	public Collection<Class<?>> getCachedClasses() {
-		return _cachedClassView;
+		return loadedClasses.getCachedClasses();
 	}
 
 	/**
@@ -200,8 +165,6 @@ public enum InternalPackage implements PackageClassSource{
 
 		private SubPackage(String name){
 			_name = name;
-			loadedClasses = Maps.newHashMap();
-			_cachedClassView = Collections.unmodifiableCollection(loadedClasses.values());
 		}
 
 		/**
@@ -240,46 +203,15 @@ public enum InternalPackage implements PackageClassSource{
 		}
 
 		@Override
-		public synchronized Class<?> getClass(String className) throws ClassNotFoundException {
-			Validate.notEmpty(className, "The class name must be specified.");
-
-			String cName = className.trim();
-			String fqcName = getPackage() + ClassUtils.PACKAGE_SEPARATOR + cName;
-
-			Class<?> retVal = null;
-			Exception errCause = null;
-
-			if(loadedClasses.containsKey(cName)){
-				retVal = loadedClasses.get(cName);
-
-				if(retVal == null){
-					errCause = new NullPointerException("The cached Class instance representing " + fqcName + " is null.");
-				}
-			}else{
-				try{
-					retVal = Class.forName(fqcName);
-				}catch(ClassNotFoundException except){
-					// Will rethrow later
-					errCause = except;
-					retVal = null;
-				}
-
-				loadedClasses.put(cName, retVal);
-			}
-
-			if(retVal == null){
-				throw new ClassNotFoundException(fqcName + " does not exist.", errCause);
-			}
-
-			return retVal;
+		public Class<?> getClass(String className) throws ClassNotFoundException {
+			return loadedClasses.getClass(this, className);
 		}
 
-		Map<String, Class<?>> loadedClasses; // Package-private to allow for resetCache to work
-		private Collection<Class<?>> _cachedClassView;
+		final PackageClassCache loadedClasses = new PackageClassCache(); // Package-private to allow for resetCache to work
 
 		@Override
 		public Collection<Class<?>> getCachedClasses() {
-			return _cachedClassView;
+			return loadedClasses.getCachedClasses();
 		}
 	}
 }
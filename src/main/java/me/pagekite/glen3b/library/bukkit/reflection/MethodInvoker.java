@@ -0,0 +1,51 @@
+package me.pagekite.glen3b.library.bukkit.reflection;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Invokes a single method, which has been located and made accessible once.
+ * Invokers are obtained from {@link ReflectionUtilities#getMethodInvoker(Class, String, Class...)}, which caches them, so they may be kept by callers on reflective hot paths without repeating the lookup.
+ * <p>
+ * Instances may be shared by any number of threads.
+ * @author Glen Husman
+ */
+public final class MethodInvoker {
+
+	private final Method _method;
+
+	MethodInvoker(Method method){
+		_method = method;
+	}
+
+	/**
+	 * Gets the method invoked by this invoker.
+	 * @return The accessible method.
+	 */
+	public Method getMethod(){
+		return _method;
+	}
+
+	/**
+	 * Invokes the method.
+	 * @param target The object upon which to invoke the method, or {@code null} if the method is static.
+	 * @param args The arguments to pass to the method.
+	 * @return The value returned by the method, or {@code null} if it does not return a value.
+	 * @throws InvocationTargetException If the method throws an exception.
+	 * @throws IllegalArgumentException If {@code target} does not declare the method, or the arguments are not accepted by the method.
+	 */
+	public Object invoke(Object target, Object... args) throws InvocationTargetException{
+		try{
+			return _method.invoke(target, args);
+		}catch(IllegalAccessException except){
+			// The method was made accessible when it was located
+			throw new IllegalStateException("The method " + _method + " is not accessible.", except);
+		}
+	}
+
+	@Override
+	public String toString(){
+		return "MethodInvoker[" + _method + "]";
+	}
+
+}
@@ -0,0 +1,81 @@
+package me.pagekite.glen3b.library.bukkit.reflection;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.lang.ClassUtils;
+import org.apache.commons.lang.Validate;
+
+/**
+ * The classes loaded from a {@link PackageClassSource}, keyed by simple name.
+ * Lookups are lock-free, so cached classes may be read by any number of threads without contention. Classes which do not exist are cached as well, so a missing class is only searched for once, and not at all if the {@link ClassIndex} shows it does not exist.
+ * @author Glen Husman
+ */
+final class PackageClassCache {
+
+	private final ConcurrentMap<String, Class<?>> _loadedClasses = new ConcurrentHashMap<String, Class<?>>(16, 0.75f, 2);
+	private final ConcurrentMap<String, ClassNotFoundException> _missingClasses = new ConcurrentHashMap<String, ClassNotFoundException>(4, 0.75f, 2);
+	private final Collection<Class<?>> _cachedClassView = Collections.unmodifiableCollection(_loadedClasses.values());
+
+	/**
+	 * Gets a class within a package, loading it if it has not been cached.
+	 * @param source The package containing the class.
+	 * @param className The case-sensitive name of the class.
+	 * @return The class.
+	 * @throws ClassNotFoundException If the class does not exist.
+	 */
+	public Class<?> getClass(PackageClassSource source, String className) throws ClassNotFoundException{
+		Validate.notEmpty(className, "The class name must be specified.");
+
+		String cName = className.trim();
+		long start = ReflectionMetrics.start();
+		Class<?> retVal = _loadedClasses.get(cName);
+		if(retVal != null){
+			ReflectionMetrics.CLASSES.record(start, true);
+			return retVal;
+		}
+
+		String fqcName = source.getPackage() + ClassUtils.PACKAGE_SEPARATOR + cName;
+		ClassNotFoundException errCause = _missingClasses.get(cName);
+		boolean hit = errCause != null;
+		if(errCause == null && !ClassIndex.mayContain(source, cName)){
+			// The server jar does not contain the class, so there is no need to search for it
+			errCause = new ClassNotFoundException(fqcName + " is not in the server class index.");
+			_missingClasses.put(cName, errCause);
+		}else if(errCause == null){
+			try{
+				// Concurrent loads of the same class resolve to the same instance, so the race is benign
+				retVal = Class.forName(fqcName);
+				_loadedClasses.put(cName, retVal);
+				ReflectionMetrics.CLASSES.record(start, false);
+				return retVal;
+			}catch(ClassNotFoundException except){
+				// Will rethrow later
+				errCause = except;
+				_missingClasses.put(cName, except);
+			}
+		}
+
+		ReflectionMetrics.CLASSES.record(start, hit);
+		throw new ClassNotFoundException(fqcName + " does not exist.", errCause);
+	}
+
+	/**
+	 * Gets an unmodifiable, live view of the cached classes.
+	 * @return The cached classes.
+	 */
+	public Collection<Class<?>> getCachedClasses(){
+		return _cachedClassView;
+	}
+
+	/**
+	 * Removes all classes, and all records of missing classes, from this cache.
+	 */
+	public void clear(){
+		_loadedClasses.clear();
+		_missingClasses.clear();
+	}
+
+}
@@ -0,0 +1,355 @@
+package me.pagekite.glen3b.library.bukkit.reflection;
+
+import java.lang.reflect.Constructor;
+import java.util.Collection;
+
+import org.apache.commons.lang.Validate;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.bukkit.material.MaterialData;
+
+/**
+ * A registry of NMS packet types, constructed through typed builders.
+ * <p>
+ * The constructors and fields of each packet type are resolved once per server version, on the first request for a builder of that type, and are then shared by all builders.
+ * Building a packet therefore fills pre-resolved slots without any reflective lookup, and the version-specific layout of each packet is handled only within this class.
+ * If the handles of a packet type cannot be resolved, the failure is cached, and every request for a builder of that type throws an {@link IllegalStateException} without repeating the lookup.
+ * </p>
+ * @author Glen Husman
+ */
+public final class PacketFactory {
+
+	private PacketFactory(){
+		// Static class
+	}
+
+	/**
+	 * A builder of packets of a single type. Builders may be reused to build any number of packets, but may not be shared between threads.
+	 */
+	public static abstract class Builder{
+
+		Builder(){
+			// Subclassed only within this class
+		}
+
+		/**
+		 * Creates a packet from the current values of this builder.
+		 * @return The NMS packet instance.
+		 * @throws RuntimeException If the packet cannot be instantiated.
+		 */
+		public abstract Object build();
+
+		/**
+		 * Creates a packet from the current values of this builder and sends it to a player.
+		 * @param player The player who will receive the packet.
+		 * @see ReflectionUtilities.CraftBukkit#sendPacket(Player, Object)
+		 */
+		public void send(Player player){
+			ReflectionUtilities.CraftBukkit.sendPacket(player, build());
+		}
+
+		/**
+		 * Creates a single packet from the current values of this builder and sends it to a group of players.
+		 * @param players The players who will receive the packet.
+		 * @see ReflectionUtilities.CraftBukkit#sendPacket(Collection, Object)
+		 */
+		public void send(Collection<? extends Player> players){
+			ReflectionUtilities.CraftBukkit.sendPacket(players, build());
+		}
+	}
+
+	/**
+	 * A builder of {@code PacketPlayOutWorldParticles} packets, which display particle effects.
+	 */
+	public static final class ParticlePacketBuilder extends Builder{
+		private final ParticleHandles _handles;
+		private String _name;
+		private float _x, _y, _z;
+		private float _offsetX, _offsetY, _offsetZ;
+		private float _speed;
+		private int _amount = 1;
+
+		private ParticlePacketBuilder(ParticleHandles handles){
+			_handles = handles;
+		}
+
+		/**
+		 * Sets the protocol name of the particle effect.
+		 * @param name The name of the particle effect.
+		 * @return This builder.
+		 */
+		public ParticlePacketBuilder name(String name){
+			_name = name;
+			return this;
+		}
+
+		/**
+		 * Sets the center location of the particle effect.
+		 * @param center The center location.
+		 * @return This builder.
+		 */
+		public ParticlePacketBuilder location(Location center){
+			Validate.notNull(center, "The center location must not be null.");
+
+			return location((float) center.getX(), (float) center.getY(), (float) center.getZ());
+		}
+
+		/**
+		 * Sets the center location of the particle effect.
+		 * @param x The X coordinate of the center.
+		 * @param y The Y coordinate of the center.
+		 * @param z The Z coordinate of the center.
+		 * @return This builder.
+		 */
+		public ParticlePacketBuilder location(float x, float y, float z){
+			_x = x;
+			_y = y;
+			_z = z;
+			return this;
+		}
+
+		/**
+		 * Sets the maximum distance particles can fly away from the center on each axis.
+		 * @param offsetX The maximum distance on the X-axis.
+		 * @param offsetY The maximum distance on the Y-axis.
+		 * @param offsetZ The maximum distance on the Z-axis.
+		 * @return This builder.
+		 */
+		public ParticlePacketBuilder offset(float offsetX, float offsetY, float offsetZ){
+			_offsetX = offsetX;
+			_offsetY = offsetY;
+			_offsetZ = offsetZ;
+			return this;
+		}
+
+		/**
+		 * Sets the display speed of the particles, a sort of data value.
+		 * @param speed The speed.
+		 * @return This builder.
+		 */
+		public ParticlePacketBuilder speed(float speed){
+			_speed = speed;
+			return this;
+		}
+
+		/**
+		 * Sets the number of particles to display.
+		 * @param amount The number of particles, which must be positive.
+		 * @return This builder.
+		 */
+		public ParticlePacketBuilder amount(int amount){
+			Validate.isTrue(amount >= 1, "At least one particle must be displayed.");
+
+			_amount = amount;
+			return this;
+		}
+
+		@Override
+		public Object build(){
+			Validate.notEmpty(_name, "The particle effect name must be specified.");
+
+			try {
+				return _handles._constructor.newInstance(_name, _x, _y, _z, _offsetX, _offsetY, _offsetZ, _speed, _amount);
+			} catch (Exception e) {
+				throw new RuntimeException("Instantiation of a particle packet failed.", e);
+			}
+		}
+	}
+
+	/**
+	 * A builder of {@code PacketPlayOutBlockChange} packets, which change the block a client displays at a location without changing the world.
+	 */
+	public static final class BlockChangePacketBuilder extends Builder{
+		private final BlockChangeHandles _handles;
+		private int _x, _y, _z;
+		private int _typeId;
+		private int _data;
+
+		private BlockChangePacketBuilder(BlockChangeHandles handles){
+			_handles = handles;
+		}
+
+		/**
+		 * Sets the location of the changed block.
+		 * @param x The X coordinate of the block.
+		 * @param y The Y coordinate of the block.
+		 * @param z The Z coordinate of the block.
+		 * @return This builder.
+		 */
+		public BlockChangePacketBuilder location(int x, int y, int z){
+			_x = x;
+			_y = y;
+			_z = z;
+			return this;
+		}
+
+		/**
+		 * Sets the location of the changed block.
+		 * @param location A location within the block.
+		 * @return This builder.
+		 */
+		public BlockChangePacketBuilder location(Location location){
+			Validate.notNull(location, "The location must not be null.");
+
+			return location(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+		}
+
+		/**
+		 * Sets the location of the changed block.
+		 * @param block The block.
+		 * @return This builder.
+		 */
+		public BlockChangePacketBuilder location(Block block){
+			Validate.notNull(block, "The block must not be null.");
+
+			return location(block.getX(), block.getY(), block.getZ());
+		}
+
+		/**
+		 * Sets the type of the displayed block, clearing its data value.
+		 * @param type The type of the block.
+		 * @return This builder.
+		 */
+		@SuppressWarnings("deprecation") // Block IDs are part of the protocol
+		public BlockChangePacketBuilder type(Material type){
+			Validate.notNull(type, "The block type must not be null.");
+			Validate.isTrue(type.isBlock(), "The block type must be a block.");
+
+			_typeId = type.getId();
+			_data = 0;
+			return this;
+		}
+
+		/**
+		 * Sets the type and data value of the displayed block.
+		 * @param data The material data of the block.
+		 * @return This builder.
+		 */
+		@SuppressWarnings("deprecation") // Data values are part of the protocol
+		public BlockChangePacketBuilder type(MaterialData data){
+			Validate.notNull(data, "The material data must not be null.");
+
+			type(data.getItemType());
+			_data = data.getData();
+			return this;
+		}
+
+		/**
+		 * Sets the data value of the displayed block.
+		 * @param data The data value.
+		 * @return This builder.
+		 */
+		public BlockChangePacketBuilder data(int data){
+			_data = data;
+			return this;
+		}
+
+		@Override
+		public Object build(){
+			try {
+				Object packet = _handles._constructor.newInstance();
+				_handles._x.set(packet, _x);
+				_handles._y.set(packet, _y);
+				_handles._z.set(packet, _z);
+				_handles._block.set(packet, _handles._getBlockById.invoke(null, _typeId));
+				_handles._data.set(packet, _data);
+				return packet;
+			} catch (Exception e) {
+				throw new RuntimeException("Instantiation of a block change packet failed.", e);
+			}
+		}
+	}
+
+	/**
+	 * The resolved handles of {@code PacketPlayOutWorldParticles}.
+	 */
+	private static final class ParticleHandles{
+		private final Constructor<?> _constructor;
+
+		public ParticleHandles() throws Exception{
+			_constructor = ReflectionUtilities.getConstructor(ReflectionUtilities.Minecraft.getType("PacketPlayOutWorldParticles"), String.class, float.class, float.class, float.class, float.class, float.class,
+					float.class, float.class, int.class);
+		}
+	}
+
+	/**
+	 * The resolved handles of {@code PacketPlayOutBlockChange}.
+	 */
+	private static final class BlockChangeHandles{
+		private final Constructor<?> _constructor;
+		private final FieldAccessor<Integer> _x, _y, _z, _data;
+		private final FieldAccessor<Object> _block;
+		private final MethodInvoker _getBlockById;
+
+		public BlockChangeHandles() throws Exception{
+			Class<?> packetType = ReflectionUtilities.Minecraft.getType("PacketPlayOutBlockChange");
+			_constructor = ReflectionUtilities.getConstructor(packetType);
+			_x = ReflectionUtilities.getFieldAccessor(packetType, "a", Integer.class);
+			_y = ReflectionUtilities.getFieldAccessor(packetType, "b", Integer.class);
+			_z = ReflectionUtilities.getFieldAccessor(packetType, "c", Integer.class);
+			_block = ReflectionUtilities.getFieldAccessor(packetType, "block");
+			_data = ReflectionUtilities.getFieldAccessor(packetType, "data", Integer.class);
+			_getBlockById = ReflectionUtilities.getMethodInvoker(ReflectionUtilities.Minecraft.getType("Block"), "getById", int.class);
+		}
+	}
+
+	// Either the resolved handles or the exception thrown while resolving them, reset by ReflectionUtilities.resetCache
+	private static volatile Object _particleHandles;
+	private static volatile Object _blockChangeHandles;
+
+	static void resetCache(){
+		_particleHandles = null;
+		_blockChangeHandles = null;
+	}
+
+	private static IllegalStateException unsupported(String packet, Object failure){
+		return new IllegalStateException("The " + packet + " packet is not supported by this server version.", (Throwable) failure);
+	}
+
+	/**
+	 * Creates a builder of particle effect packets.
+	 * @return A new builder.
+	 * @throws IllegalStateException If particle effect packets are not supported by this server version.
+	 */
+	public static ParticlePacketBuilder particle(){
+		Object handles = _particleHandles;
+		if(handles == null){
+			try{
+				handles = new ParticleHandles();
+			}catch(Exception except){
+				handles = except;
+			}
+			_particleHandles = handles;
+		}
+
+		if(!(handles instanceof ParticleHandles)){
+			throw unsupported("PacketPlayOutWorldParticles", handles);
+		}
+		return new ParticlePacketBuilder((ParticleHandles) handles);
+	}
+
+	/**
+	 * Creates a builder of block change packets.
+	 * @return A new builder.
+	 * @throws IllegalStateException If block change packets are not supported by this server version.
+	 */
+	public static BlockChangePacketBuilder blockChange(){
+		Object handles = _blockChangeHandles;
+		if(handles == null){
+			try{
+				handles = new BlockChangeHandles();
+			}catch(Exception except){
+				handles = except;
+			}
+			_blockChangeHandles = handles;
+		}
+
+		if(!(handles instanceof BlockChangeHandles)){
+			throw unsupported("PacketPlayOutBlockChange", handles);
+		}
+		return new BlockChangePacketBuilder((BlockChangeHandles) handles);
+	}
+
+}
@@ -0,0 +1,233 @@
+package me.pagekite.glen3b.library.bukkit.reflection;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Date;
+import java.util.List;
+
+import me.pagekite.glen3b.library.bukkit.command.CommandMetrics;
+import me.pagekite.glen3b.library.bukkit.command.LatencyHistogram;
+import me.pagekite.glen3b.library.bukkit.command.StripedCounter;
+
+import org.apache.commons.lang.Validate;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Records the number of calls, cache hits and misses, and time spent within each reflective entry point of GBukkitCore.
+ * <p>
+ * Metrics are disabled by default, so that production servers do not pay for them unless they are investigating reflective hot paths.
+ * While they are disabled, each entry point performs a single volatile read to determine that it should not be timed.
+ * While they are enabled, each call costs two reads of {@link System#nanoTime()}, an uncontended counter increment and a histogram update.
+ * </p>
+ * @author Glen Husman
+ */
+public final class ReflectionMetrics {
+
+	private ReflectionMetrics(){
+		// No instance should be created
+	}
+
+	/**
+	 * The start time passed to {@link Stats#record(long, boolean)} when metrics are disabled.
+	 */
+	private static final long NOT_TIMED = Long.MIN_VALUE;
+
+	/**
+	 * The statistics of a single reflective entry point.
+	 */
+	public static final class Stats{
+		private final String _name;
+		private final StripedCounter _hits = new StripedCounter();
+		private final StripedCounter _misses = new StripedCounter();
+		private final LatencyHistogram _time = new LatencyHistogram();
+
+		private Stats(String name){
+			_name = name;
+		}
+
+		/**
+		 * Gets the name of the entry point.
+		 * @return The entry point name.
+		 */
+		public String getName(){
+			return _name;
+		}
+
+		/**
+		 * Records a call of the entry point.
+		 * @param start The value returned by {@link ReflectionMetrics#start()} when the call began.
+		 * @param hit Whether the call was served from a cache.
+		 */
+		void record(long start, boolean hit){
+			if(start == NOT_TIMED){
+				return;
+			}
+
+			_time.record(System.nanoTime() - start);
+			(hit ? _hits : _misses).increment();
+		}
+
+		/**
+		 * Gets the number of calls of the entry point.
+		 * @return The number of calls.
+		 */
+		public long getCalls(){
+			return _hits.get() + _misses.get();
+		}
+
+		/**
+		 * Gets the number of calls which were served from a cache.
+		 * @return The number of cache hits.
+		 */
+		public long getHits(){
+			return _hits.get();
+		}
+
+		/**
+		 * Gets the number of calls which required a reflective lookup.
+		 * @return The number of cache misses.
+		 */
+		public long getMisses(){
+			return _misses.get();
+		}
+
+		/**
+		 * Gets the proportion of calls which were served from a cache.
+		 * @return The cache hit rate, between {@code 0} and {@code 1}, or {@code 0} if no calls have been recorded.
+		 */
+		public double getHitRate(){
+			long hits = _hits.get();
+			long calls = hits + _misses.get();
+			return calls == 0 ? 0 : hits / (double) calls;
+		}
+
+		/**
+		 * Gets the time spent within the entry point.
+		 * @return The histogram of call times.
+		 */
+		public LatencyHistogram getTime(){
+			return _time;
+		}
+
+		private void reset(){
+			_hits.reset();
+			_misses.reset();
+			_time.reset();
+		}
+
+		@Override
+		public String toString(){
+			return _name + ": " + getCalls() + " calls, " + String.format("%.1f%%", getHitRate() * 100) + " cache hits, total " + CommandMetrics.formatNanos(_time.getTotalNanos()) + ", " + CommandMetrics.describe(_time);
+		}
+	}
+
+	/**
+	 * Lookups of field accessors by {@link ReflectionUtilities#getFieldAccessor(Class, String)}, which also serves the field value methods.
+	 */
+	public static final Stats FIELDS = new Stats("ReflectionUtilities.getFieldAccessor");
+
+	/**
+	 * Lookups of method invokers by {@link ReflectionUtilities#getMethodInvoker(Class, String, Class...)}.
+	 */
+	public static final Stats METHODS = new Stats("ReflectionUtilities.getMethodInvoker");
+
+	/**
+	 * Resolutions of method overloads by {@link ReflectionUtilities#resolveMethod(Class, String, Class...)}, which also serves {@link ReflectionUtilities#invokeMethod(Object, String, Object...)}.
+	 */
+	public static final Stats OVERLOADS = new Stats("ReflectionUtilities.resolveMethod");
+
+	/**
+	 * Calls of {@link ReflectionUtilities.CraftBukkit#getNMSHandle(Object)}, which hit when the {@code getHandle} method of the type is cached.
+	 */
+	public static final Stats HANDLES = new Stats("CraftBukkit.getNMSHandle");
+
+	/**
+	 * Lookups of player connections when sending packets, which hit when the connection of the player is cached.
+	 */
+	public static final Stats CONNECTIONS = new Stats("CraftBukkit.sendPacket");
+
+	/**
+	 * Lookups of classes by {@link InternalPackage} and {@link InternalPackage.SubPackage}.
+	 */
+	public static final Stats CLASSES = new Stats("InternalPackage.getClass");
+
+	/**
+	 * Lookups of members by {@link SafeReflection}.
+	 */
+	public static final Stats SAFE_MEMBERS = new Stats("SafeReflection");
+
+	private static final List<Stats> ALL_STATS = ImmutableList.of(FIELDS, METHODS, OVERLOADS, HANDLES, CONNECTIONS, CLASSES, SAFE_MEMBERS);
+
+	private static volatile boolean _enabled = false;
+	private static volatile long _since = System.currentTimeMillis();
+
+	/**
+	 * Marks the start of a call of an instrumented entry point.
+	 * @return The value to pass to {@link Stats#record(long, boolean)} when the call ends.
+	 */
+	static long start(){
+		return _enabled ? System.nanoTime() : NOT_TIMED;
+	}
+
+	/**
+	 * Determines if reflection metrics are recorded.
+	 * @return Whether metrics are recorded.
+	 */
+	public static boolean isEnabled(){
+		return _enabled;
+	}
+
+	/**
+	 * Sets whether reflection metrics are recorded. Metrics which have already been recorded are kept.
+	 * @param enabled Whether metrics are recorded.
+	 */
+	public static void setEnabled(boolean enabled){
+		_enabled = enabled;
+	}
+
+	/**
+	 * Gets the statistics of all reflective entry points.
+	 * @return The statistics of all entry points.
+	 */
+	public static List<Stats> getAllStats(){
+		return ALL_STATS;
+	}
+
+	/**
+	 * Discards all recorded metrics.
+	 */
+	public static void reset(){
+		for(Stats stats : ALL_STATS){
+			stats.reset();
+		}
+		_since = System.currentTimeMillis();
+	}
+
+	/**
+	 * Writes a plain text report of all recorded metrics.
+	 * Reports are written one at a time, so that concurrent dumps requested by command do not interleave in the same file.
+	 * @param file The file to write to, which is replaced if it exists.
+	 * @throws IOException If the report could not be written.
+	 */
+	public static synchronized void dump(File file) throws IOException{
+		Validate.notNull(file, "The file must not be null.");
+
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		try{
+			String newline = System.getProperty("line.separator");
+			writer.write("Reflection metrics recorded from " + new Date(_since) + " to " + new Date() + (_enabled ? "" : " (recording is disabled)") + newline + newline);
+			for(Stats stats : ALL_STATS){
+				writer.write(stats.getName() + newline);
+				writer.write("  calls:  " + stats.getCalls() + " (" + stats.getHits() + " hits, " + stats.getMisses() + " misses)" + newline);
+				writer.write("  time:   total " + CommandMetrics.formatNanos(stats.getTime().getTotalNanos()) + ", " + CommandMetrics.describe(stats.getTime()) + newline);
+			}
+		}finally{
+			writer.close();
+		}
+	}
+
+}
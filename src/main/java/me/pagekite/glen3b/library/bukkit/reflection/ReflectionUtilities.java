@@ -5,12 +5,13 @@ import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Constructor;
-import java.lang.reflect.Type;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Pattern;
 
 import me.pagekite.glen3b.library.bukkit.Utilities;
@@ -24,8 +25,8 @@ import org.bukkit.entity.Item;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 
-import com.google.common.base.Function;
 import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
 
 /**
  * Utilities involving reflection.
@@ -47,10 +48,13 @@ public final class ReflectionUtilities {
 	 * succeed do not without a call to this method.
 	 */
 	static void resetCache() {
-		CraftBukkit._getHandleMethods = Collections
-				.synchronizedMap(new HashMap<Class<?>, Method>());
-		_fieldCache = Collections
-				.synchronizedMap(new HashMap<Class<?>, Map<String, Field>>());
+		CraftBukkit._getHandleMethods = new MapMaker().weakKeys().makeMap();
+		CraftBukkit._playerConnections = new MapMaker().weakKeys().weakValues().makeMap();
+		CraftBukkit._packetType = null;
+		CraftBukkit._sendPacketMethod = null;
+		_fieldCache = new MapMaker().weakKeys().makeMap();
+		_methodCache = new MapMaker().weakKeys().makeMap();
+		_overloadCache = new MapMaker().weakKeys().makeMap();
 
 		for(InternalPackage pkg : InternalPackage.values()){
 			pkg.loadedClasses.clear();
@@ -60,6 +64,8 @@ public final class ReflectionUtilities {
 			pkg.loadedClasses.clear();
 		}
 
+		PacketFactory.resetCache();
+
 		_obcPkgVerStr = null;
 	}
 
@@ -114,70 +120,226 @@ public final class ReflectionUtilities {
 	}
 
 	/**
-	 * Assumes caller synchronizes on the fieldCache properly.
-	 * @param clazz The class.
-	 * @param field The field to get.
-	 * @return The field value.
-	 * @throws NoSuchFieldException If the field doesn't exist.
+	 * Locates a field declared by the specified class or one of its superclasses, preferring public fields.
+	 * @return The accessible field, or {@code null} if it does not exist.
 	 */
-	private static Field getCachedFieldInstance(Class<?> clazz, String field) throws NoSuchFieldException{
-		if(!_fieldCache.containsKey(clazz)){
-			_fieldCache.put(clazz, new HashMap<String, Field>());
-		}
-		Map<String, Field> declaredFields = _fieldCache.get(clazz); // returns a REFERENCE
-		if(declaredFields.containsKey(field)){
-			Field val = declaredFields.get(field);
-			if(val == null){
-				throw new NoSuchFieldException(clazz.getCanonicalName() + " does not declare a reflectively accessible field by the name of '" + field + "'.");
-			}
-			return val;
+	private static Field findField(Class<?> clazz, String field){
+		try{
+			return clazz.getField(field);
+		}catch(NoSuchFieldException err){
+			// Not public, so search the declared fields of the class and its superclasses
 		}
 
-		Field value = null;
-		Throwable cause = null;
+		for(Class<?> superclass = clazz; superclass != null; superclass = superclass.getSuperclass()){
+			for(Field f : superclass.getDeclaredFields()){
+				if(f.getName().equals(field)){
+					return f;
+				}
+			}
+		}
+		return null;
+	}
 
-		// Caching is my excuse to use an extremely expensive search operation
-		// Hopefully barely any of this will have to be called
+	/**
+	 * Locates a method declared by the specified class or one of its superclasses, preferring public methods.
+	 * @return The accessible method, or {@code null} if it does not exist.
+	 */
+	private static Method findMethod(Class<?> clazz, String method, Class<?>[] params){
 		try{
-			value = clazz.getField(field);
-		}catch(NoSuchFieldException err){
+			return clazz.getMethod(method, params);
+		}catch(NoSuchMethodException err){
+			// Not public, so search the declared methods of the class and its superclasses
+		}
+
+		for(Class<?> superclass = clazz; superclass != null; superclass = superclass.getSuperclass()){
 			try{
-				value = clazz.getDeclaredField(field);
-			}catch(NoSuchFieldException innerErr){
-				try{
-					cause = innerErr.initCause(err);
-				}catch(IllegalStateException except){
-					cause = innerErr;
+				return superclass.getDeclaredMethod(method, params);
+			}catch(NoSuchMethodException err){
+				// Continue with the superclass
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Gets the cache of members of the specified type declared by a class, creating it if it does not exist.
+	 */
+	private static <K, V> ConcurrentMap<K, V> getMemberCache(ConcurrentMap<Class<?>, ConcurrentMap<K, V>> cache, Class<?> clazz){
+		ConcurrentMap<K, V> members = cache.get(clazz);
+		if(members == null){
+			ConcurrentMap<K, V> newMembers = new ConcurrentHashMap<K, V>(8);
+			members = cache.putIfAbsent(clazz, newMembers);
+			if(members == null){
+				members = newMembers;
+			}
+		}
+		return members;
+	}
+
+	/**
+	 * Determines if a cache key is, or refers to, a class defined by the specified class loader.
+	 */
+	private static boolean isDefinedBy(Object key, ClassLoader loader){
+		if(key instanceof Class<?>){
+			return ((Class<?>) key).getClassLoader() == loader;
+		}else if(key instanceof List<?>){
+			for(Object element : (List<?>) key){
+				if(isDefinedBy(element, loader)){
+					return true;
 				}
-				// value should still be null
-				for(Class<?> superclass = clazz; superclass != null; superclass = superclass.getSuperclass()){
-					for(Field f : superclass.getDeclaredFields()){
-						if(f.getName().equals(field)){
-							value = f;
-							break;
-						}
-					}
-					if(value != null){
-						// We found it!
-						break;
-					}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Removes the entries of a two-level member cache which refer to classes defined by the specified class loader.
+	 */
+	private static void evict(ConcurrentMap<Class<?>, ? extends ConcurrentMap<?, ?>> cache, ClassLoader loader){
+		for(Iterator<? extends Map.Entry<Class<?>, ? extends ConcurrentMap<?, ?>>> classes = cache.entrySet().iterator(); classes.hasNext();){
+			Map.Entry<Class<?>, ? extends ConcurrentMap<?, ?>> entry = classes.next();
+			if(isDefinedBy(entry.getKey(), loader)){
+				classes.remove();
+				continue;
+			}
+
+			// Signatures of members of other classes may refer to the classes as parameter types
+			for(Iterator<?> members = entry.getValue().keySet().iterator(); members.hasNext();){
+				if(isDefinedBy(members.next(), loader)){
+					members.remove();
 				}
 			}
 		}
+	}
 
-		declaredFields.put(field, value);
+	/**
+	 * Removes all cached members of classes defined by the specified class loader, which would otherwise keep the class loader reachable. <b>Internal method, not meant to be called by user code.</b>
+	 * <p>
+	 * The member caches of this class and of {@link SafeReflection} hold classes weakly, but cached members strongly reference their declaring classes, so the classes of a disabled plugin are only collected once their members are evicted here.
+	 * </p>
+	 * @param loader The class loader of a plugin which has been disabled.
+	 */
+	public static void evictClassLoader(ClassLoader loader){
+		Validate.notNull(loader, "The class loader must not be null.");
+
+		evict(_fieldCache, loader);
+		evict(_methodCache, loader);
+		evict(_overloadCache, loader);
+		for(Iterator<Class<?>> classes = CraftBukkit._getHandleMethods.keySet().iterator(); classes.hasNext();){
+			if(isDefinedBy(classes.next(), loader)){
+				classes.remove();
+			}
+		}
+		SafeReflection.evictClassLoader(loader);
+	}
+
+	/**
+	 * Gets an accessor of a field declared by the specified class or one of its superclasses. The field may be inaccessible to public viewers due to access modifiers.
+	 * Accessors are cached, as is the absence of a field, so repeated calls are a pair of lock-free map lookups.
+	 * @param clazz The type containing the field.
+	 * @param fieldName The name of the field.
+	 * @return An accessor of the field.
+	 * @throws NoSuchFieldException If the specified field does not exist.
+	 * @throws SecurityException If a {@link SecurityManager} blocks this operation.
+	 */
+	public static FieldAccessor<Object> getFieldAccessor(Class<?> clazz, String fieldName) throws NoSuchFieldException, SecurityException{
+		Validate.notNull(clazz, "The specified class must not be null.");
+		Validate.notEmpty(fieldName, "The field name must be specified.");
+
+		long start = ReflectionMetrics.start();
+		ConcurrentMap<String, FieldAccessor<Object>> fields = getMemberCache(_fieldCache, clazz);
+		FieldAccessor<Object> accessor = fields.get(fieldName);
+		boolean hit = accessor != null;
+		if(!hit){
+			Field field = findField(clazz, fieldName);
+			if(field != null){
+				// Very important!
+				field.setAccessible(true);
+			}
+
+			FieldAccessor<Object> newAccessor = field == null ? MISSING_FIELD : new FieldAccessor<Object>(field);
+			accessor = fields.putIfAbsent(fieldName, newAccessor);
+			if(accessor == null){
+				accessor = newAccessor;
+			}
+		}
+
+		ReflectionMetrics.FIELDS.record(start, hit);
+		if(accessor == MISSING_FIELD){
+			throw new NoSuchFieldException(clazz.getCanonicalName() + " does not declare a reflectively accessible field by the name of '" + fieldName + "'.");
+		}
+		return accessor;
+	}
+
+	/**
+	 * Gets an accessor of a field declared by the specified class or one of its superclasses. The field may be inaccessible to public viewers due to access modifiers.
+	 * @param clazz The type containing the field.
+	 * @param fieldName The name of the field.
+	 * @param type The type of value held by the field. Primitive fields are accessed through their wrapper type.
+	 * @return An accessor of the field.
+	 * @throws NoSuchFieldException If the specified field does not exist.
+	 * @throws SecurityException If a {@link SecurityManager} blocks this operation.
+	 * @throws IllegalArgumentException If the field cannot hold values of type {@code type}.
+	 * @see #getFieldAccessor(Class, String)
+	 */
+	public static <T> FieldAccessor<T> getFieldAccessor(Class<?> clazz, String fieldName, Class<T> type) throws NoSuchFieldException, SecurityException{
+		return getFieldAccessor(clazz, fieldName).as(type);
+	}
+
+	/**
+	 * Gets an invoker of a method declared by the specified class or one of its superclasses, with exactly the specified parameter types. The method may be inaccessible to public viewers due to access modifiers.
+	 * Invokers are cached, as is the absence of a method, so repeated calls are a pair of lock-free map lookups.
+	 * @param clazz The type containing the method.
+	 * @param methodName The name of the method.
+	 * @param params The parameter types of the method.
+	 * @return An invoker of the method.
+	 * @throws NoSuchMethodException If the specified method does not exist.
+	 * @throws SecurityException If a {@link SecurityManager} blocks this operation.
+	 */
+	public static MethodInvoker getMethodInvoker(Class<?> clazz, String methodName, Class<?>... params) throws NoSuchMethodException, SecurityException{
+		Validate.notNull(clazz, "The specified class must not be null.");
+		Validate.notEmpty(methodName, "The method name must be specified.");
+		if(params == null){
+			// Interpret as empty
+			params = new Class<?>[0];
+		}
 
-		if(value == null){
-			throw (NoSuchFieldException) new NoSuchFieldException(clazz.getCanonicalName() + " does not declare a reflectively accessible field by the name of '" + field + "'.").initCause(cause);
-		}else{
-			// Very important!
-			value.setAccessible(true);
+		long start = ReflectionMetrics.start();
+		List<Object> key = Lists.<Object>newArrayListWithCapacity(params.length + 1);
+		key.add(methodName);
+		key.addAll(Arrays.asList(params));
+
+		ConcurrentMap<List<Object>, MethodInvoker> methods = getMemberCache(_methodCache, clazz);
+		MethodInvoker invoker = methods.get(key);
+		boolean hit = invoker != null;
+		if(!hit){
+			Method method = findMethod(clazz, methodName, params);
+			if(method != null){
+				method.setAccessible(true);
+			}
+
+			MethodInvoker newInvoker = method == null ? MISSING_METHOD : new MethodInvoker(method);
+			invoker = methods.putIfAbsent(key, newInvoker);
+			if(invoker == null){
+				invoker = newInvoker;
+			}
 		}
 
-		return value;
+		ReflectionMetrics.METHODS.record(start, hit);
+		if(invoker == MISSING_METHOD){
+			throw new NoSuchMethodException(clazz.getCanonicalName() + " does not declare a reflectively accessible method " + methodName + Arrays.toString(params) + ".");
+		}
+		return invoker;
 	}
 
-	private static Map<Class<?>, Map<String, Field>> _fieldCache;
+	// Cached in place of members which do not exist
+	private static final FieldAccessor<Object> MISSING_FIELD = new FieldAccessor<Object>(null);
+	private static final MethodInvoker MISSING_METHOD = new MethodInvoker(null);
+
+	// Evicted per plugin by evictClassLoader
+	private static ConcurrentMap<Class<?>, ConcurrentMap<String, FieldAccessor<Object>>> _fieldCache;
+	private static ConcurrentMap<Class<?>, ConcurrentMap<List<Object>, MethodInvoker>> _methodCache;
+	private static ConcurrentMap<Class<?>, ConcurrentMap<List<Object>, MethodInvoker>> _overloadCache;
 
 	static {
 		resetCache();
@@ -284,10 +446,97 @@ public final class ReflectionUtilities {
 
 		private static boolean _hasCachedCraftPlayer = false;
 		private static Class<? extends Player> _cachedCraftPlayerType = null;
-		private static Method _nmsPlayer_playerConnection_sendPacketMethod = null;
+
+		// Players and their connections are held weakly, so the connections of players who are no longer referenced may be collected
+		private static ConcurrentMap<Player, Object> _playerConnections;
+		private static volatile Class<?> _packetType;
+		private static volatile MethodInvoker _sendPacketMethod;
+
+		/**
+		 * Gets the NMS {@code PlayerConnection} of a player, caching it for the rest of the player's session.
+		 * @param player The player.
+		 * @return The connection of the player.
+		 * @throws Exception If the connection cannot be located reflectively, or the player does not have a connection.
+		 */
+		public static Object getPlayerConnection(Player player) throws Exception{
+			Validate.notNull(player, "The player must not be null.");
+
+			long start = ReflectionMetrics.start();
+			Object connection = _playerConnections.get(player);
+			boolean hit = connection != null;
+			if(!hit){
+				// EntityPlayer instance
+				Object nmsPlayer = getNMSHandle(player);
+				// PlayerConnection for this player
+				connection = getFieldAccessor(nmsPlayer.getClass(), "playerConnection").get(nmsPlayer);
+				if(connection == null){
+					throw new IllegalStateException("The player " + player.getName() + " does not have a connection.");
+				}
+				_playerConnections.put(player, connection);
+			}
+			ReflectionMetrics.CONNECTIONS.record(start, hit);
+			return connection;
+		}
+
+		/**
+		 * Gets the NMS packet type, locating it if this has not yet been done.
+		 */
+		private static Class<?> getPacketType(){
+			Class<?> packetType = _packetType;
+			if(packetType == null){
+				try {
+					packetType = Minecraft.getType("Packet");
+				} catch (Exception e) {
+					throw new RuntimeException("An error occurred during the process of reflectively sending the specified packet to the specified player.", e);
+				}
+				_packetType = packetType;
+			}
+			return packetType;
+		}
+
+		/**
+		 * Gets the invoker of {@code PlayerConnection.sendPacket}, binding it to the type of the specified connection if this has not yet been done.
+		 */
+		private static MethodInvoker getSendPacketMethod(Object connection) throws NoSuchMethodException{
+			MethodInvoker sendPacket = _sendPacketMethod;
+			if(sendPacket == null){
+				sendPacket = getMethodInvoker(connection.getClass(), "sendPacket", getPacketType());
+				_sendPacketMethod = sendPacket;
+			}
+			return sendPacket;
+		}
+
+		/**
+		 * Resolves the reflective handles used to send packets, which are otherwise resolved when the first packet is sent. <b>Internal method, not meant to be called by user code.</b>
+		 * @throws Exception If a handle cannot be resolved.
+		 */
+		public static void warmUp() throws Exception{
+			Class<? extends Player> craftPlayer = getCraftPlayerType();
+			if(craftPlayer == null){
+				throw new ClassNotFoundException("The CraftPlayer type could not be found.");
+			}
+
+			Method handleMethod = craftPlayer.getMethod("getHandle");
+			handleMethod.setAccessible(true);
+			_getHandleMethods.putIfAbsent(craftPlayer, new MethodInvoker(handleMethod));
+
+			getFieldAccessor(Minecraft.getType("EntityPlayer"), "playerConnection");
+			_sendPacketMethod = getMethodInvoker(Minecraft.getType("PlayerConnection"), "sendPacket", getPacketType());
+		}
+
+		/**
+		 * Removes the cached connection of a player who has quit. <b>Internal method, not meant to be called by user code.</b>
+		 * @param player The player who has quit.
+		 */
+		public static void invalidatePlayerConnection(Player player){
+			if(player != null){
+				_playerConnections.remove(player);
+			}
+		}
 
 		/**
 		 * Sends an NMS packet instance to a specific player.
+		 * The player's connection is located reflectively on the first packet sent to them, and is cached until they quit.
 		 * @param player The player who will receive the packet.
 		 * @param packet The NMS packet object.
 		 * @exception IllegalArgumentException If player is {@code null}.
@@ -297,28 +546,43 @@ public final class ReflectionUtilities {
 		public static void sendPacket(Player player, Object packet){
 			Validate.notNull(player, "The player must not be null.");
 			Validate.notNull(packet, "The packet instance must not be null.");
-			Class<?> packetType = null;
+			Validate.isTrue(getPacketType().isInstance(packet), "The packet instance must be assignable to the NMS packet type.");
+			
 			try {
-				packetType = Minecraft.getType("Packet");
+				Object connection = getPlayerConnection(player);
+				// Send the packet to the player in question
+				getSendPacketMethod(connection).invoke(connection, packet);
 			} catch (Exception e) {
 				throw new RuntimeException("An error occurred during the process of reflectively sending the specified packet to the specified player.", e);
 			}
-			
-			Validate.isTrue(packetType.isInstance(packet), "The packet instance must be assignable to the NMS packet type.");
-			
+		}
+
+		/**
+		 * Sends an NMS packet instance to a group of players.
+		 * The packet is validated once, and is then written to the cached connection of each player.
+		 * @param players The players who will receive the packet.
+		 * @param packet The NMS packet object.
+		 * @exception IllegalArgumentException If players is {@code null} or contains a {@code null} element.
+		 * @exception IllegalArgumentException If packet is {@code null}.
+		 * @exception IllegalArgumentException If packet is not an instance of the NMS packet type.
+		 * @see #sendPacket(Player, Object)
+		 */
+		public static void sendPacket(Collection<? extends Player> players, Object packet){
+			Validate.noNullElements(players, "No null players may be specified as packet recipients.");
+			Validate.notNull(packet, "The packet instance must not be null.");
+			Validate.isTrue(getPacketType().isInstance(packet), "The packet instance must be assignable to the NMS packet type.");
+
 			try {
-				// EntityPlayer instance
-				Object nmsPlayer = getNMSHandle(player);
-				// PlayerConnection for this player
-				Object networkingHandle = getValue(nmsPlayer, "playerConnection");
-				if(_nmsPlayer_playerConnection_sendPacketMethod == null){
-					_nmsPlayer_playerConnection_sendPacketMethod = networkingHandle.getClass().getDeclaredMethod("sendPacket", packetType);
-					_nmsPlayer_playerConnection_sendPacketMethod.setAccessible(true);
+				MethodInvoker sendPacket = null;
+				for(Player player : players){
+					Object connection = getPlayerConnection(player);
+					if(sendPacket == null){
+						sendPacket = getSendPacketMethod(connection);
+					}
+					sendPacket.invoke(connection, packet);
 				}
-				// Send the packet to the player in question
-				_nmsPlayer_playerConnection_sendPacketMethod.invoke(networkingHandle, packet);
 			} catch (Exception e) {
-				throw new RuntimeException("An error occurred during the process of reflectively sending the specified packet to the specified player.", e);
+				throw new RuntimeException("An error occurred during the process of reflectively sending the specified packet to the specified players.", e);
 			}
 		}
 		
@@ -360,7 +624,7 @@ public final class ReflectionUtilities {
 			return InternalPackage.CRAFTBUKKIT.getClass(name);
 		}
 
-		private static Map<Class<?>, Method> _getHandleMethods;
+		private static ConcurrentMap<Class<?>, MethodInvoker> _getHandleMethods;
 
 		/**
 		 * Gets the NMS handle for the specified CraftBukkit object (this method does
@@ -413,16 +677,24 @@ public final class ReflectionUtilities {
 				InvocationTargetException {
 			Validate.notNull(entity, "The object instance must not be null.");
 
-			if (_getHandleMethods.containsKey(entity.getClass())) {
-				try {
-					Method hMethod = _getHandleMethods.get(entity.getClass());
+			long start = ReflectionMetrics.start();
+			MethodInvoker cachedHandleMethod = _getHandleMethods.get(entity.getClass());
+			try {
+				return getNMSHandle(entity, cachedHandleMethod);
+			} finally {
+				ReflectionMetrics.HANDLES.record(start, cachedHandleMethod != null);
+			}
+		}
 
-					return hMethod.invoke(entity);
-				} catch (NullPointerException npe) {
-					throw (NoSuchMethodException) new NoSuchMethodException(
-							"The specified object does not have a getHandle method.")
-					.initCause(npe);
-				}
+		private static Object getNMSHandle(Object entity, MethodInvoker cachedHandleMethod)
+				throws NoSuchMethodException, SecurityException,
+				IllegalAccessException, IllegalArgumentException,
+				InvocationTargetException {
+			if (cachedHandleMethod == MISSING_METHOD) {
+				throw new NoSuchMethodException(
+						"The specified object does not have a getHandle method.");
+			} else if (cachedHandleMethod != null) {
+				return cachedHandleMethod.invoke(entity);
 			}
 			
 			if(entity instanceof Item){
@@ -438,8 +710,9 @@ public final class ReflectionUtilities {
 			try {
 				Method handleMethod = entity.getClass().getMethod("getHandle");
 				handleMethod.setAccessible(true);
-				_getHandleMethods.put(entity.getClass(), handleMethod);
-				return handleMethod.invoke(entity);
+				MethodInvoker handleInvoker = new MethodInvoker(handleMethod);
+				_getHandleMethods.put(entity.getClass(), handleInvoker);
+				return handleInvoker.invoke(entity);
 			} catch (NoSuchMethodException err) {
 				if(entity instanceof ItemStack){
 					// A CraftItemStack was retrieved
@@ -465,7 +738,7 @@ public final class ReflectionUtilities {
 					}
 					return _bukkitAPIItemStackToNMSStack.invoke(null, entity);
 				}
-				_getHandleMethods.put(entity.getClass(), null);
+				_getHandleMethods.put(entity.getClass(), MISSING_METHOD);
 				throw (NoSuchMethodException) new NoSuchMethodException(
 						"The specified object does not have a getHandle method.")
 				.initCause(err);
@@ -535,21 +808,22 @@ public final class ReflectionUtilities {
 			throw new IllegalAccessException("It is impossible to reflectively set the 'length' field of an array class.");
 		}
 
-		Field field = getCachedFieldInstance(instance.getClass(), fieldName);
-		field.set(instance, value);
+		// Set through the field itself, so writing a final field throws IllegalAccessException as declared
+		getFieldAccessor(instance.getClass(), fieldName).getField().set(instance, value);
 	}
 
 	/**
-	 * Invoke a method on an object. This will iterate through all methods of
-	 * the object to determine the appropriate overload.
+	 * Invoke a method on an object. The appropriate overload is resolved from
+	 * the runtime types of the arguments the first time the method is invoked
+	 * with those types, and is cached, as is the absence of an appropriate
+	 * overload, so later invocations perform a single lookup.
 	 * <p>
-	 * If a specific overload is desired, the following may be used instead to
-	 * avoid the overhead of this method.
+	 * If a method is invoked repeatedly, the following may be used instead to
+	 * avoid the overhead of the lookup.
 	 * 
 	 * <pre>
-	 * 	Method method = object.getClass().getMethod(method, argumentTypes);
-	 * 	method.setAccessible(true);
-	 * 	method.invoke(object, varArgs);
+	 * 	MethodInvoker invoker = ReflectionUtilities.resolveMethod(object.getClass(), method, argumentTypes);
+	 * 	invoker.invoke(object, varArgs);
 	 * </pre>
 	 * 
 	 * </p>
@@ -569,8 +843,7 @@ public final class ReflectionUtilities {
 	 *            The arguments to pass to the method. If this array is
 	 *            {@code null}, it will be treated as an empty array.
 	 * @return The result of the invoked method.
-	 * @see Class#getMethod(String, Class...)
-	 * @see Method#setAccessible(boolean)
+	 * @see #resolveMethod(Class, String, Class...)
 	 * @see Method#invoke(Object, Object...)
 	 */
 	public static Object invokeMethod(Object object, String method,
@@ -585,96 +858,126 @@ public final class ReflectionUtilities {
 			args = new Object[] {};
 		}
 
-		try {
-			Class<?>[] params = new Class[args.length];
-			for (int i = 0; i < args.length; i++) {
-				params[i] = args[i] == null ? Void.TYPE : args[i].getClass();
+		Class<?>[] argTypes = new Class<?>[args.length];
+		for (int i = 0; i < args.length; i++) {
+			argTypes[i] = args[i] == null ? null : args[i].getClass();
+		}
+
+		return resolveMethod(object.getClass(), method, argTypes).getMethod().invoke(object, args);
+	}
+
+	/**
+	 * Resolve the public method overload which would be invoked by
+	 * {@link #invokeMethod(Object, String, Object...)} with arguments of the
+	 * specified runtime types. The returned invoker may be kept by the caller
+	 * and invoked directly.
+	 * <p>
+	 * An overload with exactly the specified parameter types is preferred.
+	 * Otherwise, the most specific overload to which every argument is
+	 * assignable, allowing for boxing and unboxing, is chosen. Resolutions
+	 * are cached by receiver type, method name and argument types, including
+	 * the absence of an appropriate overload.
+	 * </p>
+	 * 
+	 * @param receiverType
+	 *            The runtime type of the object upon which the method will be
+	 *            invoked.
+	 * @param method
+	 *            The name of the method.
+	 * @param argTypes
+	 *            The runtime types of the arguments. A {@code null} element
+	 *            represents a {@code null} argument, which is assignable to
+	 *            any reference type. If this array is {@code null}, it will be
+	 *            treated as an empty array.
+	 * @return An invoker of the resolved overload.
+	 * @throws NoSuchMethodException
+	 *             If no public overload accepts arguments of the specified
+	 *             types.
+	 */
+	public static MethodInvoker resolveMethod(Class<?> receiverType,
+			String method, Class<?>... argTypes) throws NoSuchMethodException,
+			SecurityException {
+		Validate.notNull(receiverType, "The receiver type must not be null.");
+		Validate.notEmpty(method, "The method name must be defined.");
+
+		if (argTypes == null) {
+			argTypes = new Class<?>[0];
+		}
+
+		long start = ReflectionMetrics.start();
+		List<Object> key = Lists.<Object> newArrayListWithCapacity(argTypes.length + 1);
+		key.add(method);
+		key.addAll(Arrays.asList(argTypes));
+
+		ConcurrentMap<List<Object>, MethodInvoker> overloads = getMemberCache(_overloadCache, receiverType);
+		MethodInvoker invoker = overloads.get(key);
+		boolean hit = invoker != null;
+		if (!hit) {
+			Method overload = findOverload(receiverType, method, argTypes);
+			if (overload != null) {
+				overload.setAccessible(true);
 			}
-			Method m = object.getClass().getMethod(method, params);
-			m.setAccessible(true);
-			return m.invoke(object, args);
-		} catch (NoSuchMethodException er) {
-			// TODO: Recursively search for method based on superclass of
-			// parameters, or use implementation below?
-		}
-
-		List<Method> possibleMethods = Lists.newArrayListWithExpectedSize(2); // Assume
-		// 2
-		// method
-		// overloads
-		// as
-		// a
-		// default,
-		// but
-		// the
-		// list
-		// will
-		// resize
-
-		for (Method m : object.getClass().getMethods()) {
-			if (!m.getName().equals(method)) {
-				continue;
+
+			MethodInvoker newInvoker = overload == null ? MISSING_METHOD : new MethodInvoker(overload);
+			invoker = overloads.putIfAbsent(key, newInvoker);
+			if (invoker == null) {
+				invoker = newInvoker;
 			}
+		}
 
-			if (m.isVarArgs()
-					&& m.getGenericParameterTypes().length <= args.length) {
-				possibleMethods.add(m);
-			} else if (m.getGenericParameterTypes().length == args.length) {
-				Type[] argTypes = m.getGenericParameterTypes();
-				boolean isAcceptableOverload = true;
-				for (int i = 0; i < args.length; i++) {
-					if (argTypes[i] instanceof Class) {
-						isAcceptableOverload = ClassUtils.isAssignable(
-								(Class<?>) argTypes[i],
-								args[i] == null ? Void.TYPE : args[i]
-										.getClass());
-					} else {
-						// TODO: Support more types
-						isAcceptableOverload = false;
-					}
+		ReflectionMetrics.OVERLOADS.record(start, hit);
+		if (invoker == MISSING_METHOD) {
+			throw new NoSuchMethodException(
+					"Could not find an appropriate overload of "
+							+ receiverType.getCanonicalName() + "." + method
+							+ " accepting arguments of types "
+							+ Arrays.toString(argTypes) + ".");
+		}
+		return invoker;
+	}
 
-					if (!isAcceptableOverload) {
-						break;
-					}
-				}
+	/**
+	 * Determines if arguments of the specified runtime types may be passed to a method with the specified parameter types.
+	 */
+	private static boolean isApplicable(Class<?>[] paramTypes, Class<?>[] argTypes) {
+		if (paramTypes.length != argTypes.length) {
+			return false;
+		}
 
-				if (isAcceptableOverload) {
-					possibleMethods.add(m);
-				}
+		for (int i = 0; i < paramTypes.length; i++) {
+			if (argTypes[i] == null ? paramTypes[i].isPrimitive() : !ClassUtils.isAssignable(argTypes[i], paramTypes[i], true)) {
+				return false;
 			}
 		}
+		return true;
+	}
 
-		for (Method m : possibleMethods) {
-			m.setAccessible(true);
+	/**
+	 * Finds the public overload of a method to invoke with arguments of the specified runtime types, without invoking any candidate.
+	 * @return The overload, or {@code null} if no overload is applicable.
+	 */
+	private static Method findOverload(Class<?> receiverType, String method, Class<?>[] argTypes) {
+		if (!Arrays.asList(argTypes).contains(null)) {
 			try {
-				return m.invoke(object, args);
-			} catch (IllegalArgumentException err) {
-				// Assume bad method overload, continue
+				return receiverType.getMethod(method, argTypes);
+			} catch (NoSuchMethodException er) {
+				// Search for the most specific applicable overload
 			}
 		}
 
-		// No method found that would properly invoke
-		throw new NoSuchMethodException(
-				"Could not find an appropriate method overload with the specified name. Methods found by loose match: "
-						+ Arrays.toString(new Function<List<Method>, String[]>() {
-
-							@Override
-							public String[] apply(List<Method> paramF) {
-								// Convert method list to method signature
-								// String[]
-								String[] value = new String[paramF.size()];
-								for (int i = 0; i < paramF.size(); i++) {
-									value[i] = paramF.get(i).toGenericString();
-								}
-								return value;
-							}
-
-						}.apply(possibleMethods)));
+		Method best = null;
+		for (Method m : receiverType.getMethods()) {
+			if (!m.getName().equals(method) || !isApplicable(m.getParameterTypes(), argTypes)) {
+				continue;
+			}
 
-		// Method handleMethod = object.getClass().getMethod(method);
-		// handleMethod.setAccessible(true);
-		// return handleMethod.invoke(object, args);
-	}	
+			// Prefer an overload whose parameters may all be passed to the current best overload, as it is more specific
+			if (best == null || isApplicable(best.getParameterTypes(), m.getParameterTypes())) {
+				best = m;
+			}
+		}
+		return best;
+	}
 
 	/**
 	 * Get an array of {@code Method} objects that have the specified name. If a
@@ -744,7 +1047,7 @@ public final class ReflectionUtilities {
 		Validate.notEmpty(fieldName, "The field name must be specified.");
 
 
-		return getCachedFieldInstance(clazz, fieldName);
+		return getFieldAccessor(clazz, fieldName).getField();
 	}
 
 	/**
@@ -779,8 +1082,7 @@ public final class ReflectionUtilities {
 			return Array.getLength(instance);
 		}
 
-		Field field = getCachedFieldInstance(instance.getClass(), fieldName);
-		return field.get(instance);
+		return getFieldAccessor(instance.getClass(), fieldName).get(instance);
 	}
 
 }
@@ -0,0 +1,248 @@
+package me.pagekite.glen3b.library.bukkit.reflection;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Level;
+
+import org.apache.commons.lang.Validate;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Resolves the reflective handles used by GBukkitCore features when the plugin is enabled, so that the first use of a feature does not pay the cost of the lookup or fail late.
+ * <p>
+ * Each feature is resolved on its own asynchronous task, so features are resolved in parallel and off the main thread. The time each resolution took is recorded, and a readiness report is logged once all features have been resolved.
+ * Callers may check whether a feature is available with {@link #isAvailable(Feature)}, which is a single array read, instead of attempting to use the feature and catching the resulting exception.
+ * </p>
+ * @author Glen Husman
+ */
+public final class ReflectionWarmup {
+
+	private ReflectionWarmup(){
+		// Static class
+	}
+
+	/**
+	 * Represents a feature of GBukkitCore which depends on reflective access to server internals.
+	 */
+	public static enum Feature{
+		/**
+		 * Sending NMS packets to players through {@link ReflectionUtilities.CraftBukkit#sendPacket(org.bukkit.entity.Player, Object)}.
+		 */
+		PACKETS,
+		/**
+		 * Displaying particle effects through {@link me.pagekite.glen3b.library.bukkit.Utilities.Effects.Particle Particle}.
+		 */
+		PARTICLES,
+		/**
+		 * Making item stacks glow through the purely reflective {@link me.pagekite.glen3b.library.bukkit.protocol.ProtocolUtilities ProtocolUtilities} implementation.
+		 */
+		ITEM_GLOW,
+		/**
+		 * Intercepting packets through {@link me.pagekite.glen3b.library.bukkit.protocol.PacketInterceptor PacketInterceptor}.
+		 */
+		PACKET_INTERCEPTION;
+	}
+
+	/**
+	 * Represents the state of the resolution of a feature.
+	 */
+	public static enum Status{
+		/**
+		 * The feature has not yet been resolved.
+		 */
+		PENDING,
+		/**
+		 * All reflective handles used by the feature were resolved.
+		 */
+		AVAILABLE,
+		/**
+		 * A reflective handle used by the feature could not be resolved, so the feature will fail if it is used.
+		 */
+		UNAVAILABLE;
+	}
+
+	/**
+	 * The outcome of the resolution of a feature.
+	 */
+	public static final class Resolution{
+		private final Feature _feature;
+		private final Status _status;
+		private final long _timeNanos;
+		private final Throwable _failure;
+
+		private Resolution(Feature feature, Status status, long timeNanos, Throwable failure){
+			_feature = feature;
+			_status = status;
+			_timeNanos = timeNanos;
+			_failure = failure;
+		}
+
+		/**
+		 * Gets the feature which was resolved.
+		 * @return The feature.
+		 */
+		public Feature getFeature(){
+			return _feature;
+		}
+
+		/**
+		 * Gets the state of the resolution of the feature.
+		 * @return The status of the feature.
+		 */
+		public Status getStatus(){
+			return _status;
+		}
+
+		/**
+		 * Gets the time taken to resolve the feature.
+		 * @return The time taken, in nanoseconds, or {@code 0} if the feature has not yet been resolved.
+		 */
+		public long getTimeNanos(){
+			return _timeNanos;
+		}
+
+		/**
+		 * Gets the exception which prevented the feature from being resolved.
+		 * @return The exception, or {@code null} if the feature has not failed to be resolved.
+		 */
+		public Throwable getFailure(){
+			return _failure;
+		}
+
+		@Override
+		public String toString(){
+			StringBuilder description = new StringBuilder(_feature.name()).append(": ").append(_status.name().toLowerCase());
+			if(_status != Status.PENDING){
+				description.append(" in ").append(TimeUnit.NANOSECONDS.toMicros(_timeNanos)).append("us");
+			}
+			if(_failure != null){
+				description.append(" (").append(_failure).append(')');
+			}
+			return description.toString();
+		}
+	}
+
+	/**
+	 * Resolves a single feature on an asynchronous task.
+	 */
+	private static final class Resolver implements Runnable{
+		private final Feature _feature;
+		private final Callable<?> _resolver;
+		private final AtomicInteger _remaining;
+
+		public Resolver(Feature feature, Callable<?> resolver, AtomicInteger remaining){
+			_feature = feature;
+			_resolver = resolver;
+			_remaining = remaining;
+		}
+
+		@Override
+		public void run() {
+			long start = System.nanoTime();
+			Resolution result;
+			try{
+				_resolver.call();
+				result = new Resolution(_feature, Status.AVAILABLE, System.nanoTime() - start, null);
+			}catch(Throwable except){
+				result = new Resolution(_feature, Status.UNAVAILABLE, System.nanoTime() - start, except);
+			}
+			_resolutions.set(_feature.ordinal(), result);
+
+			if(_remaining.decrementAndGet() == 0){
+				logReport();
+			}
+		}
+	}
+
+	private static final Feature[] FEATURES = Feature.values();
+	private static final AtomicReferenceArray<Resolution> _resolutions = new AtomicReferenceArray<Resolution>(FEATURES.length);
+
+	static{
+		reset();
+	}
+
+	/**
+	 * Begins resolving features on asynchronous tasks. Internal method, not meant to be called by user code.
+	 * @param host The GBukkitCore plugin instance.
+	 * @param resolvers The resolvers of features, each of which throws an exception if a reflective handle used by its feature cannot be resolved.
+	 */
+	public static void start(Plugin host, Map<Feature, ? extends Callable<?>> resolvers){
+		Validate.notNull(host, "The host plugin must not be null.");
+		Validate.notNull(resolvers, "The feature resolvers must not be null.");
+
+		reset();
+		AtomicInteger remaining = new AtomicInteger(resolvers.size());
+		for(Map.Entry<Feature, ? extends Callable<?>> resolver : resolvers.entrySet()){
+			Bukkit.getScheduler().runTaskAsynchronously(host, new Resolver(resolver.getKey(), resolver.getValue(), remaining));
+		}
+	}
+
+	/**
+	 * Marks all features as pending. Internal method, not meant to be called by user code.
+	 */
+	public static void reset(){
+		for(Feature feature : FEATURES){
+			_resolutions.set(feature.ordinal(), new Resolution(feature, Status.PENDING, 0, null));
+		}
+	}
+
+	private static void logReport(){
+		boolean available = true;
+		StringBuilder report = new StringBuilder("Reflective features resolved:");
+		for(Resolution resolution : getReport()){
+			report.append("\n  ").append(resolution);
+			available &= resolution.getStatus() != Status.UNAVAILABLE;
+		}
+		Bukkit.getLogger().log(available ? Level.INFO : Level.WARNING, report.toString());
+	}
+
+	/**
+	 * Gets the outcome of the resolution of a feature.
+	 * @param feature The feature.
+	 * @return The resolution of {@code feature}.
+	 */
+	public static Resolution getResolution(Feature feature){
+		Validate.notNull(feature, "The feature must not be null.");
+
+		return _resolutions.get(feature.ordinal());
+	}
+
+	/**
+	 * Gets the state of the resolution of a feature.
+	 * @param feature The feature.
+	 * @return The status of {@code feature}.
+	 */
+	public static Status getStatus(Feature feature){
+		return getResolution(feature).getStatus();
+	}
+
+	/**
+	 * Determines if a feature has been resolved and all of its reflective handles are available.
+	 * A feature which is still {@linkplain Status#PENDING pending} is not reported as available, although it may be used, in which case its handles are resolved on first use.
+	 * @param feature The feature.
+	 * @return Whether {@code feature} is available.
+	 */
+	public static boolean isAvailable(Feature feature){
+		return getStatus(feature) == Status.AVAILABLE;
+	}
+
+	/**
+	 * Gets the readiness report of all features.
+	 * @return A snapshot of the resolutions of all features, in declaration order.
+	 */
+	public static List<Resolution> getReport(){
+		List<Resolution> report = Lists.newArrayListWithCapacity(FEATURES.length);
+		for(Feature feature : FEATURES){
+			report.add(_resolutions.get(feature.ordinal()));
+		}
+		return report;
+	}
+
+}
@@ -1,18 +1,252 @@
 package me.pagekite.glen3b.library.bukkit.reflection;
 
-import java.lang.reflect.Field;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.lang.Validate;
 
+import com.google.common.collect.MapMaker;
+
 
 /**
  * Provides wrapper utility methods intended to be able to do reflection without throwing exceptions.
  * Unless otherwise noted, methods in this class will, in the event of catching an exception, print the stack trace of that exception and return {@code null}.
+ * <p>
+ * Members are cached by class and name, including members which do not exist. The stack trace of a missing member is printed only when it is first looked up, and later lookups of that member cost a single cache read without throwing any exception.
+ * The {@code find} methods return a {@link Result}, which distinguishes a member which is absent from a member whose value is {@code null}.
+ * </p>
  * @author Glen Husman
  */
 public final class SafeReflection {
 
+	private SafeReflection(){
+		// Static class
+	}
+
+	/**
+	 * The result of a reflective operation which may fail, distinguishing a failed operation from a {@code null} value.
+	 * @param <T> The type of value.
+	 */
+	public static final class Result<T>{
+		private static final Result<Object> ABSENT = new Result<Object>(false, null);
+
+		private final boolean _present;
+		private final T _value;
+
+		private Result(boolean present, T value){
+			_present = present;
+			_value = value;
+		}
+
+		@SuppressWarnings("unchecked")
+		static <T> Result<T> absent(){
+			return (Result<T>) ABSENT;
+		}
+
+		static <T> Result<T> of(T value){
+			return new Result<T>(true, value);
+		}
+
+		/**
+		 * Determines if the operation succeeded.
+		 * @return Whether a value is present, which may be {@code null}.
+		 */
+		public boolean isPresent(){
+			return _present;
+		}
+
+		/**
+		 * Gets the value produced by the operation.
+		 * @return The value, which may be {@code null}.
+		 * @throws IllegalStateException If the operation failed.
+		 */
+		public T get(){
+			if(!_present){
+				throw new IllegalStateException("The reflective operation did not produce a value.");
+			}
+			return _value;
+		}
+
+		/**
+		 * Gets the value produced by the operation, or a default value if the operation failed.
+		 * @param defaultValue The value to return if the operation failed.
+		 * @return The value produced by the operation, which may be {@code null}, or {@code defaultValue}.
+		 */
+		public T or(T defaultValue){
+			return _present ? _value : defaultValue;
+		}
+
+		/**
+		 * Gets the value produced by the operation, or {@code null} if the operation failed.
+		 * @return The value produced by the operation, or {@code null}.
+		 */
+		public T orNull(){
+			return _value;
+		}
+
+		@Override
+		public String toString(){
+			return _present ? "Result[" + _value + "]" : "Result.absent";
+		}
+	}
+
+	// Cached in place of members which do not exist
+	private static final Object MISSING = new Object();
+
+	// Evicted per plugin, see ReflectionUtilities.evictClassLoader
+	private static final ConcurrentMap<Class<?>, ConcurrentMap<String, Object>> _members = new MapMaker().weakKeys().makeMap();
+
+	/**
+	 * Removes all cached members of classes defined by the specified class loader.
+	 * @param loader The class loader of a plugin which has been disabled.
+	 * @see ReflectionUtilities#evictClassLoader(ClassLoader)
+	 */
+	static void evictClassLoader(ClassLoader loader){
+		for(Iterator<Class<?>> classes = _members.keySet().iterator(); classes.hasNext();){
+			if(classes.next().getClassLoader() == loader){
+				classes.remove();
+			}
+		}
+	}
+
+	private static ConcurrentMap<String, Object> getMembers(Class<?> clazz){
+		ConcurrentMap<String, Object> members = _members.get(clazz);
+		if(members == null){
+			ConcurrentMap<String, Object> newMembers = new ConcurrentHashMap<String, Object>(8);
+			members = _members.putIfAbsent(clazz, newMembers);
+			if(members == null){
+				members = newMembers;
+			}
+		}
+		return members;
+	}
+
+	/**
+	 * Marks a member as missing, printing the stack trace of the failed lookup the first time.
+	 */
+	private static void markMissing(ConcurrentMap<String, Object> members, String key, Exception cause){
+		if(members.put(key, MISSING) != MISSING){
+			cause.printStackTrace();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static FieldAccessor<Object> getFieldAccessor(Class<?> clazz, String fieldName){
+		long start = ReflectionMetrics.start();
+		ConcurrentMap<String, Object> members = getMembers(clazz);
+		Object accessor = members.get(fieldName);
+		boolean hit = accessor != null;
+		try{
+			if(!hit){
+				try{
+					accessor = ReflectionUtilities.getFieldAccessor(clazz, fieldName);
+					members.put(fieldName, accessor);
+				}catch(Exception e){
+					markMissing(members, fieldName, e);
+					return null;
+				}
+			}
+			return accessor == MISSING ? null : (FieldAccessor<Object>) accessor;
+		}finally{
+			ReflectionMetrics.SAFE_MEMBERS.record(start, hit);
+		}
+	}
+
+	/**
+	 * Attempts to return the value of the specified field. If the field does not exist, this method returns without throwing or printing an exception after the first attempt.
+	 * @param clazz The type for which to retrieve the field value.
+	 * @param instance The instance of the specified object which contains the field value, or {@code null} if the field is static.
+	 * @param fieldName The name of the field.
+	 * @return The field value, which may be {@code null}, or an absent result if the field does not exist or {@code instance} does not hold it.
+	 */
+	public static Result<Object> findFieldValue(Class<?> clazz, Object instance, String fieldName){
+		if(clazz == null || fieldName == null){
+			return Result.absent();
+		}
+
+		FieldAccessor<Object> accessor = getFieldAccessor(clazz, fieldName);
+		if(accessor == null){
+			return Result.absent();
+		}
+
+		try{
+			return Result.of(accessor.get(instance));
+		}catch(RuntimeException e){
+			// The instance does not hold the field, which depends on the instance, so it is not cached
+			return Result.absent();
+		}
+	}
+
+	/**
+	 * Attempts to return the value of the specified field. If the field does not exist, this method returns without throwing or printing an exception after the first attempt.
+	 * @param instance The instance of the specified object which contains the field value.
+	 * @param fieldName The name of the field.
+	 * @return The field value, which may be {@code null}, or an absent result if the field does not exist.
+	 */
+	public static Result<Object> findFieldValue(Object instance, String fieldName){
+		if(instance == null){
+			return Result.absent();
+		}
+
+		return findFieldValue(instance.getClass(), instance, fieldName);
+	}
+
+	/**
+	 * Attempts to create an instance of the specified type. This method never throws or prints an exception, and if no constructor accepts the arguments, the constructor is not looked up again.
+	 * @param clazz The type for which to create the instance.
+	 * @param args The arguments to pass to the constructor.
+	 * @return The newly created instance, or an absent result if no constructor accepts the arguments or the constructor throws an exception.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> Result<T> tryCreateInstance(Class<T> clazz, Object... args){
+		if(clazz == null){
+			return Result.absent();
+		}
+		if(args == null){
+			// Interpret as empty
+			args = new Object[0];
+		}
+
+		// Resolved from the runtime types of the arguments, in the manner of ReflectionUtilities.createInstance
+		Class<?>[] argTypes = new Class<?>[args.length];
+		for(int i = 0; i < argTypes.length; i++){
+			argTypes[i] = args[i] == null ? Object.class : args[i].getClass();
+		}
+		String key = "<init>" + Arrays.toString(argTypes);
+
+		long start = ReflectionMetrics.start();
+		ConcurrentMap<String, Object> members = getMembers(clazz);
+		Object ctor = members.get(key);
+		boolean hit = ctor != null;
+		try{
+			if(!hit){
+				try{
+					ctor = ReflectionUtilities.getConstructor(clazz, argTypes);
+					members.put(key, ctor);
+				}catch(Exception e){
+					// Not printed, as createInstance has always failed silently
+					members.put(key, MISSING);
+					return Result.absent();
+				}
+			}else if(ctor == MISSING){
+				return Result.absent();
+			}
+		}finally{
+			ReflectionMetrics.SAFE_MEMBERS.record(start, hit);
+		}
+
+		try{
+			return Result.of((T) ((Constructor<?>) ctor).newInstance(args));
+		}catch(Exception e){
+			// Constructors may fail on each call of a per-tick loop, so failures are not printed, as with createInstance
+			return Result.absent();
+		}
+	}
+
 	/**
 	 * Attempts to return the value of the specified static field.
 	 * @param clazz The type for which to retrieve the field value.
@@ -20,7 +254,7 @@ public final class SafeReflection {
 	 * @return The field value (which may be {@code null}), or {@code null} if an error occurs.
 	 */
 	public static Object getFieldValue(Class<?> clazz, String fieldName){
-		return getFieldValue(clazz, null, fieldName, true);
+		return findFieldValue(clazz, null, fieldName).orNull();
 	}
 
 	/**
@@ -30,11 +264,7 @@ public final class SafeReflection {
 	 * @return The field value (which may be {@code null}), or {@code null} if an error occurs.
 	 */
 	public static Object getFieldValue(Object instance, String fieldName){
-		if(instance == null){
-			return null;
-		}
-
-		return getFieldValue(instance.getClass(), instance, fieldName, true);
+		return findFieldValue(instance, fieldName).orNull();
 	}
 
 	/**
@@ -45,7 +275,7 @@ public final class SafeReflection {
 	 * @return The field value (which may be {@code null}), or {@code null} if an error occurs.
 	 */
 	public static Object getFieldValue(Class<?> clazz, Object instance, String fieldName){
-		return getFieldValue(clazz, instance, fieldName, true);
+		return findFieldValue(clazz, instance, fieldName).orNull();
 	}
 
 	/**
@@ -55,11 +285,7 @@ public final class SafeReflection {
 	 * @return The newly created instance, or {@code null} if an error occurs.
 	 */
 	public static <T> T createInstance(Class<T> clazz, Object... args){
-		try{
-			return ReflectionUtilities.createInstance(clazz, args);
-		}catch(Exception ex){
-			return null;
-		}
+		return tryCreateInstance(clazz, args).orNull();
 	}
 
 
@@ -68,34 +294,12 @@ public final class SafeReflection {
 	 * @param clazz The type for which to retrieve the field value.
 	 * @param instance The instance of the specified object which contains the field value.
 	 * @param fieldName The name of the field.
-	 * @param setAccessible Whether the field is not visible (as per a <i>Java</i> access modifier).
+	 * @param setAccessible Whether the field is not visible (as per a <i>Java</i> access modifier). Fields are always made accessible when they are cached, so this parameter is ignored.
 	 * @return The field value (which may be {@code null}), or {@code null} if an error occurs.
+	 * @see #findFieldValue(Class, Object, String)
 	 */
 	public static Object getFieldValue(Class<?> clazz, Object instance, String fieldName, boolean setAccessible){
-		if(fieldName == null){
-			return null;
-		}
-
-		if(clazz == null){
-			return null;
-		}
-
-		try {
-			Field f;
-			try{
-				f = clazz.getField(fieldName);
-			}catch(NoSuchFieldException ex){
-				f = clazz.getDeclaredField(fieldName);
-			}
-			if(setAccessible){
-				f.setAccessible(true);
-			}
-			return f.get(instance);
-		} catch (Exception e) {
-			e.printStackTrace();
-		}
-
-		return null;
+		return findFieldValue(clazz, instance, fieldName).orNull();
 	}
 
 	/**
@@ -145,7 +349,7 @@ public final class SafeReflection {
 	 * @param clazz The type for which to set the field value.
 	 * @param instance The instance of the specified object which contains the field value.
 	 * @param fieldName The name of the field.
-	 * @param setAccessible Whether the field is not visible (as per a <i>Java</i> access modifier).
+	 * @param setAccessible Whether the field is not visible (as per a <i>Java</i> access modifier). Fields are always made accessible when they are cached, so this parameter is ignored.
 	 * @param val The new value of the field.
 	 * @return {@code true} if and only if the operation succeeds without errors.
 	 */
@@ -158,14 +362,13 @@ public final class SafeReflection {
 			return false;
 		}
 
-		try {
-			Field f;
-			f = clazz.getDeclaredField(fieldName);
+		FieldAccessor<Object> accessor = getFieldAccessor(clazz, fieldName);
+		if(accessor == null){
+			return false;
+		}
 
-			if(setAccessible){
-				f.setAccessible(true);
-			}
-			f.set(instance, val);
+		try {
+			accessor.getField().set(instance, val);
 			return true;
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -185,8 +388,15 @@ public final class SafeReflection {
 			return null;
 		}
 
+		ConcurrentMap<String, Object> members = getMembers(craftbukkitObject.getClass());
+		if(members.get("getHandle()") == MISSING){
+			return null;
+		}
+
 		try {
 			return ReflectionUtilities.CraftBukkit.getNMSHandle(craftbukkitObject);
+		} catch (NoSuchMethodException e) {
+			markMissing(members, "getHandle()", e);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -199,21 +409,33 @@ public final class SafeReflection {
 	 * @param clazz The class containing the method.
 	 * @param methodName The name of the method.
 	 * @param parameters The method parameter types.
-	 * @return The method with the details specified, or {@code null} if an error occurs.
+	 * @return A new copy of the method declared by {@code clazz} with the details specified, or {@code null} if an error occurs.
 	 * @see Class#getDeclaredMethod(String, Class...)
 	 */
 	public static Method getMethod(Class<?> clazz, String methodName, Class<?>[] parameters){
 		Validate.notNull(clazz, "The class must not be null.");
 
+		long start = ReflectionMetrics.start();
+		String key = methodName + Arrays.toString(parameters);
+		ConcurrentMap<String, Object> members = getMembers(clazz);
+		// Only the absence of a method is cached, as each caller receives its own copy of the method, which it may modify
+		boolean hit = members.get(key) == MISSING;
 		try {
-			Method val = clazz.getDeclaredMethod(methodName, parameters);
-			val.setAccessible(true);
-			return val;
-		} catch (Exception e) {
-			e.printStackTrace();
-		}
+			if(hit){
+				return null;
+			}
 
-		return null;
+			try {
+				Method method = clazz.getDeclaredMethod(methodName, parameters);
+				method.setAccessible(true);
+				return method;
+			} catch (Exception e) {
+				markMissing(members, key, e);
+				return null;
+			}
+		} finally {
+			ReflectionMetrics.SAFE_MEMBERS.record(start, hit);
+		}
 	}
 
 }